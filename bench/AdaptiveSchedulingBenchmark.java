@@ -0,0 +1,173 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+
+// Runs many timers whose alarms are hours away, first displayed (every timer ticks every 10 ms) and then
+// hidden (adaptive scheduling), and prints the wake-ups per second of the scheduler thread and of the EDT and
+// the CPU time of the scheduler thread. Every tick marks a component of its timer dirty in the RenderPipeline,
+// like the timer panels of the app, so the EDT wake-ups include the frames the ticks cause.
+// A few hidden timers get alarms a moment ahead to check that alarms are still noticed on time, and a split
+// of a hidden timer is compared with the real elapsed time. At the end all timers are paused and the app must
+// be idle: neither the scheduler nor the EDT may wake up.
+// Exits with status 1 when an alarm is missed, early or later than one tick (plus the time a tick of all timers
+// takes), a split is off, or the paused app still wakes up.
+// Run with: java -cp out AdaptiveSchedulingBenchmark [timers] [seconds per run]
+public class AdaptiveSchedulingBenchmark {
+
+    private static final int ALARM_TIMERS = 20;
+    private static final long MAX_SPLIT_ERROR_MILLIS = 2;
+    // Wake-ups per second of the scheduler and the EDT together allowed with all timers paused
+    private static final double MAX_IDLE_WAKE_UPS = 1;
+
+    public static void main(String[] args) throws Exception {
+        int timerCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        long runMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 3000;
+        if (!TimerScheduler.ADAPTIVE) {
+            System.out.println("Adaptive scheduling is disabled with -Dtimer.adaptive=false");
+        }
+
+        TimerEngine engine = new TimerEngine();
+        // Every tick is shown with the next frame, like the label of a timer panel
+        RenderPipeline pipeline = RenderPipeline.getInstance();
+        engine.addTimerListener(new TimerListener() {
+            private final RenderPipeline.Renderable label = () -> true;
+
+            @Override
+            public void timerTicked(TimerModel timer, long millis) {
+                pipeline.markDirty(label);
+            }
+        });
+        List<TimerModel> timers = new ArrayList<>();
+        for (int i = 0; i < timerCount; i++) {
+            TimerModel timer = engine.createTimer("Timer " + i);
+            Alarm alarm = new Alarm();
+            alarm.setTotalMilliseconds(2 * 60 * 60 * 1000L + i);
+            timer.addAlarm(alarm);
+            timer.addViewer();
+            timer.start();
+            timers.add(timer);
+        }
+
+        System.out.printf("%-10s %8s %14s %12s %12s %10s%n", "mode", "timers", "wake-ups/s", "EDT/s", "ticks/s", "cpu %");
+        measure("displayed", timerCount, runMillis);
+        for (TimerModel timer : timers) {
+            timer.removeViewer();
+        }
+        measure("hidden", timerCount, runMillis);
+
+        boolean failed = checkAlarms(engine, timers) | checkSplit(timers.get(0));
+        for (TimerModel timer : timers) {
+            timer.pause();
+        }
+        double idleWakeUps = measure("paused", timerCount, runMillis);
+        if (idleWakeUps > MAX_IDLE_WAKE_UPS) {
+            System.out.printf("The paused app woke up %.1f times per second (allowed %.1f)%n", idleWakeUps, MAX_IDLE_WAKE_UPS);
+            failed = true;
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+        System.exit(0);
+    }
+
+    // Returns the wake-ups per second of the scheduler and the EDT together
+    private static double measure(String mode, int timerCount, long runMillis) throws InterruptedException {
+        TimerScheduler scheduler = TimerScheduler.getInstance();
+        RenderPipeline pipeline = RenderPipeline.getInstance();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long schedulerThreadId = findSchedulerThread();
+        // Let the timers settle into the mode first
+        Thread.sleep(1100);
+        long startWakeUps = scheduler.getWakeUpCount();
+        long startEdtEvents = pipeline.getEdtEventCount();
+        long startTicks = TimerMetrics.getInstance().getTickJitter().getCount();
+        long startCpu = threadBean.getThreadCpuTime(schedulerThreadId);
+        long startNanos = System.nanoTime();
+        Thread.sleep(runMillis);
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        double wakeUps = (scheduler.getWakeUpCount() - startWakeUps) / seconds;
+        double edtEvents = (pipeline.getEdtEventCount() - startEdtEvents) / seconds;
+        double ticks = (TimerMetrics.getInstance().getTickJitter().getCount() - startTicks) / seconds;
+        double cpuPercent = (threadBean.getThreadCpuTime(schedulerThreadId) - startCpu) / 1e9 / seconds * 100;
+        System.out.printf("%-10s %8d %14.1f %12.1f %12.1f %10.2f%n", mode, timerCount, wakeUps, edtEvents, ticks, cpuPercent);
+        return wakeUps + edtEvents;
+    }
+
+    // Alarms 200 ms to 1 s ahead of hidden timers must be noticed within one tick of being reached, like with
+    // the fixed tick rate
+    private static boolean checkAlarms(TimerEngine engine, List<TimerModel> timers) throws InterruptedException {
+        Map<TimerModel, Long> dueNanos = new ConcurrentHashMap<>();
+        Map<TimerModel, Long> latenessNanos = new ConcurrentHashMap<>();
+        List<String> errors = new ArrayList<>();
+        int alarmTimers = Math.min(ALARM_TIMERS, timers.size());
+        engine.addTimerListener(new TimerListener() {
+            @Override
+            public void alarmReached(TimerModel timer, Alarm alarm) {
+                long now = System.nanoTime();
+                Long due = dueNanos.get(timer);
+                if (due == null) {
+                    return;
+                }
+                if (timer.getMillis() < alarm.getTotalMilliseconds()) {
+                    synchronized (errors) {
+                        errors.add(timer.getName() + " reached its alarm early");
+                    }
+                }
+                latenessNanos.put(timer, now - due);
+            }
+        });
+        for (int i = 0; i < alarmTimers; i++) {
+            TimerModel timer = timers.get(i);
+            long aheadMillis = 200 + i * 40L;
+            TimerScheduler.getInstance().runBetweenTicks(() -> {
+                long now = System.nanoTime();
+                long alarmMillis = timer.snapshot().getMillis(now) + aheadMillis;
+                dueNanos.put(timer, now + aheadMillis * 1_000_000L);
+                Alarm alarm = new Alarm();
+                alarm.setTotalMilliseconds(alarmMillis);
+                timer.addAlarm(alarm);
+            });
+        }
+        Thread.sleep(200 + alarmTimers * 40L + 500);
+
+        boolean failed = !errors.isEmpty();
+        errors.forEach(System.out::println);
+        long maxLateness = 0;
+        for (int i = 0; i < alarmTimers; i++) {
+            Long lateness = latenessNanos.get(timers.get(i));
+            if (lateness == null) {
+                System.out.println(timers.get(i).getName() + " missed its alarm");
+                failed = true;
+            } else {
+                maxLateness = Math.max(maxLateness, lateness);
+            }
+        }
+        long allowedLateness = TimerScheduler.TICK_INTERVAL_NANOS + TimerMetrics.getInstance().getTickDuration().getMax();
+        System.out.printf("Alarms of hidden timers: %d of %d reached, max lateness %.3f ms (allowed %.3f ms)%n",
+                latenessNanos.size(), alarmTimers, maxLateness / 1e6, allowedLateness / 1e6);
+        return failed || maxLateness > allowedLateness;
+    }
+
+    // A split reads the clock, so it is exact even if the timer was not ticked for a while
+    private static boolean checkSplit(TimerModel timer) {
+        long expected = timer.snapshot().getMillis(System.nanoTime());
+        long split = timer.split();
+        long error = Math.abs(split - expected);
+        System.out.printf("Split of a hidden timer off by %d ms%n", error);
+        return error > MAX_SPLIT_ERROR_MILLIS;
+    }
+
+    private static long findSchedulerThread() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("timer-scheduler")) {
+                return thread.getId();
+            }
+        }
+        throw new IllegalStateException("The scheduler thread is not running");
+    }
+}
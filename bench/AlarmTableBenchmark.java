@@ -0,0 +1,292 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Compares opening the alarm manager for 1k and 10k alarms with the old window, which built a panel with two
+// labels and two buttons per alarm in a BoxLayout, and the table of the AlarmManager, which only renders the
+// visible rows. Then compares removing all alarms one by one, by their id and as the selected row of the table,
+// with the old removal, which searched the list and sorted the alarm index again for every alarm, also for the
+// AlarmIndex alone with the bytes it allocates per removal. Checks that the index with tombstones, and after compacting them, still reaches exactly
+// the remaining alarms and finds the next one. Runs headless.
+// Exits with status 1 when a check fails.
+// Run with: java -Djava.awt.headless=true -cp out AlarmTableBenchmark
+public class AlarmTableBenchmark {
+
+    private static final int[] ALARM_COUNTS = {1_000, 10_000};
+    private static final Dimension VIEWPORT_SIZE = new Dimension(380, 240);
+
+    private static boolean failed;
+
+    // Rows of alarms like the table model of the AlarmManager, counts the cells the table asked for
+    private static class BenchTableModel extends AbstractTableModel {
+        private final List<Alarm> alarms;
+        private int cellsRead;
+
+        BenchTableModel(List<Alarm> alarms) {
+            this.alarms = new ArrayList<>(alarms);
+        }
+
+        @Override
+        public int getRowCount() {
+            return alarms.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 2;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            cellsRead++;
+            Alarm alarm = alarms.get(row);
+            return column == 0 ? alarm.getName() : TimeFormatter.format(alarm.getTotalMilliseconds());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-10s %8s %14s %12s%n", "window", "alarms", "open ms", "cells read");
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up the JIT and is not printed
+            boolean print = round == 1;
+            for (int alarmCount : ALARM_COUNTS) {
+                List<Alarm> alarms = createAlarms(alarmCount);
+                SwingUtilities.invokeAndWait(() -> openPanels(alarms, print));
+                SwingUtilities.invokeAndWait(() -> openTable(alarms, print));
+            }
+        }
+
+        System.out.printf("%n%-10s %8s %14s %14s %14s%n", "removal", "alarms", "total ms", "us/alarm", "bytes/alarm");
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            for (int alarmCount : ALARM_COUNTS) {
+                removeBySearch(alarmCount, print);
+                removeById(alarmCount, print);
+                removeRows(alarmCount, print);
+                removeFromIndex(alarmCount, print);
+            }
+        }
+
+        // Every third alarm only leaves tombstones, two of three make the index compact them
+        checkIndexAfterRemovals(new boolean[]{true, false, false});
+        checkIndexAfterRemovals(new boolean[]{true, true, false});
+
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+        System.exit(0);
+    }
+
+    private static List<Alarm> createAlarms(int alarmCount) {
+        List<Alarm> alarms = new ArrayList<>(alarmCount);
+        for (int i = 0; i < alarmCount; i++) {
+            Alarm alarm = new Alarm();
+            alarm.setName("Alarm " + (i + 1) + ":");
+            // Not in order of their value, like alarms added by hand
+            alarm.setTotalMilliseconds((i * 7919L) % alarmCount * 1000);
+            alarms.add(alarm);
+        }
+        return alarms;
+    }
+
+    // The old window: a row of components per alarm
+    private static void openPanels(List<Alarm> alarms, boolean print) {
+        long start = System.nanoTime();
+        JPanel alarmsPanel = new JPanel();
+        alarmsPanel.setLayout(new BoxLayout(alarmsPanel, BoxLayout.Y_AXIS));
+        for (Alarm alarm : alarms) {
+            JPanel alarmPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            JLabel nameLabel = new JLabel(alarm.getName());
+            nameLabel.setForeground(Color.BLUE);
+            alarmPanel.add(nameLabel);
+            alarmPanel.add(new JLabel(TimeFormatter.format(alarm.getTotalMilliseconds())));
+            alarmPanel.add(new JButton("Edit"));
+            alarmPanel.add(new JButton("Delete"));
+            alarmsPanel.add(alarmPanel);
+        }
+        JScrollPane scrollPane = new JScrollPane(alarmsPanel);
+        scrollPane.setSize(VIEWPORT_SIZE);
+        layoutTree(scrollPane);
+        paint(scrollPane);
+        double openMillis = (System.nanoTime() - start) / 1e6;
+        if (print) {
+            System.out.printf("%-10s %8d %14.1f %12s%n", "panels", alarms.size(), openMillis, "-");
+        }
+    }
+
+    private static void openTable(List<Alarm> alarms, boolean print) {
+        long start = System.nanoTime();
+        BenchTableModel tableModel = new BenchTableModel(alarms);
+        JTable table = new JTable(tableModel);
+        table.setRowHeight(24);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setSize(VIEWPORT_SIZE);
+        layoutTree(scrollPane);
+        paint(scrollPane);
+        double openMillis = (System.nanoTime() - start) / 1e6;
+        if (print) {
+            System.out.printf("%-10s %8d %14.1f %12d%n", "table", alarms.size(), openMillis, tableModel.cellsRead);
+        }
+        // Only the rows in the viewport are rendered
+        int visibleCells = (VIEWPORT_SIZE.height / table.getRowHeight() + 1) * tableModel.getColumnCount();
+        if (tableModel.cellsRead > visibleCells) {
+            System.out.println("The table read " + tableModel.cellsRead + " cells, only " + visibleCells + " are visible");
+            failed = true;
+        }
+    }
+
+    // The old removal: search the alarm in the list and sort the index again
+    private static void removeBySearch(int alarmCount, boolean print) {
+        List<Alarm> alarms = new CopyOnWriteArrayList<>(createAlarms(alarmCount));
+        List<Alarm> removed = new ArrayList<>(alarms);
+        AlarmIndex alarmIndex = new AlarmIndex();
+        alarmIndex.rebuild(alarms);
+        long start = System.nanoTime();
+        for (Alarm alarm : removed) {
+            alarms.remove(alarm);
+            alarmIndex.rebuild(alarms);
+        }
+        printRemoval("search", alarmCount, System.nanoTime() - start, -1, print);
+        check("alarms left after removal by search", alarmIndex.size(), 0);
+    }
+
+    private static void removeById(int alarmCount, boolean print) {
+        TimerModel timer = new TimerEngine().createTimer("Alarms:");
+        List<Alarm> alarms = createAlarms(alarmCount);
+        timer.addAlarms(alarms);
+        long start = System.nanoTime();
+        for (Alarm alarm : alarms) {
+            timer.removeAlarm(alarm.getId());
+        }
+        printRemoval("id", alarmCount, System.nanoTime() - start, -1, print);
+        check("alarms left after removal by id", timer.getAlarmCount(), 0);
+        check("removing a removed alarm", timer.removeAlarm(alarms.get(0).getId()), false);
+    }
+
+    // The Delete key of the alarm table, which removes the selected rows with removeAlarms
+    private static void removeRows(int alarmCount, boolean print) {
+        TimerModel timer = new TimerEngine().createTimer("Alarms:");
+        List<Alarm> alarms = createAlarms(alarmCount);
+        timer.addAlarms(alarms);
+        long start = System.nanoTime();
+        for (Alarm alarm : alarms) {
+            timer.removeAlarms(List.of(alarm));
+        }
+        printRemoval("rows", alarmCount, System.nanoTime() - start, -1, print);
+        check("alarms left after removing rows", timer.getAlarmCount(), 0);
+    }
+
+    // Only the AlarmIndex, which has to keep its alarms sorted
+    private static void removeFromIndex(int alarmCount, boolean print) {
+        List<Alarm> alarms = createAlarms(alarmCount);
+        AlarmIndex alarmIndex = new AlarmIndex();
+        alarmIndex.rebuild(alarms);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (Alarm alarm : alarms) {
+            alarmIndex.remove(alarm);
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - startBytes;
+        printRemoval("index", alarmCount, nanos, (double) bytes / alarmCount, print);
+        check("alarms left in the index", alarmIndex.size(), 0);
+    }
+
+    private static void printRemoval(String name, int alarmCount, long nanos, double bytesPerAlarm, boolean print) {
+        if (print) {
+            System.out.printf("%-10s %8d %14.1f %14.2f %14s%n", name, alarmCount, nanos / 1e6, nanos / 1e3 / alarmCount,
+                    bytesPerAlarm < 0 ? "-" : String.format("%.1f", bytesPerAlarm));
+        }
+    }
+
+    // Remove the alarms of the given pattern from the index (true removes the alarm at that position of every group
+    // of equal values), then count through all values forward and backwards: exactly the remaining alarms must be
+    // reached, and the next alarm must be the nearest remaining one
+    private static void checkIndexAfterRemovals(boolean[] removedPattern) {
+        List<Alarm> alarms = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Alarm alarm = new Alarm();
+            alarm.setTotalMilliseconds(i / 3 * 10L);
+            alarms.add(alarm);
+        }
+        AlarmIndex alarmIndex = new AlarmIndex();
+        alarmIndex.rebuild(alarms);
+        // Start in the middle, so alarms behind and ahead of the cursor are removed
+        alarmIndex.seek(5000, 1);
+        Set<Alarm> remaining = new HashSet<>(alarms);
+        for (int i = 0; i < alarms.size(); i++) {
+            if (removedPattern[i % removedPattern.length]) {
+                check("removing alarm " + i, alarmIndex.remove(alarms.get(i)), true);
+                remaining.remove(alarms.get(i));
+            }
+        }
+        check("removing a removed alarm from the index", alarmIndex.remove(alarms.get(0)), false);
+        check("size after removals", alarmIndex.size(), remaining.size());
+        for (long millis : new long[]{0, 5, 4995, 5000, 9990}) {
+            check("next alarm after " + millis, alarmIndex.millisUntilNextAlarm(millis, false),
+                    nearest(remaining, millis, false));
+            check("next alarm before " + millis, alarmIndex.millisUntilNextAlarm(millis, true),
+                    nearest(remaining, millis, true));
+        }
+
+        Set<Alarm> reached = new HashSet<>();
+        for (long millis = 5010; millis <= 10_000; millis += 10) {
+            alarmIndex.advance(millis, 1, reached::add);
+        }
+        alarmIndex.seek(5000, 2);
+        for (long millis = 4990; millis >= 0; millis -= 10) {
+            alarmIndex.advance(millis, 2, reached::add);
+        }
+        // The alarms at 5000 were passed by the seek in both directions
+        remaining.removeIf(alarm -> alarm.getTotalMilliseconds() == 5000);
+        check("reached alarms", reached.size(), remaining.size());
+        check("only remaining alarms reached", remaining.containsAll(reached), true);
+    }
+
+    // Milliseconds to the nearest alarm strictly ahead in the given direction, like AlarmIndex.millisUntilNextAlarm
+    private static long nearest(Set<Alarm> alarms, long millis, boolean reverse) {
+        long nearest = Long.MAX_VALUE;
+        for (Alarm alarm : alarms) {
+            long distance = reverse ? millis - alarm.getTotalMilliseconds() : alarm.getTotalMilliseconds() - millis;
+            if (distance > 0) {
+                nearest = Math.min(nearest, distance);
+            }
+        }
+        return nearest;
+    }
+
+    private static void check(String what, Object actual, Object expected) {
+        if (!expected.equals(actual)) {
+            System.out.println(what + ": expected " + expected + " but was " + actual);
+            failed = true;
+        }
+    }
+
+    // Lay out the component tree like validate() does for a displayed window, which is not possible headless
+    private static void layoutTree(Component component) {
+        if (component instanceof Container container) {
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                layoutTree(child);
+            }
+        }
+    }
+
+    private static void paint(Component component) {
+        BufferedImage image = new BufferedImage(VIEWPORT_SIZE.width, VIEWPORT_SIZE.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        component.paint(graphics);
+        graphics.dispose();
+    }
+}
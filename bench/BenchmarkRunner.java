@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Minimal benchmark harness for the benchmarks in this folder.
+// Runs warmup and measurement iterations of a benchmark and writes the results as JSON in the layout
+// of JMH result files (benchmark, mode, primaryMetric), so results of different releases can be compared.
+public class BenchmarkRunner {
+
+    // Interface of a benchmark, runs the given number of operations and returns a value that is consumed
+    // so that the JIT cannot remove the benchmarked code
+    public interface Benchmark {
+        long run(int operations);
+    }
+
+    // Interface of a throughput benchmark, runs for the given time and returns the number of operations done
+    public interface ThroughputBenchmark {
+        long run(long durationMillis) throws Exception;
+    }
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final int THROUGHPUT_ITERATIONS = 5;
+
+    private final List<String> jsonResults = new ArrayList<>();
+    private long blackhole;
+
+    // Measure the average time of one operation in ns/op
+    public void averageTime(String name, int operationsPerIteration, Benchmark benchmark) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            blackhole += benchmark.run(operationsPerIteration);
+        }
+        double[] scores = new double[MEASUREMENT_ITERATIONS];
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            blackhole += benchmark.run(operationsPerIteration);
+            scores[i] = (double) (System.nanoTime() - start) / operationsPerIteration;
+        }
+        addResult(name, "avgt", "ns/op", scores);
+    }
+
+    // Measure the throughput in operations per second, every iteration runs for the given time
+    public void throughput(String name, long iterationMillis, ThroughputBenchmark benchmark) throws Exception {
+        benchmark.run(iterationMillis);
+        double[] scores = new double[THROUGHPUT_ITERATIONS];
+        for (int i = 0; i < scores.length; i++) {
+            long start = System.nanoTime();
+            long operations = benchmark.run(iterationMillis);
+            scores[i] = operations * 1_000_000_000.0 / (System.nanoTime() - start);
+        }
+        addResult(name, "thrpt", "ops/s", scores);
+    }
+
+    private void addResult(String name, String mode, String unit, double[] scores) {
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        variance /= scores.length - 1;
+        double error = studentT(scores.length - 1) * Math.sqrt(variance / scores.length);
+
+        System.out.printf(Locale.ROOT, "%-40s %-6s %16.3f +- %12.3f %s%n", name, mode, mean, error, unit);
+        jsonResults.add(String.format(Locale.ROOT,
+                "  {\"benchmark\": \"%s\", \"mode\": \"%s\", \"measurementIterations\": %d, "
+                        + "\"primaryMetric\": {\"score\": %.6f, \"scoreError\": %.6f, \"scoreUnit\": \"%s\"}}",
+                name, mode, scores.length, mean, error, unit));
+    }
+
+    // Student's t value for the 99.9% confidence interval that JMH reports as score error
+    private static double studentT(int degreesOfFreedom) {
+        return switch (degreesOfFreedom) {
+            case 4 -> 8.610;
+            case 9 -> 4.781;
+            default -> 3.291;
+        };
+    }
+
+    public void writeJson(Path file) throws IOException {
+        String json = "[\n" + String.join(",\n", jsonResults) + "\n]\n";
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+        System.out.println("Results written to " + file.toAbsolutePath() + (blackhole == 42 ? "." : ""));
+    }
+}
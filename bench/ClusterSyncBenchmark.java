@@ -0,0 +1,259 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Runs a ClusterNode leader and several followers, each in its own JVM on loopback, with 1k timers.
+// The followers get clocks that are off by up to an hour, so they only agree with the leader if they estimate the
+// offset correctly. After the followers joined, the leader starts, pauses, resets, modifies and reverses random
+// timers for a few seconds. Then every node reports the values of all timers at the same wall clock instant, and
+// the largest difference between the nodes is printed right after the changes and a moment later.
+// Exits with status 1 when a node misses timers or the nodes differ by more than 10 ms after the changes settled.
+// Run with: java -cp out ClusterSyncBenchmark [timers] [nodes] [seconds of changes]
+public class ClusterSyncBenchmark {
+
+    private static final long MAX_DIFFERENCE_MICROS = 10_000;
+    // Clock skew of the followers in milliseconds
+    private static final long[] SKEWS_MILLIS = {3_700, -12_000, 3_600_000, -250, 47, -600_000};
+    private static final String SAMPLE = "SAMPLE ";
+
+    private static final class Node {
+        private final String name;
+        private final Process process;
+        private final BufferedReader reader;
+        private final PrintWriter writer;
+
+        private Node(String name, Process process) {
+            this.name = name;
+            this.process = process;
+            reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            writer = new PrintWriter(process.getOutputStream(), true);
+        }
+
+        // Next line starting with the given prefix, other lines are printed
+        private String expect(String prefix) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(prefix)) {
+                    return line;
+                }
+                System.out.println("  " + name + ": " + line);
+            }
+            throw new IOException(name + " exited");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--leader")) {
+            runLeader(Integer.parseInt(args[1]));
+            return;
+        } else if (args.length > 0 && args[0].equals("--follower")) {
+            runFollower(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]));
+            return;
+        }
+        int timerCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int nodeCount = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long changeMillis = args.length > 2 ? Long.parseLong(args[2]) * 1000 : 3000;
+
+        List<Node> nodes = new ArrayList<>();
+        try {
+            Node leader = start("leader", "--leader", String.valueOf(timerCount));
+            nodes.add(leader);
+            int port = Integer.parseInt(leader.expect("PORT ").substring(5));
+            for (int i = 1; i < nodeCount; i++) {
+                long skew = SKEWS_MILLIS[(i - 1) % SKEWS_MILLIS.length];
+                nodes.add(start("follower" + i, "--follower", String.valueOf(port), String.valueOf(timerCount), String.valueOf(skew)));
+            }
+            for (Node node : nodes.subList(1, nodes.size())) {
+                System.out.println(node.name + " joined: " + node.expect("READY ").substring(6));
+            }
+
+            leader.writer.println("CHANGE " + changeMillis);
+            System.out.println("leader: " + leader.expect("DONE ").substring(5));
+            double atOnce = maxDifferenceMicros(nodes, timerCount);
+            Thread.sleep(100);
+            double after100 = maxDifferenceMicros(nodes, timerCount);
+            Thread.sleep(1000);
+            double after1100 = maxDifferenceMicros(nodes, timerCount);
+            System.out.printf("%d timers on %d nodes, largest difference: %.3f ms right after the changes, %.3f ms after 100 ms, %.3f ms after 1.1 s%n",
+                    timerCount, nodeCount, atOnce / 1000, after100 / 1000, after1100 / 1000);
+            for (Node node : nodes) {
+                node.writer.println("STATS");
+                System.out.println(node.name + ": " + node.expect("STATS ").substring(6));
+            }
+            if (after100 > MAX_DIFFERENCE_MICROS || after1100 > MAX_DIFFERENCE_MICROS) {
+                System.out.println("FAILED");
+                System.exit(1);
+            }
+            System.out.println("OK");
+        } finally {
+            for (Node node : nodes) {
+                node.process.destroy();
+            }
+        }
+    }
+
+    private static Node start(String name, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ClusterSyncBenchmark.class.getName());
+        command.addAll(List.of(args));
+        return new Node(name, new ProcessBuilder(command).redirectErrorStream(true).start());
+    }
+
+    // Ask all nodes for their values at once and return the largest difference of a timer between the nodes, in
+    // microseconds. A timer missing on a node counts as a failure.
+    private static double maxDifferenceMicros(List<Node> nodes, int timerCount) throws IOException {
+        for (Node node : nodes) {
+            node.writer.println("SAMPLE");
+        }
+        List<Map<Integer, double[]>> samples = new ArrayList<>();
+        long referenceMicros = 0;
+        for (Node node : nodes) {
+            String[] header = node.expect(SAMPLE).split(" ");
+            long wallMicros = Long.parseLong(header[1]);
+            int count = Integer.parseInt(header[2]);
+            referenceMicros = Math.max(referenceMicros, wallMicros);
+            Map<Integer, double[]> values = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String[] parts = node.reader.readLine().split(" ");
+                // Leader id, value in milliseconds, direction of counting (1, -1 or 0 while paused)
+                values.put(Integer.parseInt(parts[0]), new double[]{Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), wallMicros});
+            }
+            if (values.size() != timerCount) {
+                System.out.println(node.name + " has " + values.size() + " of " + timerCount + " timers");
+                return Double.MAX_VALUE;
+            }
+            samples.add(values);
+        }
+        double maxDifference = 0;
+        for (int id : samples.get(0).keySet()) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (Map<Integer, double[]> values : samples) {
+                double[] value = values.get(id);
+                if (value == null) {
+                    return Double.MAX_VALUE;
+                }
+                // Value at the common reference instant
+                double micros = value[0] * 1000 + value[1] * (referenceMicros - value[2]);
+                min = Math.min(min, micros);
+                max = Math.max(max, micros);
+            }
+            maxDifference = Math.max(maxDifference, max - min);
+        }
+        return maxDifference;
+    }
+
+    private static void runLeader(int timerCount) throws Exception {
+        TimerEngine engine = new TimerEngine();
+        Random random = new Random(42);
+        for (int i = 0; i < timerCount; i++) {
+            TimerModel timer = engine.createTimer("Timer " + (i + 1) + ":");
+            if (random.nextBoolean()) {
+                timer.start();
+            }
+        }
+        ClusterNode node = ClusterNode.leader(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        System.out.println("PORT " + ((InetSocketAddress) node.getLocalAddress()).getPort());
+        List<TimerModel> timers = new ArrayList<>(engine.getTimers());
+        serve(engine, null, line -> {
+            if (!line.startsWith("CHANGE ")) {
+                return false;
+            }
+            long endNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Long.parseLong(line.substring(7)));
+            int changes = 0;
+            while (System.nanoTime() - endNanos < 0) {
+                TimerModel timer = timers.get(random.nextInt(timers.size()));
+                switch (random.nextInt(5)) {
+                    case 0 -> timer.start();
+                    case 1 -> timer.pause();
+                    case 2 -> timer.reset();
+                    case 3 -> timer.modify(random.nextInt(3_600_000));
+                    default -> timer.setReverse(!timer.isReverse());
+                }
+                changes++;
+                Thread.sleep(1);
+            }
+            System.out.println("DONE " + changes + " changes");
+            return true;
+        }, () -> node.getFollowerCount() + " followers, " + node.getSentDatagramCount() + " datagrams, "
+                + node.getSentBytes() / 1024 + " KB sent");
+    }
+
+    private static void runFollower(int port, int timerCount, long skewMillis) throws Exception {
+        TimerEngine engine = new TimerEngine();
+        long startNanos = System.nanoTime();
+        ClusterNode node = new ClusterNode(engine, ClusterNode.Role.FOLLOWER,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), TimeUnit.MILLISECONDS.toNanos(skewMillis));
+        while (!node.isSynchronized() || node.getReplicaCount() < timerCount) {
+            Thread.sleep(5);
+        }
+        System.out.printf("READY after %.1f ms with clock skew %d ms%n", (System.nanoTime() - startNanos) / 1e6, skewMillis);
+        serve(engine, node, line -> false, () -> String.format("offset error %.3f ms, round trip %.3f ms, %d changes applied",
+                (node.getClockOffsetNanos() + TimeUnit.MILLISECONDS.toNanos(skewMillis)) / 1e6,
+                node.getRoundTripNanos() / 1e6, node.getAppliedChangeCount()));
+    }
+
+    private interface Command {
+        boolean handle(String line) throws Exception;
+    }
+
+    private interface Stats {
+        String get();
+    }
+
+    // Answer the commands of the parent until it closes the input
+    private static void serve(TimerEngine engine, ClusterNode follower, Command command, Stats stats) throws Exception {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals("SAMPLE")) {
+                printSample(engine, follower);
+            } else if (line.equals("STATS")) {
+                System.out.println("STATS " + stats.get());
+            } else {
+                command.handle(line);
+            }
+        }
+        System.exit(0);
+    }
+
+    // Print the value of every timer at one instant, with the wall clock time of that instant in microseconds
+    private static void printSample(TimerEngine engine, ClusterNode follower) {
+        long beforeNanos = System.nanoTime();
+        Instant wall = Instant.now();
+        long nowNanos = (beforeNanos + System.nanoTime()) / 2;
+        long wallMicros = wall.getEpochSecond() * 1_000_000 + wall.getNano() / 1000;
+        StringBuilder lines = new StringBuilder();
+        int count = 0;
+        // The leader numbers its timers from 1 in the order it created them, followers look up their copies
+        int timerCount = follower == null ? engine.getTimerCount() : follower.getReplicaCount();
+        for (int id = 1; id <= timerCount; id++) {
+            TimerModel timer = follower == null ? engine.getTimer(id) : follower.getReplica(id);
+            if (timer == null) {
+                continue;
+            }
+            TimerState.Snapshot snapshot = timer.snapshot();
+            int direction = !snapshot.isRunning() ? 0 : snapshot.isReverse() ? -1 : 1;
+            // Not truncated to whole milliseconds like getMillis
+            double millis = snapshot.getBaseMillis() + direction * Math.max(0, nowNanos - snapshot.getAnchorNanos()) / 1e6;
+            lines.append(id).append(' ').append(millis).append(' ').append(direction).append('\n');
+            count++;
+        }
+        System.out.print(SAMPLE + wallMicros + " " + count + "\n" + lines);
+        System.out.flush();
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.BufferedOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load generator for the ControlServer. Every client creates a timer and then sends start, split, get, pause
+// and reset commands in pipelined batches, while one more client subscribes to the events. Prints the
+// commands per second and the round trip time of a batch, and checks that every command was answered with OK
+// and every split was published as an event.
+// Without an address a server is started in this JVM, once on loopback TCP and once on a Unix domain socket.
+// Exits with status 1 when a command fails or events are missing.
+// Run with: java -cp out ControlLoadGenerator [address like 7070 or unix:/tmp/timer.sock] [clients] [seconds]
+public class ControlLoadGenerator {
+
+    // Commands sent before waiting for their replies
+    private static final int BATCH_SIZE = 100;
+    private static final String[] CYCLE = {"START", "SPLIT", "GET", "PAUSE", "RESET"};
+
+    public static void main(String[] args) throws Exception {
+        String address = args.length > 0 ? args[0] : null;
+        int clientCount = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        long runMillis = args.length > 2 ? Long.parseLong(args[2]) * 1000 : 3000;
+
+        System.out.printf("%-8s %8s %14s %16s %16s %10s%n", "address", "clients", "commands/s", "batch p50 (ms)",
+                "batch p99 (ms)", "events");
+        boolean failed;
+        if (address != null) {
+            failed = run("remote", ControlServer.parseAddress(address), clientCount, runMillis);
+        } else {
+            failed = runLocal("tcp", new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), clientCount, runMillis);
+            Path socket = Files.createTempDirectory("control").resolve("timer.sock");
+            failed |= runLocal("unix", UnixDomainSocketAddress.of(socket), clientCount, runMillis);
+            Files.deleteIfExists(socket.getParent());
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+        System.exit(0);
+    }
+
+    private static boolean runLocal(String name, SocketAddress address, int clientCount, long runMillis) throws Exception {
+        try (ControlServer server = new ControlServer(new TimerEngine(), address)) {
+            return run(name, server.getLocalAddress(), clientCount, runMillis);
+        }
+    }
+
+    private static boolean run(String name, SocketAddress address, int clientCount, long runMillis) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicLong commands = new AtomicLong();
+        AtomicLong splits = new AtomicLong();
+        LatencyHistogram batchRoundTrip = new LatencyHistogram();
+
+        // Counts the split events of all clients
+        AtomicLong splitEvents = new AtomicLong();
+        SocketChannel subscriberChannel = open(address);
+        BufferedReader subscriberReader = reader(subscriberChannel);
+        OutputStream subscriberOutput = Channels.newOutputStream(subscriberChannel);
+        subscriberOutput.write("SUBSCRIBE\n".getBytes(StandardCharsets.UTF_8));
+        subscriberOutput.flush();
+        if (!subscriberReader.readLine().equals("OK")) {
+            failed.set(true);
+        }
+        Thread subscriber = new Thread(() -> {
+            try {
+                String line;
+                while ((line = subscriberReader.readLine()) != null) {
+                    if (line.startsWith("EVENT SPLIT ")) {
+                        splitEvents.incrementAndGet();
+                    } else if (line.startsWith("EVENT DROPPED ")) {
+                        System.out.println("Subscriber was too slow: " + line);
+                        failed.set(true);
+                    }
+                }
+            } catch (IOException e) {
+                // Closed at the end of the run
+            }
+        });
+        subscriber.start();
+
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < clientCount; i++) {
+            int clientNumber = i;
+            Thread client = new Thread(() -> {
+                try (SocketChannel channel = open(address)) {
+                    BufferedReader reader = reader(channel);
+                    OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+                    output.write(("CREATE Load " + clientNumber + "\n").getBytes(StandardCharsets.UTF_8));
+                    output.flush();
+                    String created = reader.readLine();
+                    if (created == null || !created.startsWith("OK ")) {
+                        throw new IOException("CREATE failed: " + created);
+                    }
+                    String id = created.substring(3);
+                    byte[][] lines = new byte[CYCLE.length][];
+                    for (int c = 0; c < CYCLE.length; c++) {
+                        lines[c] = (CYCLE[c] + " " + id + "\n").getBytes(StandardCharsets.UTF_8);
+                    }
+                    int next = 0;
+                    while (!stop.get()) {
+                        long startNanos = System.nanoTime();
+                        int batchSplits = 0;
+                        for (int n = 0; n < BATCH_SIZE; n++) {
+                            if (next == 1) {
+                                batchSplits++;
+                            }
+                            output.write(lines[next]);
+                            next = (next + 1) % CYCLE.length;
+                        }
+                        output.flush();
+                        for (int n = 0; n < BATCH_SIZE; n++) {
+                            String reply = reader.readLine();
+                            if (reply == null || !reply.startsWith("OK")) {
+                                throw new IOException("Command failed: " + reply);
+                            }
+                        }
+                        batchRoundTrip.record(System.nanoTime() - startNanos);
+                        commands.addAndGet(BATCH_SIZE);
+                        splits.addAndGet(batchSplits);
+                    }
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                    failed.set(true);
+                }
+            });
+            clients.add(client);
+        }
+
+        long startNanos = System.nanoTime();
+        clients.forEach(Thread::start);
+        Thread.sleep(runMillis);
+        stop.set(true);
+        for (Thread client : clients) {
+            client.join();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        // Give the server time to send the last events
+        long deadline = System.currentTimeMillis() + 2000;
+        while (splitEvents.get() < splits.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        subscriberChannel.close();
+        subscriber.join();
+
+        System.out.printf("%-8s %8d %14.0f %16.3f %16.3f %10s%n", name, clientCount, commands.get() / seconds,
+                batchRoundTrip.getValueAtPercentile(50) / 1e6, batchRoundTrip.getValueAtPercentile(99) / 1e6,
+                splitEvents.get() + "/" + splits.get());
+        return failed.get() || splitEvents.get() != splits.get();
+    }
+
+    private static SocketChannel open(SocketAddress address) throws IOException {
+        SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        channel.connect(address);
+        return channel;
+    }
+
+    private static BufferedReader reader(SocketChannel channel) {
+        return new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8), 64 * 1024);
+    }
+}
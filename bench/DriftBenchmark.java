@@ -0,0 +1,244 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs many displayed timers on the shared scheduler while busy threads compete for the CPU, and checks the
+// values the app gets from them against the wall clock (System.currentTimeMillis), a clock the timers do not use.
+// While the timers run, every value delivered to timerTicked must not be ahead of the wall clock and must never
+// be smaller than the value delivered before. Then every timer is paused, resumed, modified, reversed and paused
+// again, and after each step its value must match the time the wall clock says it counted.
+// The old tick counter (+10 ms per tick) is measured next to the timers to show the drift it used to accumulate.
+// Exits with status 1 when a value is off by more than the allowed error or a tick value decreased.
+// Run with: java -cp out DriftBenchmark [timers] [seconds] [busy threads]
+public class DriftBenchmark {
+
+    // Allowed difference between a timer and the wall clock in milliseconds, plus the wall clock granularity
+    private static final long MAX_ERROR_MILLIS = 2;
+    // NTP slews the wall clock by at most 500 ppm, so the clocks may also differ by 1 ms per 2 s
+    private static final long SLEW_MILLIS_PER_ERROR = 2000;
+    private static final long STEP_MILLIS = 300;
+    private static final long MODIFIED_MILLIS = 60_000;
+
+    // Value range a timer must have according to the wall clock. A change is bracketed by reading the wall clock
+    // before and after it, and while the timer runs the range moves with the wall clock since the change.
+    private static final class Expected {
+        long lowMillis;
+        long highMillis;
+        long changedBefore;
+        long changedAfter;
+        // 1 counting forward, -1 counting backwards, 0 paused
+        int direction;
+
+        // Range of the value read between the wall clock times before and after
+        long[] rangeAt(long before, long after) {
+            long minElapsed = Math.max(0, before - changedAfter);
+            long maxElapsed = after - changedBefore;
+            if (direction > 0) {
+                return new long[]{lowMillis + minElapsed, highMillis + maxElapsed};
+            } else if (direction < 0) {
+                return new long[]{lowMillis - maxElapsed, highMillis - minElapsed};
+            }
+            return new long[]{lowMillis, highMillis};
+        }
+
+        // The timer was changed between the given times, to a value in the given range
+        void changed(long[] range, long before, long after, int newDirection) {
+            lowMillis = range[0];
+            highMillis = range[1];
+            changedBefore = before;
+            changedAfter = after;
+            direction = newDirection;
+        }
+    }
+
+    private static long startMillis;
+    private static long maxError;
+    private static int failedChecks;
+
+    public static void main(String[] args) throws Exception {
+        int timerCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        long runMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 5000;
+        int busyThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors() * 2;
+
+        AtomicBoolean contention = new AtomicBoolean(true);
+        for (int i = 0; i < busyThreads; i++) {
+            Thread busy = new Thread(() -> {
+                long x = 0;
+                while (contention.get()) {
+                    x += System.nanoTime() % 7;
+                }
+                if (x == 42) {
+                    System.out.println();
+                }
+            });
+            busy.setDaemon(true);
+            busy.start();
+        }
+
+        TimerEngine engine = new TimerEngine();
+        List<TimerModel> timers = new ArrayList<>();
+        Map<TimerModel, Expected> expected = new HashMap<>();
+        Map<TimerModel, long[]> lastTick = new HashMap<>();
+        for (int i = 0; i < timerCount; i++) {
+            TimerModel timer = engine.createTimer("Timer " + (i + 1) + ":");
+            // Displayed timers tick every 10 ms
+            timer.addViewer();
+            timers.add(timer);
+            expected.put(timer, new Expected());
+            lastTick.put(timer, new long[]{-1});
+        }
+
+        // Values delivered to the tick listeners while the timers only run
+        AtomicBoolean checkingTicks = new AtomicBoolean(true);
+        AtomicLong ticks = new AtomicLong();
+        AtomicLong decreasingTicks = new AtomicLong();
+        AtomicLong maxTickAhead = new AtomicLong(Long.MIN_VALUE);
+        AtomicLong maxTickLag = new AtomicLong();
+        engine.addTimerListener(new TimerListener() {
+            @Override
+            public void timerTicked(TimerModel timer, long millis) {
+                long now = System.currentTimeMillis();
+                if (!checkingTicks.get()) {
+                    return;
+                }
+                ticks.incrementAndGet();
+                // The callbacks of one timer run in order, but not on the same thread
+                long[] last = lastTick.get(timer);
+                synchronized (last) {
+                    if (millis < last[0]) {
+                        decreasingTicks.incrementAndGet();
+                    }
+                    last[0] = millis;
+                }
+                long[] range = expected.get(timer).rangeAt(now, now);
+                maxTickAhead.accumulateAndGet(millis - range[1], Math::max);
+                maxTickLag.accumulateAndGet(range[0] - millis, Math::max);
+            }
+        });
+
+        long[] legacyCounters = new long[timerCount];
+        List<TimerScheduler.Tickable> legacyTickables = new ArrayList<>();
+        for (int i = 0; i < timerCount; i++) {
+            int index = i;
+            TimerScheduler.Tickable tickable = () -> legacyCounters[index] += 10;
+            legacyTickables.add(tickable);
+        }
+
+        startMillis = System.currentTimeMillis();
+        for (TimerModel timer : timers) {
+            // The first ticks may be delivered before start returns, so they are checked against the start time
+            Expected expectedValue = expected.get(timer);
+            long before = System.currentTimeMillis();
+            expectedValue.changed(new long[]{0, 0}, before, before, 1);
+            timer.start();
+            expectedValue.changedAfter = System.currentTimeMillis();
+        }
+        for (TimerScheduler.Tickable tickable : legacyTickables) {
+            TimerScheduler.getInstance().register(tickable);
+        }
+
+        Thread.sleep(runMillis);
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        for (TimerScheduler.Tickable tickable : legacyTickables) {
+            TimerScheduler.getInstance().unregister(tickable);
+        }
+        long maxLegacyError = 0;
+        for (int i = 0; i < timerCount; i++) {
+            maxLegacyError = Math.max(maxLegacyError, Math.abs(legacyCounters[i] - elapsedMillis));
+        }
+        checkingTicks.set(false);
+        long tickError = MAX_ERROR_MILLIS + elapsedMillis / SLEW_MILLIS_PER_ERROR;
+
+        // Every step changes all timers, then the values are checked once the step was applied to all of them
+        step(timers, expected, "pause", timer -> {
+            timer.pause();
+            return 0;
+        });
+        Thread.sleep(STEP_MILLIS);
+        check(timers, expected, "paused");
+        step(timers, expected, "resume", timer -> {
+            timer.start();
+            return timer.isReverse() ? -1 : 1;
+        });
+        Thread.sleep(STEP_MILLIS);
+        step(timers, expected, "modify", timer -> {
+            timer.modify(MODIFIED_MILLIS);
+            return Long.MIN_VALUE;
+        });
+        Thread.sleep(STEP_MILLIS);
+        step(timers, expected, "reverse", timer -> {
+            timer.setReverse(true);
+            return -1;
+        });
+        Thread.sleep(STEP_MILLIS);
+        check(timers, expected, "counting backwards");
+        step(timers, expected, "pause again", timer -> {
+            timer.pause();
+            return 0;
+        });
+        contention.set(false);
+
+        System.out.printf("timers=%d busyThreads=%d elapsed=%d ms%n", timerCount, busyThreads, elapsedMillis);
+        System.out.printf("ticks delivered: %d, decreasing: %d, max ahead of the wall clock: %d ms, max behind: %d ms%n",
+                ticks.get(), decreasingTicks.get(), maxTickAhead.get(), maxTickLag.get());
+        System.out.printf("pause/resume/modify/reverse max error: %d ms%n", maxError);
+        System.out.printf("tick counter max error: %d ms%n", maxLegacyError);
+
+        boolean failed = failedChecks > 0 || decreasingTicks.get() > 0 || maxTickAhead.get() > tickError
+                || ticks.get() == 0;
+        if (failed) {
+            System.out.println("FAILED: error bound of " + MAX_ERROR_MILLIS + " ms exceeded or a tick value decreased");
+            System.exit(1);
+        }
+        System.out.println("OK");
+        System.exit(0);
+    }
+
+    // Change of one timer, returns the new direction, or Long.MIN_VALUE for a jump to MODIFIED_MILLIS
+    private interface Step {
+        long apply(TimerModel timer);
+    }
+
+    private static void step(List<TimerModel> timers, Map<TimerModel, Expected> expected, String name, Step change) {
+        for (TimerModel timer : timers) {
+            Expected expectedValue = expected.get(timer);
+            long before = System.currentTimeMillis();
+            long result = change.apply(timer);
+            long after = System.currentTimeMillis();
+            long[] range = expectedValue.rangeAt(before, after);
+            if (result == Long.MIN_VALUE) {
+                expectedValue.changed(new long[]{MODIFIED_MILLIS, MODIFIED_MILLIS}, before, after, expectedValue.direction);
+            } else {
+                expectedValue.changed(range, before, after, (int) result);
+            }
+            if (result == 0) {
+                // A paused value is exact and must be in the range the wall clock allows
+                long millis = timer.getMillis();
+                checkValue(timer, name, millis, range, after);
+                expectedValue.lowMillis = millis;
+                expectedValue.highMillis = millis;
+            }
+        }
+    }
+
+    private static void check(List<TimerModel> timers, Map<TimerModel, Expected> expected, String name) {
+        for (TimerModel timer : timers) {
+            long before = System.currentTimeMillis();
+            long millis = timer.getMillis();
+            long after = System.currentTimeMillis();
+            checkValue(timer, name, millis, expected.get(timer).rangeAt(before, after), after);
+        }
+    }
+
+    private static void checkValue(TimerModel timer, String name, long millis, long[] range, long nowMillis) {
+        long allowed = MAX_ERROR_MILLIS + (nowMillis - startMillis) / SLEW_MILLIS_PER_ERROR;
+        long error = Math.max(0, Math.max(range[0] - millis, millis - range[1]));
+        maxError = Math.max(maxError, error);
+        if (error > allowed && failedChecks++ < 5) {
+            System.out.printf("%s %s: %d ms, expected %d to %d ms%n", timer.getName(), name, millis, range[0], range[1]);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Streams events through the EventExporter into rotating CSV and binary files, measures the cost of
+// exporting an event on the calling thread and the replay speed of the EventLogReader, and checks that
+// every exported event is read back.
+// Exits with status 1 when the files do not contain the exported events.
+// Run with: java -cp out EventExportBenchmark [events]
+public class EventExportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path directory = Files.createTempDirectory("event-export");
+        boolean failed = false;
+        try {
+            // Small files, so the benchmark also rotates files. The queue holds all events, so the time until
+            // the writer is done shows its throughput.
+            EventExporter exporter = new EventExporter(directory, EnumSet.allOf(EventExporter.Format.class),
+                    eventCount, 16L * 1024 * 1024);
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < eventCount; i++) {
+                EventExporter.Event event = i % 10 == 0
+                        ? new EventExporter.Event(EventExporter.Type.ALARM, 1_700_000_000_000L + i, i % 100, "Timer " + (i % 100) + ":",
+                        i * 10L, i * 10L, "Alarm " + i)
+                        : new EventExporter.Event(EventExporter.Type.SPLIT, 1_700_000_000_000L + i, i % 100, "Timer " + (i % 100) + ":",
+                        i * 10L, i, "");
+                exporter.export(event);
+            }
+            double exportNanos = (double) (System.nanoTime() - startNanos) / eventCount;
+            exporter.close();
+            double writeSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            long written = exporter.getExportedCount();
+            System.out.printf("Exported %d events, %.1f ns per event on the calling thread, %d dropped, "
+                    + "%.0f events/s written%n", written, exportNanos, exporter.getDroppedCount(), written / writeSeconds);
+            if (written + exporter.getDroppedCount() != eventCount) {
+                failed = true;
+            }
+
+            for (EventExporter.Format format : EventExporter.Format.values()) {
+                List<Path> files = EventLogReader.listEventFiles(directory).stream()
+                        .filter(file -> file.toString().endsWith(format.getExtension()))
+                        .toList();
+                long bytes = 0;
+                long read = 0;
+                long readStartNanos = System.nanoTime();
+                for (Path file : files) {
+                    bytes += Files.size(file);
+                    read += EventLogReader.read(file, event -> {
+                    });
+                }
+                double seconds = (System.nanoTime() - readStartNanos) / 1_000_000_000.0;
+                System.out.printf("%-6s %3d files, %7.1f MB, %d events read in %.3f s (%.0f MB/s)%n", format,
+                        files.size(), bytes / 1e6, read, seconds, bytes / 1e6 / seconds);
+                if (read != written) {
+                    failed = true;
+                }
+            }
+        } finally {
+            deleteDirectory(directory);
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Cost of recording an event in the EventHistory on the calling thread, as on the tick thread: nanoseconds and
+// allocated bytes per event, alone and while a reader follows the history. Compared to queueing the same event
+// in the EventExporter. Then a child JVM records events and is killed with Runtime.halt, and the history is read
+// back from the file it left behind.
+// Every record read is checked against what was written, so a torn record (a reader seeing a record while it is
+// overwritten) is counted.
+// Exits with status 1 when a record is torn, missing after the crash, or recording allocates.
+// Run with: java -cp out EventHistoryBenchmark [events]
+public class EventHistoryBenchmark {
+
+    private static final int CAPACITY = 65_536;
+    private static final int TIMER_COUNT = 16;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--crash")) {
+            crash(Path.of(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Path directory = Files.createTempDirectory("event-history");
+        boolean failed = false;
+        try {
+            List<TimerModel> timers = createTimers();
+            try (EventHistory history = new EventHistory(directory.resolve("history.ring"), CAPACITY, true)) {
+                // The first round warms up the JIT and is not printed
+                record(history, timers, eventCount / 5);
+                long[] result = record(history, timers, eventCount);
+                System.out.printf("Recorded %d events: %.1f ns and %.2f bytes allocated per event%n",
+                        eventCount, result[0] / (double) eventCount, result[1] / (double) eventCount);
+                failed |= result[1] > eventCount / 100;
+
+                AtomicBoolean running = new AtomicBoolean(true);
+                long[] readCounts = new long[2];
+                Thread follower = new Thread(() -> follow(history.getFile(), running, readCounts), "history-follower");
+                follower.start();
+                result = record(history, timers, eventCount);
+                running.set(false);
+                follower.join();
+                System.out.printf("With a reader following: %.1f ns per event, %d events read, %d torn%n",
+                        result[0] / (double) eventCount, readCounts[0], readCounts[1]);
+                failed |= readCounts[1] > 0 || readCounts[0] == 0;
+            }
+
+            try (EventExporter exporter = new EventExporter(directory.resolve("export"),
+                    EventExporter.parseFormats("binary"), eventCount, Long.MAX_VALUE)) {
+                TimerModel timer = timers.get(0);
+                long startNanos = System.nanoTime();
+                for (int i = 0; i < eventCount; i++) {
+                    exporter.splitCreated(timer, i, i);
+                }
+                System.out.printf("EventExporter for comparison: %.1f ns per event%n",
+                        (System.nanoTime() - startNanos) / (double) eventCount);
+            }
+
+            // The child records more events than the ring holds, so the file must contain the last CAPACITY ones
+            Path crashFile = directory.resolve("crash.ring");
+            int crashEvents = CAPACITY * 3 + 123;
+            Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), EventHistoryBenchmark.class.getName(),
+                    "--crash", crashFile.toString(), String.valueOf(crashEvents)).inheritIO().start();
+            int exitCode = process.waitFor();
+            long[] counts = check(crashFile);
+            System.out.printf("After a crash (exit code %d): %d of %d events in the ring, %d torn%n",
+                    exitCode, counts[0], CAPACITY, counts[1]);
+            failed |= counts[0] != CAPACITY || counts[1] > 0;
+        } finally {
+            try (var files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static List<TimerModel> createTimers() {
+        TimerEngine engine = new TimerEngine();
+        List<TimerModel> timers = new ArrayList<>();
+        for (int i = 0; i < TIMER_COUNT; i++) {
+            timers.add(engine.createTimer("Timer " + (i + 1) + ":"));
+        }
+        return timers;
+    }
+
+    // Record events like ticks of the timers, returns the nanoseconds and the bytes allocated by this thread
+    private static long[] record(EventHistory history, List<TimerModel> timers, int eventCount) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threads.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < eventCount; i++) {
+            TimerModel timer = timers.get(i & (TIMER_COUNT - 1));
+            // The detail is derived from the timer value and id, so a reader can tell a torn record
+            history.record(EventHistory.Type.TICK, timer, i, detail(i, timer.getId()));
+        }
+        long nanos = System.nanoTime() - startNanos;
+        return new long[]{nanos, threads.getThreadAllocatedBytes(threadId) - startBytes};
+    }
+
+    private static long detail(long timerMillis, int timerId) {
+        return timerMillis * 31 + timerId;
+    }
+
+    // Follow the history like an external tool, counting the events read and the torn ones
+    private static void follow(Path file, AtomicBoolean running, long[] counts) {
+        try (EventHistoryReader reader = new EventHistoryReader(file)) {
+            EventHistoryReader.Entry entry = new EventHistoryReader.Entry();
+            long next = reader.getNextSequence();
+            while (running.get()) {
+                next = reader.read(Math.max(next, reader.getOldestSequence()), entry, event -> {
+                    counts[0]++;
+                    if (!valid(event)) {
+                        counts[1]++;
+                    }
+                });
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static boolean valid(EventHistoryReader.Entry entry) {
+        return entry.getType() == EventHistory.Type.TICK
+                && entry.getDetail() == detail(entry.getTimerMillis(), entry.getTimerId())
+                && entry.getTimerName().equals("Timer " + entry.getTimerId() + ":");
+    }
+
+    // Read the whole ring, returns the number of events and the number of torn ones
+    private static long[] check(Path file) throws IOException {
+        long[] counts = new long[2];
+        try (EventHistoryReader reader = new EventHistoryReader(file)) {
+            reader.read(reader.getOldestSequence(), new EventHistoryReader.Entry(), event -> {
+                counts[0]++;
+                if (!valid(event)) {
+                    counts[1]++;
+                }
+            });
+        }
+        return counts;
+    }
+
+    // Runs in the child JVM: record the events and stop without closing anything
+    private static void crash(Path file, int eventCount) throws IOException {
+        EventHistory history = new EventHistory(file, CAPACITY, true);
+        List<TimerModel> timers = createTimers();
+        record(history, timers, eventCount);
+        Runtime.getRuntime().halt(3);
+    }
+}
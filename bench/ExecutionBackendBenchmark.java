@@ -0,0 +1,149 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compares the execution backends of the timer callbacks (inline, platform and virtual, see ExecutionBackend)
+// with the old approach of one scheduled executor per timer, for 10k displayed timers ticking every 10 ms.
+// Creating 10k platform threads can exhaust the limits of small machines, so the old approach stops at 1k.
+// Every mode runs in its own JVM and reports the time from starting all timers until each of them delivered
+// its first tick callback, the heap and threads used per timer, and the tick callbacks per second.
+// Exits with status 1 when a mode does not deliver the callbacks.
+// Run with: java -cp out ExecutionBackendBenchmark [timers]
+public class ExecutionBackendBenchmark {
+
+    private static final String[] MODES = {"inline", "platform", "virtual", "legacy"};
+    private static final String RESULT = "RESULT ";
+    private static final int MAX_LEGACY_TIMERS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--run")) {
+            runMode(args[1], Integer.parseInt(args[2]));
+            return;
+        }
+        int timerCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+
+        System.out.printf("%-10s %8s %18s %16s %10s %14s%n", "mode", "timers", "first callbacks ms", "heap per timer",
+                "threads", "callbacks/s");
+        boolean failed = false;
+        for (String mode : MODES) {
+            failed |= !runChild(mode, mode.equals("legacy") ? Math.min(timerCount, MAX_LEGACY_TIMERS) : timerCount);
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    // Run one mode in a new JVM, so the modes do not share threads or heap
+    private static boolean runChild(String mode, int timerCount) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Dtimer.execution=" + (mode.equals("legacy") ? "inline" : mode));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ExecutionBackendBenchmark.class.getName());
+        command.add("--run");
+        command.add(mode);
+        command.add(String.valueOf(timerCount));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        boolean reported = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT)) {
+                    System.out.println(line.substring(RESULT.length()));
+                    reported = true;
+                } else {
+                    System.out.println("  " + line);
+                }
+            }
+        }
+        return process.waitFor() == 0 && reported;
+    }
+
+    private static void runMode(String mode, int timerCount) throws InterruptedException {
+        long heapBefore = usedHeap();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        AtomicIntegerArray called = new AtomicIntegerArray(timerCount + 1);
+        CountDownLatch firstCallbacks = new CountDownLatch(timerCount);
+        AtomicLong callbacks = new AtomicLong();
+
+        long startNanos;
+        List<ScheduledExecutorService> executors = new ArrayList<>();
+        List<TimerModel> timers = new ArrayList<>();
+        if (mode.equals("legacy")) {
+            startNanos = System.nanoTime();
+            for (int i = 1; i <= timerCount; i++) {
+                int id = i;
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+                executor.scheduleAtFixedRate(() -> {
+                    callbacks.incrementAndGet();
+                    if (called.compareAndSet(id, 0, 1)) {
+                        firstCallbacks.countDown();
+                    }
+                }, 0, TimerScheduler.TICK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                executors.add(executor);
+            }
+        } else {
+            TimerEngine engine = new TimerEngine();
+            engine.addTimerListener(new TimerListener() {
+                @Override
+                public void timerTicked(TimerModel timer, long millis) {
+                    callbacks.incrementAndGet();
+                    if (called.compareAndSet(timer.getId(), 0, 1)) {
+                        firstCallbacks.countDown();
+                    }
+                }
+            });
+            for (int i = 0; i < timerCount; i++) {
+                TimerModel timer = engine.createTimer("Timer " + i);
+                // Displayed, so every timer ticks every 10 ms like with the old executors
+                timer.addViewer();
+                timers.add(timer);
+            }
+            startNanos = System.nanoTime();
+            for (TimerModel timer : timers) {
+                timer.start();
+            }
+        }
+        if (!firstCallbacks.await(30, TimeUnit.SECONDS)) {
+            System.out.println(mode + ": only " + (timerCount - firstCallbacks.getCount()) + " timers called back");
+            System.exit(1);
+        }
+        double firstCallbackMillis = (System.nanoTime() - startNanos) / 1e6;
+
+        Thread.sleep(1000);
+        long startCallbacks = callbacks.get();
+        long rateStartNanos = System.nanoTime();
+        Thread.sleep(2000);
+        double callbacksPerSecond = (callbacks.get() - startCallbacks) / ((System.nanoTime() - rateStartNanos) / 1e9);
+        long heapPerTimer = (usedHeap() - heapBefore) / timerCount;
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+
+        String backend = mode.equals("legacy") ? "legacy" : ExecutionBackend.getInstance().getMode().name().toLowerCase();
+        System.out.printf("%s%-10s %8d %18.1f %14d B %10d %14.0f%n", RESULT, backend, timerCount, firstCallbackMillis,
+                heapPerTimer, threads, callbacksPerSecond);
+        executors.forEach(ScheduledExecutorService::shutdownNow);
+        System.exit(0);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,85 @@
+import java.lang.management.ManagementFactory;
+import java.text.DecimalFormat;
+
+// Compares the old DecimalFormat based formatTime with the allocation-free TimeFormatter.
+// First checks that both produce exactly the same text for forward and reverse values,
+// then reports ns/op and allocated bytes per operation of the current thread.
+// Run with: java -cp out FormatBenchmark
+public class FormatBenchmark {
+
+    private static final int OPERATIONS = 5_000_000;
+    // Prevents the JIT from removing the benchmarked code
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        verifySameOutput();
+
+        // Warm up both implementations before measuring
+        runLegacy(OPERATIONS);
+        runFormatter(OPERATIONS);
+
+        report("DecimalFormat", () -> runLegacy(OPERATIONS));
+        report("TimeFormatter", () -> runFormatter(OPERATIONS));
+        System.out.println(blackhole == 42 ? "" : "done");
+    }
+
+    // Old implementation of TimerApp.formatTime
+    private static String legacyFormat(int hours, int minutes, int seconds, int milliseconds) {
+        DecimalFormat format = new DecimalFormat("00");
+        return format.format(hours) + ":" + format.format(minutes) + ":" +
+                format.format(seconds) + ":" + format.format(milliseconds / 10);
+    }
+
+    private static void verifySameOutput() {
+        char[] buffer = new char[TimeFormatter.MAX_LENGTH];
+        long[] samples = {0, 10, 999, 1_000, 59_990, 3_599_990, 3_600_000, 359_999_990L, 3_600_000_000L};
+        for (long sample : samples) {
+            for (long value : new long[]{sample, -sample}) {
+                int hours = TimerState.hoursOf(value);
+                int minutes = TimerState.minutesOf(value);
+                int seconds = TimerState.secondsOf(value);
+                int milliseconds = TimerState.millisecondsOf(value);
+                String expected = legacyFormat(hours, minutes, seconds, milliseconds);
+                String actual = new String(buffer, 0, TimeFormatter.format(buffer, value));
+                if (!expected.equals(actual)) {
+                    throw new AssertionError("Mismatch for " + value + ": expected " + expected + " but was " + actual);
+                }
+            }
+        }
+        // Mixed signs can be entered through the modify dialog
+        String expected = legacyFormat(-1, 5, -30, 120);
+        String actual = TimeFormatter.format(-1, 5, -30, 120);
+        if (!expected.equals(actual)) {
+            throw new AssertionError("Mismatch for mixed signs: expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static void runLegacy(int operations) {
+        for (int i = 0; i < operations; i++) {
+            long value = i * 10L;
+            String text = legacyFormat(TimerState.hoursOf(value), TimerState.minutesOf(value),
+                    TimerState.secondsOf(value), TimerState.millisecondsOf(value));
+            blackhole += text.length();
+        }
+    }
+
+    private static void runFormatter(int operations) {
+        char[] buffer = new char[TimeFormatter.MAX_LENGTH];
+        for (int i = 0; i < operations; i++) {
+            blackhole += TimeFormatter.format(buffer, i * 10L);
+        }
+    }
+
+    private static void report(String name, Runnable benchmark) {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+
+        benchmark.run();
+
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+        System.out.printf("%-14s %8.1f ns/op %10.1f B/op%n", name, (double) nanos / OPERATIONS, (double) bytes / OPERATIONS);
+    }
+}
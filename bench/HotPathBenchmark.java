@@ -0,0 +1,141 @@
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Benchmarks of the hot paths of a timer: the tick (also with an interval program), formatting the value,
+// creating and removing splits, checking the alarms, recording a latency, and the end-to-end tick throughput of
+// many running timers.
+// Run with: java -cp out HotPathBenchmark [result file]
+public class HotPathBenchmark {
+
+    private static final int OPERATIONS = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        Path resultFile = Path.of(args.length > 0 ? args[0] : "bench-results.json");
+        BenchmarkRunner runner = new BenchmarkRunner();
+        TimerEngine engine = new TimerEngine();
+
+        // A tick of a timer with 100 alarms that are never reached
+        TimerModel tickTimer = engine.createTimer("tick");
+        addAlarms(tickTimer, 100, 10_000_000L);
+        runner.averageTime("tick", OPERATIONS, operations -> {
+            for (int i = 0; i < operations; i++) {
+                tickTimer.tick();
+            }
+            return tickTimer.getMillis();
+        });
+
+        // The same tick with an interval program of 100k phases, see IntervalProgramBenchmark
+        TimerModel programTimer = engine.createTimer("program");
+        addAlarms(programTimer, 100, 10_000_000L);
+        programTimer.setProgram(IntervalProgram.compile("50000 x { work 40s; rest 20s }"));
+        runner.averageTime("tickWithProgram", OPERATIONS, operations -> {
+            for (int i = 0; i < operations; i++) {
+                programTimer.tick();
+            }
+            return programTimer.getMillis();
+        });
+
+        char[] buffer = new char[TimeFormatter.MAX_LENGTH];
+        runner.averageTime("formatTime", OPERATIONS, operations -> {
+            long length = 0;
+            for (int i = 0; i < operations; i++) {
+                length += TimeFormatter.format(buffer, i * 10L);
+            }
+            return length;
+        });
+
+        // Creating splits, the list is cleared regularly to keep the memory bounded
+        TimerModel splitTimer = engine.createTimer("split");
+        runner.averageTime("createSplit", OPERATIONS / 10, operations -> {
+            for (int i = 0; i < operations; i++) {
+                if (i % 1000 == 0) {
+                    splitTimer.clearSplits();
+                }
+                splitTimer.split();
+            }
+            return splitTimer.getMillis();
+        });
+
+        // Removing the first of 1000 splits, which renumbers all the following splits
+        TimerModel removeTimer = engine.createTimer("removeSplit");
+        for (int i = 0; i < 1000; i++) {
+            removeTimer.split();
+        }
+        int[] firstIndex = {0};
+        runner.averageTime("removeSplit(1000 splits)", OPERATIONS / 100, operations -> {
+            for (int i = 0; i < operations; i++) {
+                removeTimer.removeSplits(firstIndex);
+                removeTimer.split();
+            }
+            return removeTimer.getMillis();
+        });
+
+        // Advancing 10 ms per operation through 10k alarms that are 1 second apart
+        AlarmIndex alarmIndex = new AlarmIndex();
+        TimerModel alarmTimer = engine.createTimer("alarms");
+        addAlarms(alarmTimer, 10_000, 1000);
+        alarmIndex.rebuild(alarmTimer.getAlarms());
+        long[] value = {0};
+        long[] version = {0};
+        AtomicLong reached = new AtomicLong();
+        runner.averageTime("checkAlarmNotification(10k alarms)", OPERATIONS, operations -> {
+            for (int i = 0; i < operations; i++) {
+                value[0] += 10;
+                if (value[0] > 10_000_000L) {
+                    value[0] = 0;
+                    alarmIndex.seek(0, ++version[0]);
+                }
+                alarmIndex.advance(value[0], version[0], alarm -> reached.incrementAndGet());
+            }
+            return reached.get();
+        });
+
+        // Cost of the metrics recorded on the hot paths
+        LatencyHistogram histogram = new LatencyHistogram();
+        runner.averageTime("recordLatency", OPERATIONS, operations -> {
+            for (int i = 0; i < operations; i++) {
+                histogram.record(i * 37L);
+            }
+            return histogram.getCount();
+        });
+
+        for (int timerCount : new int[]{1_000, 10_000}) {
+            runner.throughput("ticks(" + timerCount + " timers)", 1000, durationMillis -> runTimers(timerCount, durationMillis));
+        }
+
+        runner.writeJson(resultFile);
+        System.exit(0);
+    }
+
+    private static void addAlarms(TimerModel timer, int count, long distanceMillis) {
+        for (int i = 1; i <= count; i++) {
+            Alarm alarm = new Alarm();
+            long millis = i * distanceMillis;
+            alarm.setHours(TimerState.hoursOf(millis));
+            alarm.setMinutes(TimerState.minutesOf(millis));
+            alarm.setSeconds(TimerState.secondsOf(millis));
+            alarm.setMilliseconds(TimerState.millisecondsOf(millis));
+            timer.addAlarm(alarm);
+        }
+    }
+
+    // Run the given number of timers on the shared scheduler and count their ticks
+    private static long runTimers(int timerCount, long durationMillis) throws InterruptedException {
+        TimerEngine engine = new TimerEngine();
+        AtomicLong ticks = new AtomicLong();
+        engine.addTimerListener(new TimerListener() {
+            @Override
+            public void timerTicked(TimerModel timer, long millis) {
+                ticks.incrementAndGet();
+            }
+        });
+        for (int i = 0; i < timerCount; i++) {
+            engine.createTimer("Timer " + i).start();
+        }
+        Thread.sleep(durationMillis);
+        for (TimerModel timer : engine.getTimers()) {
+            engine.removeTimer(timer);
+        }
+        return ticks.get();
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Compiles interval programs (see IntervalProgram) and checks their phases, durations and error messages.
+// Measures the compile time of programs with 10k to 1M phases, written out line by line or with repeats, and
+// the cost of following a program tick by tick with the ProgramCursor compared to looking the phase up on every
+// tick. Then runs a timer through a program of short phases and checks that every phase change is reported in
+// order and on time.
+// Exits with status 1 when a check fails.
+// Run with: java -cp out IntervalProgramBenchmark
+public class IntervalProgramBenchmark {
+
+    private static final int[] PHASE_COUNTS = {10_000, 100_000, 1_000_000};
+    // Ticks per phase when following a program, like a 10 ms tick through 60 s phases
+    private static final int TICKS_PER_PHASE = 100;
+    // A phase change may be noticed this late by the live run
+    private static final long MAX_LATENESS_MILLIS = 50;
+
+    private static boolean failed;
+
+    public static void main(String[] args) throws Exception {
+        checkPrograms();
+
+        System.out.printf("%10s %18s %18s %16s %16s%n", "phases", "compile lines (ms)", "compile repeat (ms)",
+                "cursor ns/tick", "search ns/tick");
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up the JIT and is not printed
+            for (int phaseCount : PHASE_COUNTS) {
+                measure(phaseCount, round == 1);
+            }
+        }
+
+        runTimer();
+
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void checkPrograms() {
+        IntervalProgram program = IntervalProgram.compile("""
+                # Tabata with warmup
+                warmup 5m
+                8 x {
+                  work 40s
+                  rest 20s
+                }
+                "cool down" 1:30
+                """);
+        check("phase count", program.getPhaseCount(), 18);
+        check("total", program.getTotalMillis(), 5L * 60_000 + 8 * 60_000 + 90_000);
+        check("name of phase 2", program.getPhaseName(1), "work");
+        check("start of phase 3", program.getPhaseStart(2), 5L * 60_000 + 40_000);
+        check("last name", program.getPhaseName(17), "cool down");
+        check("phase at 5m", program.phaseAt(5 * 60_000), 1);
+        check("phase at the end", program.phaseAt(program.getTotalMillis()), 18);
+
+        program = IntervalProgram.compile("3x{ 2 x { a 1s; b 250ms }; c 1m30s }; d 1:02:03.5");
+        check("nested phase count", program.getPhaseCount(), 3 * 5 + 1);
+        check("nested total", program.getTotalMillis(), 3L * (2 * 1250 + 90_000) + 3_723_500);
+        check("nested names", program.getPhaseName(4) + program.getPhaseName(5), "ca");
+
+        for (String[] invalid : List.of(
+                new String[]{"work 40s\n4 x {\n  rest 20s\n", "Line 4: missing '}'"},
+                new String[]{"work 40x", "Line 1: unknown unit 'x' in '40x'"},
+                new String[]{"work", "Line 1: expected a duration after 'work'"},
+                new String[]{"# nothing", "Line 1: the program has no phases"},
+                new String[]{"1000000 x { 1000000 x { a 1s } }", "Line 1: more than 10000000 phases"},
+                new String[]{"warmup 1m\n}", "Line 2: unexpected '}'"})) {
+            String message = null;
+            try {
+                IntervalProgram.compile(invalid[0]);
+            } catch (IllegalArgumentException e) {
+                message = e.getMessage();
+            }
+            check("error of '" + invalid[0].replace("\n", "\\n") + "'", message, invalid[1]);
+        }
+    }
+
+    private static void measure(int phaseCount, boolean print) {
+        StringBuilder lines = new StringBuilder(phaseCount * 12);
+        for (int i = 0; i < phaseCount; i += 2) {
+            lines.append("work 40s\nrest 20s\n");
+        }
+        long startNanos = System.nanoTime();
+        IntervalProgram written = IntervalProgram.compile(lines.toString());
+        double linesMillis = (System.nanoTime() - startNanos) / 1e6;
+
+        startNanos = System.nanoTime();
+        IntervalProgram repeated = IntervalProgram.compile(phaseCount / 2 + " x { work 40s; rest 20s }");
+        double repeatMillis = (System.nanoTime() - startNanos) / 1e6;
+        check(phaseCount + " phases", written.getPhaseCount() == phaseCount && repeated.getPhaseCount() == phaseCount
+                && written.getTotalMillis() == repeated.getTotalMillis(), true);
+
+        // Follow the program through all phases like the ticks of a timer
+        long tickMillis = 30_000 / TICKS_PER_PHASE * 2;
+        long ticks = repeated.getTotalMillis() / tickMillis;
+        ProgramCursor cursor = new ProgramCursor(repeated, 0, 0);
+        int[] changes = new int[1];
+        startNanos = System.nanoTime();
+        for (long tick = 1; tick <= ticks; tick++) {
+            cursor.advance(tick * tickMillis, 0, phase -> changes[0]++);
+        }
+        double cursorNanos = (double) (System.nanoTime() - startNanos) / ticks;
+        check(phaseCount + " phase changes", changes[0], phaseCount);
+
+        long sum = 0;
+        startNanos = System.nanoTime();
+        for (long tick = 1; tick <= ticks; tick++) {
+            sum += repeated.phaseAt(tick * tickMillis);
+        }
+        double searchNanos = (double) (System.nanoTime() - startNanos) / ticks;
+        if (sum == 42) {
+            System.out.println();
+        }
+        if (print) {
+            System.out.printf("%10d %18.1f %18.1f %16.1f %16.1f%n", phaseCount, linesMillis, repeatMillis, cursorNanos, searchNanos);
+        }
+    }
+
+    // Run a timer through 20 short phases and check the reported phase changes
+    private static void runTimer() throws InterruptedException {
+        TimerEngine engine = new TimerEngine();
+        TimerModel timer = engine.createTimer("Program:");
+        IntervalProgram program = IntervalProgram.compile("10 x { work 60ms; rest 40ms }");
+        timer.setProgram(program);
+        int[] expectedPhase = {1};
+        long[] maxLatenessMillis = new long[1];
+        CountDownLatch done = new CountDownLatch(1);
+        timer.addListener(new TimerListener() {
+            @Override
+            public void phaseChanged(TimerModel source, IntervalProgram changed, int phase) {
+                long latenessMillis = source.getMillis() - changed.getPhaseStart(Math.min(phase, changed.getPhaseCount()));
+                maxLatenessMillis[0] = Math.max(maxLatenessMillis[0], latenessMillis);
+                if (phase != expectedPhase[0]) {
+                    System.out.println("Expected phase " + expectedPhase[0] + " but got " + phase);
+                    failed = true;
+                }
+                expectedPhase[0] = phase + 1;
+                if (phase == changed.getPhaseCount()) {
+                    done.countDown();
+                }
+            }
+        });
+        // Without a viewer the timer only wakes up for the phase changes
+        timer.start();
+        boolean finished = done.await(program.getTotalMillis() + 2000, TimeUnit.MILLISECONDS);
+        timer.pause();
+        System.out.printf("Live run of %d phases: %s, latest phase change noticed %d ms late%n",
+                program.getPhaseCount(), finished ? "finished" : "did not finish", maxLatenessMillis[0]);
+        if (!finished || maxLatenessMillis[0] > MAX_LATENESS_MILLIS) {
+            failed = true;
+        }
+    }
+
+    private static void check(String what, Object actual, Object expected) {
+        if (!expected.equals(actual)) {
+            System.out.println(what + ": expected " + expected + " but was " + actual);
+            failed = true;
+        }
+    }
+}
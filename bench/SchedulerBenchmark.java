@@ -0,0 +1,89 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compares the shared TimerScheduler against the old one-executor-per-timer approach.
+// Prints the live thread count and the CPU usage of the process for 10, 100, 1k and 10k running timers.
+// Run with: java -cp out SchedulerBenchmark [seconds per run]
+public class SchedulerBenchmark {
+
+    private static final int[] TIMER_COUNTS = {10, 100, 1_000, 10_000};
+    // Creating 10k platform threads can exhaust the limits of small machines, so the old approach stops at 1k
+    private static final int MAX_LEGACY_TIMERS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        long runMillis = args.length > 0 ? Long.parseLong(args[0]) * 1000 : 2000;
+
+        System.out.printf("%-8s %-8s %10s %10s %12s%n", "mode", "timers", "threads", "cpu %", "ticks/s");
+        for (int count : TIMER_COUNTS) {
+            runShared(count, runMillis);
+            if (count <= MAX_LEGACY_TIMERS) {
+                runLegacy(count, runMillis);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void runShared(int count, long runMillis) throws InterruptedException {
+        TimerScheduler scheduler = TimerScheduler.getInstance();
+        AtomicLong ticks = new AtomicLong();
+        List<TimerScheduler.Tickable> tickables = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TimerScheduler.Tickable tickable = ticks::incrementAndGet;
+            tickables.add(tickable);
+            scheduler.register(tickable);
+        }
+
+        measure("shared", count, runMillis, ticks);
+
+        for (TimerScheduler.Tickable tickable : tickables) {
+            scheduler.unregister(tickable);
+        }
+    }
+
+    private static void runLegacy(int count, long runMillis) throws InterruptedException {
+        AtomicLong ticks = new AtomicLong();
+        List<ScheduledExecutorService> executors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+            executor.scheduleAtFixedRate(ticks::incrementAndGet, 0, 10, TimeUnit.MILLISECONDS);
+            executors.add(executor);
+        }
+
+        measure("legacy", count, runMillis, ticks);
+
+        for (ScheduledExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+        for (ScheduledExecutorService executor : executors) {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void measure(String mode, int count, long runMillis, AtomicLong ticks) throws InterruptedException {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        com.sun.management.OperatingSystemMXBean osBean =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        // Let the timers warm up before measuring
+        Thread.sleep(200);
+        long startTicks = ticks.get();
+        long startCpu = osBean.getProcessCpuTime();
+        long startWall = System.nanoTime();
+
+        Thread.sleep(runMillis);
+
+        long wall = System.nanoTime() - startWall;
+        long cpu = osBean.getProcessCpuTime() - startCpu;
+        long tickCount = ticks.get() - startTicks;
+        // CPU usage as a share of one core
+        double cpuPercent = 100.0 * cpu / wall;
+        double ticksPerSecond = tickCount * 1_000_000_000.0 / wall;
+        System.out.printf("%-8s %-8d %10d %10.1f %12.0f%n", mode, count, threadBean.getThreadCount(), cpuPercent, ticksPerSecond);
+    }
+}
@@ -0,0 +1,200 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Measures the startup restore of a saved session with many timers.
+// Saves 10k timers with 100 splits each (half of them running) and then measures how long it takes to
+// restore them into a new TimerEngine. Before that, changes the timers while the session is compacted on
+// another thread and measures how long the journaling timer callbacks wait, and checks that the restored
+// timers have the values of these changes. Finally adds, edits and removes single alarms of a timer with 10k
+// alarms and checks how many bytes they add to the journal and that they are restored.
+// Exits with status 1 when the restore takes longer than one second, a change is lost, a change waited
+// for a whole compaction, or a single alarm change journals more than 1 KB.
+// Run with: java -cp out SessionRestoreBenchmark [timers] [splits per timer]
+public class SessionRestoreBenchmark {
+
+    private static final long MAX_RESTORE_MILLIS = 1000;
+    // Changed timers get this value plus their index
+    private static final long CHANGED_MILLIS = 7_000_000;
+    private static final int COMPACTIONS = 3;
+    private static final int ALARMS = 10_000;
+    private static final long MAX_ALARM_JOURNAL_BYTES = 1024;
+
+    private static boolean failed;
+
+    public static void main(String[] args) throws Exception {
+        int timerCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int splitCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Path directory = Files.createTempDirectory("timer-session");
+
+        TimerEngine engine = new TimerEngine();
+        SessionStore store = new SessionStore(directory);
+        store.open(engine);
+        for (int i = 0; i < timerCount; i++) {
+            TimerModel timer = engine.createTimer("Timer " + (i + 1) + ":");
+            timer.modify(i * 1000L);
+            for (int j = 0; j < splitCount; j++) {
+                timer.addSplit(j * 10L);
+            }
+        }
+        changeDuringCompaction(engine, store);
+        // The running timers are restored from the journal, the rest from the snapshot
+        store.compact();
+        for (TimerModel timer : engine.getTimers()) {
+            if (timer.getId() % 2 == 0) {
+                timer.start();
+            }
+        }
+        store.close();
+        for (TimerModel timer : engine.getTimers()) {
+            timer.pause();
+        }
+
+        long bestMillis = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            TimerEngine restoredEngine = new TimerEngine();
+            SessionStore restoredStore = new SessionStore(directory);
+            long start = System.nanoTime();
+            restoredStore.open(restoredEngine);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            bestMillis = Math.min(bestMillis, millis);
+            System.out.printf("restored %d timers with %d splits each in %d ms%n",
+                    restoredEngine.getTimerCount(), splitCount, millis);
+            checkChangedValues(restoredEngine);
+            restoredStore.close();
+            for (TimerModel timer : restoredEngine.getTimers()) {
+                timer.pause();
+            }
+        }
+
+        checkAlarmJournal();
+
+        if (bestMillis > MAX_RESTORE_MILLIS) {
+            System.out.println("Restore took longer than " + MAX_RESTORE_MILLIS + " ms");
+            failed = true;
+        }
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+        System.exit(0);
+    }
+
+    // Modify the timers while another thread compacts the session a few times
+    private static void changeDuringCompaction(TimerEngine engine, SessionStore store) throws InterruptedException {
+        AtomicBoolean compacting = new AtomicBoolean(true);
+        AtomicLong compactions = new AtomicLong();
+        AtomicLong compactNanos = new AtomicLong();
+        Thread compactor = new Thread(() -> {
+            while (compacting.get()) {
+                long start = System.nanoTime();
+                try {
+                    store.compact();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    return;
+                }
+                compactNanos.addAndGet(System.nanoTime() - start);
+                compactions.incrementAndGet();
+            }
+        });
+        compactor.start();
+        LatencyHistogram changeLatency = new LatencyHistogram();
+        // Every pass sets the same values, so the last one is known however many passes it takes
+        while (compactions.get() < COMPACTIONS && compactor.isAlive()) {
+            for (TimerModel timer : engine.getTimers()) {
+                long start = System.nanoTime();
+                timer.modify(CHANGED_MILLIS + indexOf(timer));
+                changeLatency.record(System.nanoTime() - start);
+            }
+        }
+        compacting.set(false);
+        compactor.join();
+        double compactMillis = compactNanos.get() / 1e6 / Math.max(1, compactions.get());
+        System.out.printf("%d changes during %d compactions of %.1f ms: p99 %.3f ms, max %.3f ms per change%n",
+                changeLatency.getCount(), compactions.get(), compactMillis,
+                changeLatency.getValueAtPercentile(99) / 1e6, changeLatency.getMax() / 1e6);
+        // Only swapping the pending records of the journal holds the lock a change needs
+        if (changeLatency.getMax() / 1e6 >= compactMillis) {
+            System.out.println("A change waited for a whole compaction");
+            failed = true;
+        }
+    }
+
+    // Change single alarms of a timer with many alarms, then restore them
+    private static void checkAlarmJournal() throws Exception {
+        Path directory = Files.createTempDirectory("timer-alarms");
+        Path journalFile = directory.resolve("session.journal");
+        TimerEngine engine = new TimerEngine();
+        SessionStore store = new SessionStore(directory);
+        store.open(engine);
+        TimerModel timer = engine.createTimer("Alarms:");
+        List<Alarm> alarms = new ArrayList<>();
+        for (int i = 0; i < ALARMS; i++) {
+            Alarm alarm = new Alarm();
+            alarm.setName("Alarm " + i + ":");
+            alarm.setTotalMilliseconds((i + 1) * 1000L);
+            alarms.add(alarm);
+        }
+        timer.addAlarms(alarms);
+        // The alarms are in the snapshot, the journal only has its header
+        store.compact();
+        long journalBytes = Files.size(journalFile);
+
+        Alarm edited = alarms.get(ALARMS / 2);
+        edited.setName("Edited:");
+        edited.setTotalMilliseconds(123_456);
+        timer.alarmEdited(edited);
+        timer.removeAlarms(List.of(alarms.get(0)));
+        Alarm added = new Alarm();
+        added.setName("Added:");
+        added.setTotalMilliseconds(42);
+        timer.addAlarm(added);
+        store.close();
+        long bytesPerChange = (Files.size(journalFile) - journalBytes) / 3;
+        System.out.printf("%d bytes journaled per changed alarm of a timer with %d alarms%n", bytesPerChange, ALARMS);
+        if (bytesPerChange > MAX_ALARM_JOURNAL_BYTES) {
+            System.out.println("A single alarm change journaled more than " + MAX_ALARM_JOURNAL_BYTES + " bytes");
+            failed = true;
+        }
+
+        TimerEngine restoredEngine = new TimerEngine();
+        SessionStore restoredStore = new SessionStore(directory);
+        restoredStore.open(restoredEngine);
+        List<Alarm> expected = timer.getAlarms();
+        List<Alarm> restored = restoredEngine.getTimers().iterator().next().getAlarms();
+        boolean same = restored.size() == expected.size();
+        for (int i = 0; same && i < expected.size(); i++) {
+            same = restored.get(i).getName().equals(expected.get(i).getName())
+                    && restored.get(i).getTotalMilliseconds() == expected.get(i).getTotalMilliseconds();
+        }
+        if (!same) {
+            System.out.println("The alarms were restored differently: " + restored.size() + " of " + expected.size());
+            failed = true;
+        }
+        restoredStore.close();
+    }
+
+    // The timers that are not running have the value of the change, the running ones counted on from it
+    private static void checkChangedValues(TimerEngine restoredEngine) {
+        for (TimerModel timer : restoredEngine.getTimers()) {
+            long expected = CHANGED_MILLIS + indexOf(timer);
+            long millis = timer.getMillis();
+            if (timer.isRunning() ? millis < expected : millis != expected) {
+                System.out.println(timer.getName() + " was restored with " + millis + " instead of " + expected);
+                failed = true;
+                return;
+            }
+        }
+    }
+
+    // Index of the timer from its name, the restored timers get new ids
+    private static int indexOf(TimerModel timer) {
+        String name = timer.getName();
+        return Integer.parseInt(name.substring("Timer ".length(), name.length() - 1));
+    }
+}
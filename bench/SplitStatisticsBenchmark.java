@@ -0,0 +1,193 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Cost of the lap statistics of a timer (see SplitStatistics) for 1k to 1M splits: time per split while the
+// statistics are kept up to date, time to get a summary with the percentiles, and time to rebuild them after a
+// removal. Compared to computing the statistics by hand from all splits after each split (up to 10k splits).
+// Checks count, best, worst, mean and standard deviation against an exact computation and the percentiles
+// against the sorted laps, which may differ by the 1.6% of the histogram buckets.
+// Also measures the heap per timer of 10k timers without splits, with a split and after clearing the splits,
+// since the lap histogram must only be allocated for timers with splits.
+// Exits with status 1 when a statistic is wrong or timers without splits take more than 2 KB each.
+// Run with: java -cp out SplitStatisticsBenchmark
+public class SplitStatisticsBenchmark {
+
+    private static final int[] SPLIT_COUNTS = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int MAX_BY_HAND_SPLITS = 10_000;
+    private static final double PERCENTILE_ERROR = 1.0 / 64;
+    private static final int HEAP_TIMERS = 10_000;
+    private static final long MAX_BYTES_PER_TIMER_WITHOUT_SPLITS = 2048;
+
+    private static boolean failed;
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %14s %14s %14s %18s%n", "splits", "ns per split", "summary (us)", "rebuild (ms)",
+                "by hand per split");
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up the JIT and is not printed
+            for (int splitCount : SPLIT_COUNTS) {
+                run(splitCount, round == 1);
+            }
+        }
+        measureHeapPerTimer();
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void run(int splitCount, boolean print) {
+        // Laps around 60 s with some noise, a few very slow laps, like a lap timer of a race
+        Random random = new Random(splitCount);
+        long[] splits = new long[splitCount];
+        long value = 0;
+        for (int i = 0; i < splitCount; i++) {
+            long lap = 60_000 + (long) (random.nextGaussian() * 2_000);
+            if (random.nextInt(100) == 0) {
+                lap += 30_000;
+            }
+            value += Math.max(1, lap);
+            splits[i] = value;
+        }
+
+        SplitLog log = new SplitLog();
+        long startNanos = System.nanoTime();
+        for (long split : splits) {
+            log.add(split);
+        }
+        double nanosPerSplit = (double) (System.nanoTime() - startNanos) / splitCount;
+
+        startNanos = System.nanoTime();
+        SplitStatistics.Summary summary = log.getStatistics();
+        double summaryMicros = (System.nanoTime() - startNanos) / 1e3;
+
+        check(splitCount, summary, splits, splitCount);
+
+        // Removing a split in the middle merges two laps
+        startNanos = System.nanoTime();
+        log.removeAll(new int[]{splitCount / 2});
+        double rebuildMillis = (System.nanoTime() - startNanos) / 1e6;
+        long[] remaining = log.toArray();
+        check(splitCount, log.getStatistics(), remaining, remaining.length);
+
+        String byHand = "-";
+        if (splitCount <= MAX_BY_HAND_SPLITS) {
+            startNanos = System.nanoTime();
+            long sink = 0;
+            for (int count = 1; count <= splitCount; count++) {
+                sink += byHand(splits, count);
+            }
+            byHand = String.format("%.0f ns", (double) (System.nanoTime() - startNanos) / splitCount);
+            if (sink == 42) {
+                System.out.println();
+            }
+        }
+        if (print) {
+            System.out.printf("%10d %14.1f %14.1f %14.3f %18s%n", splitCount, nanosPerSplit, summaryMicros, rebuildMillis, byHand);
+        }
+    }
+
+    // Heap of timers that never split, that split once, and whose splits were cleared again
+    private static void measureHeapPerTimer() {
+        long heapBefore = usedHeap();
+        TimerEngine engine = new TimerEngine();
+        for (int i = 0; i < HEAP_TIMERS; i++) {
+            engine.createTimer("Timer " + i);
+        }
+        long withoutSplits = (usedHeap() - heapBefore) / HEAP_TIMERS;
+        for (TimerModel timer : engine.getTimers()) {
+            timer.split();
+        }
+        long withSplit = (usedHeap() - heapBefore) / HEAP_TIMERS;
+        for (TimerModel timer : engine.getTimers()) {
+            timer.clearSplits();
+        }
+        long cleared = (usedHeap() - heapBefore) / HEAP_TIMERS;
+        System.out.printf("heap per timer (%d timers): %d B without splits, %d B with a split, %d B after clearing%n",
+                engine.getTimerCount(), withoutSplits, withSplit, cleared);
+        if (withoutSplits > MAX_BYTES_PER_TIMER_WITHOUT_SPLITS || cleared > MAX_BYTES_PER_TIMER_WITHOUT_SPLITS) {
+            System.out.println("timers without splits take more than " + MAX_BYTES_PER_TIMER_WITHOUT_SPLITS + " B");
+            failed = true;
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void check(int splitCount, SplitStatistics.Summary summary, long[] splits, int count) {
+        long[] laps = laps(splits, count);
+        double mean = 0;
+        for (long lap : laps) {
+            mean += lap;
+        }
+        mean /= laps.length;
+        double squares = 0;
+        for (long lap : laps) {
+            squares += (lap - mean) * (lap - mean);
+        }
+        double standardDeviation = Math.sqrt(squares / (laps.length - 1));
+        long[] sorted = laps.clone();
+        Arrays.sort(sorted);
+        int best = 0;
+        int worst = 0;
+        for (int i = 1; i < laps.length; i++) {
+            if (laps[i] < laps[best]) {
+                best = i;
+            }
+            if (laps[i] > laps[worst]) {
+                worst = i;
+            }
+        }
+        boolean correct = summary.getLapCount() == laps.length
+                && summary.getLastLap() == laps[laps.length - 1]
+                && summary.getBestLap() == laps[best] && summary.getBestLapNumber() == best + 1
+                && summary.getWorstLap() == laps[worst] && summary.getWorstLapNumber() == worst + 1
+                && Math.abs(summary.getMean() - mean) < 1e-6 * mean
+                && Math.abs(summary.getStandardDeviation() - standardDeviation) < 1e-6 * standardDeviation
+                && closeTo(summary.getMedian(), percentile(sorted, 50))
+                && closeTo(summary.getP90(), percentile(sorted, 90))
+                && closeTo(summary.getP99(), percentile(sorted, 99));
+        if (!correct) {
+            System.out.printf("%d splits: wrong statistics, mean %.3f (%.3f), stddev %.3f (%.3f), median %d (%d), p99 %d (%d)%n",
+                    splitCount, summary.getMean(), mean, summary.getStandardDeviation(), standardDeviation,
+                    summary.getMedian(), percentile(sorted, 50), summary.getP99(), percentile(sorted, 99));
+            failed = true;
+        }
+    }
+
+    // What a view had to do without the incremental statistics: compute the laps and sort them
+    private static long byHand(long[] splits, int count) {
+        long[] laps = laps(splits, count);
+        Arrays.sort(laps);
+        long sum = 0;
+        for (long lap : laps) {
+            sum += lap;
+        }
+        return sum / count + percentile(laps, 50) + laps[0] + laps[count - 1];
+    }
+
+    private static long[] laps(long[] splits, int count) {
+        long[] laps = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            laps[i] = Math.abs(splits[i] - previous);
+            previous = splits[i];
+        }
+        return laps;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.max(1, Math.ceil(percentile / 100.0 * sorted.length));
+        return sorted[rank - 1];
+    }
+
+    private static boolean closeTo(long approximate, long exact) {
+        return Math.abs(approximate - exact) <= exact * PERCENTILE_ERROR + 1;
+    }
+}
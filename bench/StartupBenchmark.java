@@ -0,0 +1,82 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.spi.ToolProvider;
+
+// Starts the TimerApp several times in a new JVM and prints the time from the JVM start to the first frame,
+// without and with an AppCDS archive of the classes loaded until then. The classes are packaged into a jar
+// first, because class data archives only support jars on the class path. Needs a display.
+// Exits with status 1 when the app does not report its first frame.
+// Run with: java -cp out StartupBenchmark [runs]
+public class StartupBenchmark {
+
+    private static final String FIRST_FRAME = "First frame after ";
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Path jar = Files.createTempFile("timer-app", ".jar");
+        Path archive = Files.createTempFile("timer-app", ".jsa");
+        try {
+            ToolProvider jarTool = ToolProvider.findFirst("jar").orElseThrow();
+            if (jarTool.run(System.out, System.err, "--create", "--file", jar.toString(), "-C",
+                    System.getProperty("java.class.path"), ".") != 0) {
+                throw new IOException("Could not create " + jar);
+            }
+            // Record the classes loaded until the first frame
+            runApp(jar, "-XX:ArchiveClassesAtExit=" + archive);
+
+            System.out.printf("%-10s %10s %10s %10s%n", "mode", "min (ms)", "median", "max");
+            measure(jar, "default", runs);
+            measure(jar, "appcds", runs, "-XX:SharedArchiveFile=" + archive);
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(jar);
+        }
+    }
+
+    private static void measure(Path jar, String mode, int runs, String... jvmOptions) throws IOException, InterruptedException {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = runApp(jar, jvmOptions);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-10s %10d %10d %10d%n", mode, millis[0], millis[runs / 2], millis[runs - 1]);
+    }
+
+    // Start the app until its first frame and return the reported time to the first frame
+    private static long runApp(Path jar, String... jvmOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(jvmOptions));
+        command.add("-Dtimer.session=false");
+        command.add("-Dtimer.exitAfterFirstFrame=true");
+        command.add("-cp");
+        command.add(jar.toString());
+        command.add("TimerApp");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        long millis = -1;
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.add(line);
+                if (line.startsWith(FIRST_FRAME)) {
+                    millis = Long.parseLong(line.substring(FIRST_FRAME.length(), line.indexOf(' ', FIRST_FRAME.length())));
+                }
+            }
+        }
+        process.waitFor();
+        if (millis < 0) {
+            output.forEach(System.out::println);
+            System.out.println("FAILED: the app did not show its window");
+            System.exit(1);
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,70 @@
+import java.nio.file.Path;
+
+// Measures the bulk operations of a timer group with 1k and 10k members and checks that all members
+// started together share the same start instant.
+// Exits with status 1 when the members got different values or a bulk start of 10k timers is too slow.
+// Run with: java -cp out TimerGroupBenchmark [result file]
+public class TimerGroupBenchmark {
+
+    // Allowed time of a bulk start of 10k timers after warmup
+    private static final double MAX_START_MILLIS = 50;
+
+    public static void main(String[] args) throws Exception {
+        Path resultFile = Path.of(args.length > 0 ? args[0] : "bench-results.json");
+        BenchmarkRunner runner = new BenchmarkRunner();
+        boolean failed = false;
+
+        for (int timerCount : new int[]{1_000, 10_000}) {
+            TimerEngine engine = new TimerEngine();
+            TimerGroup group = engine.createGroup("bench");
+            for (int i = 0; i < timerCount; i++) {
+                group.add(engine.createTimer("Timer " + i));
+            }
+
+            runner.averageTime("groupStartPause(" + timerCount + " timers)", 1, operations -> {
+                long started = 0;
+                for (int i = 0; i < operations; i++) {
+                    started += group.start();
+                    group.pause();
+                }
+                return started;
+            });
+            runner.averageTime("groupReset(" + timerCount + " timers)", 1, operations -> {
+                for (int i = 0; i < operations; i++) {
+                    group.reset();
+                }
+                return group.size();
+            });
+
+            // All members share the start instant, so one point in time gives every member the same value
+            group.reset();
+            long startNanos = System.nanoTime();
+            group.start();
+            double startMillis = (System.nanoTime() - startNanos) / 1_000_000.0;
+            Thread.sleep(50);
+            long now = System.nanoTime();
+            long firstValue = -1;
+            int differentValues = 0;
+            for (TimerModel timer : group.getMembers()) {
+                long value = timer.snapshot().getMillis(now);
+                if (firstValue == -1) {
+                    firstValue = value;
+                } else if (value != firstValue) {
+                    differentValues++;
+                }
+            }
+            group.pause();
+            System.out.printf("Bulk start of %d timers: %.3f ms, members with a different value: %d%n",
+                    timerCount, startMillis, differentValues);
+            if (differentValues > 0 || (timerCount == 10_000 && startMillis > MAX_START_MILLIS)) {
+                failed = true;
+            }
+        }
+        runner.writeJson(resultFile);
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
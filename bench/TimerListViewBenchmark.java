@@ -0,0 +1,110 @@
+import javax.swing.*;
+import java.awt.*;
+
+// Compares the heap usage per timer and the layout time of the old main panel, which had a full panel per
+// timer in a BoxLayout, with the virtualized TimerListView, for 1k and 10k timers.
+// The rows use the same components as the TimerPanel of the app. Runs headless.
+// Run with: java -Djava.awt.headless=true -cp out TimerListViewBenchmark
+public class TimerListViewBenchmark {
+
+    private static final int ROW_HEIGHT = 100;
+    private static final Dimension VIEWPORT_SIZE = new Dimension(1100, 400);
+
+    // Row with the components of a TimerPanel
+    private static class BenchRow extends JPanel implements TimerListView.RowView {
+        private final JLabel nameLabel = new JLabel();
+        private final TimeLabel timeLabel = new TimeLabel(0);
+        private final JList<String> splitList = new JList<>();
+
+        BenchRow() {
+            setLayout(new FlowLayout(FlowLayout.CENTER, 10, 10));
+            setBorder(BorderFactory.createLineBorder(Color.BLACK));
+            setPreferredSize(new Dimension(400, ROW_HEIGHT));
+            add(nameLabel);
+            timeLabel.setPreferredSize(new Dimension(160, 50));
+            add(timeLabel);
+            for (String text : new String[]{"Start Timer", "Reset Timer", "Modify", "Split", "Reset Splits", "Set Alarm", "Remove"}) {
+                add(new JButton(text));
+            }
+            add(new JCheckBox("Reverse"));
+            JScrollPane scrollPane = new JScrollPane(splitList);
+            scrollPane.setPreferredSize(new Dimension(190, 90));
+            add(scrollPane);
+        }
+
+        @Override
+        public void bind(TimerModel timer) {
+            if (timer != null) {
+                nameLabel.setText(timer.getName());
+                timeLabel.setTime(timer.getMillis());
+                splitList.setModel(new SplitListModel(timer));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-12s %8s %14s %14s %10s%n", "view", "timers", "heap/timer", "layout ms", "rows");
+        for (int timerCount : new int[]{1_000, 10_000}) {
+            SwingUtilities.invokeAndWait(() -> runBoxLayout(timerCount));
+            SwingUtilities.invokeAndWait(() -> runVirtualized(timerCount));
+        }
+        System.exit(0);
+    }
+
+    private static void runBoxLayout(int timerCount) {
+        long heapBefore = usedHeap();
+        TimerEngine engine = new TimerEngine();
+        JPanel mainPanel = new JPanel();
+        mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
+        JScrollPane scrollPane = new JScrollPane(mainPanel);
+        scrollPane.setSize(VIEWPORT_SIZE);
+        for (int i = 0; i < timerCount; i++) {
+            BenchRow row = new BenchRow();
+            row.bind(engine.createTimer("Timer " + (i + 1) + ":"));
+            mainPanel.add(row);
+        }
+        long start = System.nanoTime();
+        layoutTree(scrollPane);
+        long layoutNanos = System.nanoTime() - start;
+        long heapPerTimer = (usedHeap() - heapBefore) / timerCount;
+        System.out.printf("%-12s %8d %12d B %14.1f %10d%n", "BoxLayout", timerCount, heapPerTimer, layoutNanos / 1e6, mainPanel.getComponentCount());
+        // Keep the panel reachable until the heap was measured
+        scrollPane.setName(String.valueOf(mainPanel.getComponentCount()));
+    }
+
+    private static void runVirtualized(int timerCount) {
+        long heapBefore = usedHeap();
+        TimerEngine engine = new TimerEngine();
+        TimerListView<BenchRow> listView = new TimerListView<>(ROW_HEIGHT, BenchRow::new);
+        JScrollPane scrollPane = new JScrollPane(listView);
+        scrollPane.setSize(VIEWPORT_SIZE);
+        layoutTree(scrollPane);
+        for (int i = 0; i < timerCount; i++) {
+            listView.addTimer(engine.createTimer("Timer " + (i + 1) + ":"));
+        }
+        long start = System.nanoTime();
+        layoutTree(scrollPane);
+        long layoutNanos = System.nanoTime() - start;
+        long heapPerTimer = (usedHeap() - heapBefore) / timerCount;
+        System.out.printf("%-12s %8d %12d B %14.1f %10d%n", "virtualized", timerCount, heapPerTimer, layoutNanos / 1e6, listView.getRowComponentCount());
+        scrollPane.setName(String.valueOf(listView.getTimerCount()));
+    }
+
+    // Lay out the component tree like validate() does for a displayed window, which is not possible headless
+    private static void layoutTree(Component component) {
+        if (component instanceof Container container) {
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                layoutTree(child);
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
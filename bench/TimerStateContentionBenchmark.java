@@ -0,0 +1,96 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Measures the throughput of one timer shared by many threads, like the scheduler thread ticking it while
+// the EDT and other threads read, split and modify it. The lock-free TimerState is compared with a
+// synchronized version of the same state model, which is how TimerState was implemented before.
+// Run with: java -cp out TimerStateContentionBenchmark [threads] [result file]
+public class TimerStateContentionBenchmark {
+
+    // Every this many operations a thread writes instead of reading
+    private static final int WRITE_EVERY = 16;
+
+    // Interface of the timer state variants compared by this benchmark
+    private interface State {
+        long getMillis();
+
+        void setMillis(long millis);
+    }
+
+    // The state model with a lock around every access
+    private static class SynchronizedState implements State {
+        private long baseMillis;
+        private long anchorNanos = System.nanoTime();
+
+        @Override
+        public synchronized long getMillis() {
+            return baseMillis + (System.nanoTime() - anchorNanos) / 1_000_000L;
+        }
+
+        @Override
+        public synchronized void setMillis(long millis) {
+            baseMillis = millis;
+            anchorNanos = System.nanoTime();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Path resultFile = Path.of(args.length > 1 ? args[1] : "bench-results.json");
+        BenchmarkRunner runner = new BenchmarkRunner();
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            TimerState lockFree = new TimerState();
+            lockFree.start();
+            State lockFreeState = new State() {
+                @Override
+                public long getMillis() {
+                    return lockFree.getMillis();
+                }
+
+                @Override
+                public void setMillis(long millis) {
+                    lockFree.setMillis(millis);
+                }
+            };
+            int threadCount = threads;
+            runner.throughput("lockFree(" + threads + " threads)", 1000, millis -> run(lockFreeState, threadCount, millis));
+            runner.throughput("synchronized(" + threads + " threads)", 1000,
+                    millis -> run(new SynchronizedState(), threadCount, millis));
+        }
+        runner.writeJson(resultFile);
+    }
+
+    // Run the threads against the state for the given time and return the number of operations done
+    private static long run(State state, int threadCount, long durationMillis) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong operations = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread(() -> {
+                long count = 0;
+                long sum = 0;
+                while (running.get()) {
+                    if (count % WRITE_EVERY == 0) {
+                        state.setMillis(count);
+                    } else {
+                        sum += state.getMillis();
+                    }
+                    count++;
+                }
+                operations.addAndGet(sum == 42 ? count + 1 : count);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        Thread.sleep(durationMillis);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return operations.get();
+    }
+}
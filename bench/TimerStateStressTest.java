@@ -0,0 +1,231 @@
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Concurrency stress tests of TimerState and TimerModel in the style of jcstress.
+// Every test runs two actors on their own threads against a fresh array of states at the same time and
+// then checks the outcome of each state. Forbidden outcomes are counted and printed.
+// Exits with status 1 when a forbidden outcome was observed.
+// Run with: java -cp out TimerStateStressTest [rounds]
+public class TimerStateStressTest {
+
+    // Number of states each round of a test runs the actors against
+    private static final int STATES_PER_ROUND = 10_000;
+
+    private static int failedTests;
+
+    // Actor working on the state with the given index of the current round
+    private interface Actor {
+        void act(int index);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        testSnapshotIsNeverTorn(rounds);
+        testResetIsNotLostToPause(rounds);
+        testOnlyOneStartWins(rounds);
+        testValueIsMonotonicWhileToggling();
+        testJumpsNeverTriggerAlarms();
+        testTimerListenersAttachOnce(rounds);
+
+        if (failedTests > 0) {
+            System.out.println(failedTests + " test(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All tests passed");
+    }
+
+    // A reader sees the direction change of a writer only together with the value written before it
+    private static void testSnapshotIsNeverTorn(int rounds) throws Exception {
+        long forbidden = 0;
+        for (int round = 0; round < rounds; round++) {
+            TimerState[] states = newStates();
+            boolean[] reverse = new boolean[STATES_PER_ROUND];
+            long[] millis = new long[STATES_PER_ROUND];
+            runActors(
+                    index -> {
+                        states[index].setMillis(1000, 0);
+                        states[index].setReverse(true);
+                    },
+                    index -> {
+                        TimerState.Snapshot snapshot = states[index].snapshot();
+                        reverse[index] = snapshot.isReverse();
+                        millis[index] = snapshot.getMillis(0);
+                    });
+            for (int i = 0; i < STATES_PER_ROUND; i++) {
+                if (reverse[i] && millis[i] != 1000) {
+                    forbidden++;
+                }
+            }
+        }
+        report("snapshot is never torn", forbidden);
+    }
+
+    // A reset racing a pause is never lost: the paused value is either 0 or the time since the reset
+    private static void testResetIsNotLostToPause(int rounds) throws Exception {
+        long forbidden = 0;
+        for (int round = 0; round < rounds; round++) {
+            TimerState[] states = newStates();
+            for (TimerState state : states) {
+                // Running since 10 seconds
+                state.start(System.nanoTime() - 10_000_000_000L);
+            }
+            runActors(index -> states[index].reset(), index -> states[index].pause());
+            for (TimerState state : states) {
+                if (state.isRunning() || state.getMillis() >= 10_000) {
+                    forbidden++;
+                }
+            }
+        }
+        report("reset is not lost to a concurrent pause", forbidden);
+    }
+
+    // Two threads starting the same timer, exactly one of them starts it
+    private static void testOnlyOneStartWins(int rounds) throws Exception {
+        long forbidden = 0;
+        for (int round = 0; round < rounds; round++) {
+            TimerState[] states = newStates();
+            boolean[] first = new boolean[STATES_PER_ROUND];
+            boolean[] second = new boolean[STATES_PER_ROUND];
+            runActors(index -> first[index] = states[index].start(), index -> second[index] = states[index].start());
+            for (int i = 0; i < STATES_PER_ROUND; i++) {
+                if (first[i] == second[i]) {
+                    forbidden++;
+                }
+            }
+        }
+        report("only one concurrent start wins", forbidden);
+    }
+
+    // Pausing and resuming never moves a forward counting timer backwards
+    private static void testValueIsMonotonicWhileToggling() throws Exception {
+        TimerState state = new TimerState();
+        state.start();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread toggler = new Thread(() -> {
+            while (running.get()) {
+                state.pause();
+                state.start();
+            }
+        });
+        toggler.start();
+        long forbidden = 0;
+        long last = Long.MIN_VALUE;
+        long endNanos = System.nanoTime() + 1_000_000_000L;
+        while (System.nanoTime() < endNanos) {
+            long millis = state.getMillis();
+            if (millis < last) {
+                forbidden++;
+            }
+            last = millis;
+        }
+        running.set(false);
+        toggler.join();
+        report("value is monotonic while pausing and resuming", forbidden);
+    }
+
+    // Ticks racing modify never trigger an alarm that the timer value jumped over
+    private static void testJumpsNeverTriggerAlarms() throws Exception {
+        TimerEngine engine = new TimerEngine();
+        TimerModel timer = engine.createTimer("stress");
+        Alarm alarm = new Alarm();
+        alarm.setName("between the jumps");
+        alarm.setTotalMilliseconds(5000);
+        timer.addAlarm(alarm);
+        AtomicLong reached = new AtomicLong();
+        timer.addListener(new TimerListener() {
+            @Override
+            public void alarmReached(TimerModel source, Alarm reachedAlarm) {
+                reached.incrementAndGet();
+            }
+        });
+        timer.start();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread ticker = new Thread(() -> {
+            while (running.get()) {
+                timer.tick();
+            }
+        });
+        ticker.start();
+        long endNanos = System.nanoTime() + 1_000_000_000L;
+        while (System.nanoTime() < endNanos) {
+            timer.modify(0);
+            timer.modify(10_000);
+        }
+        running.set(false);
+        ticker.join();
+        engine.removeTimer(timer);
+        report("jumps never trigger the alarms in between", reached.get());
+    }
+
+    // Timers created while engine-wide listeners are added (the window is built while the session is restored)
+    // get every listener exactly once
+    private static void testTimerListenersAttachOnce(int rounds) throws Exception {
+        long forbidden = 0;
+        for (int round = 0; round < rounds; round++) {
+            TimerEngine engine = new TimerEngine();
+            int[] calls = new int[STATES_PER_ROUND];
+            int[] listenerCount = new int[1];
+            runActors(
+                    index -> engine.createTimer("stress " + index),
+                    index -> {
+                        if (index % 1000 == 0) {
+                            engine.addTimerListener(new TimerListener() {
+                                @Override
+                                public void nameChanged(TimerModel timer, String name) {
+                                    calls[timer.getId() - 1]++;
+                                }
+                            });
+                            listenerCount[0]++;
+                        }
+                    });
+            for (TimerModel timer : engine.getTimers()) {
+                timer.setName("renamed");
+                if (calls[timer.getId() - 1] != listenerCount[0]) {
+                    forbidden++;
+                }
+            }
+        }
+        report("timer listeners attach once to new timers", forbidden);
+    }
+
+    private static TimerState[] newStates() {
+        TimerState[] states = new TimerState[STATES_PER_ROUND];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new TimerState();
+        }
+        return states;
+    }
+
+    // Run both actors over all states of a round at the same time
+    private static void runActors(Actor first, Actor second) throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Thread firstThread = new Thread(() -> runActor(barrier, first));
+        Thread secondThread = new Thread(() -> runActor(barrier, second));
+        firstThread.start();
+        secondThread.start();
+        firstThread.join();
+        secondThread.join();
+    }
+
+    private static void runActor(CyclicBarrier barrier, Actor actor) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+        for (int i = 0; i < STATES_PER_ROUND; i++) {
+            actor.act(i);
+        }
+    }
+
+    private static void report(String test, long forbidden) {
+        System.out.printf("%-50s %s%n", test, forbidden == 0 ? "OK" : "FAILED (" + forbidden + " forbidden outcomes)");
+        if (forbidden > 0) {
+            failedTests++;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// Tests of the WallClockAlarms and the WallClockScheduler: occurrences across the daylight saving time changes
+// of Europe/Berlin, a wall clock set forward and back while alarms are scheduled (with a clock the test sets),
+// and many alarms on the real clock: the cost of scheduling, firing order, lateness and wake-ups.
+// Exits with status 1 when a test fails.
+// Run with: java -cp out WallClockAlarmTest [alarms]
+public class WallClockAlarmTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    private static int failedTests;
+
+    // Wall clock the tests set, the scheduler is told with clockChanged like after a change of the system clock
+    private static final class SettableClock extends Clock {
+        private final AtomicLong millis;
+
+        private SettableClock(Instant start) {
+            millis = new AtomicLong(start.toEpochMilli());
+        }
+
+        private void set(Instant instant) {
+            millis.set(instant.toEpochMilli());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis.get());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int alarmCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        testDailyAlarmKeepsLocalTimeAcrossDst();
+        testTimeInGapMovesLater();
+        testTimeInOverlapFiresOnce();
+        testClockSetForward();
+        testClockSetBack();
+        testManyAlarms(alarmCount);
+
+        if (failedTests > 0) {
+            System.out.println(failedTests + " test(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All tests passed");
+    }
+
+    // 07:00 every day, the day the clocks go forward has 23 hours
+    private static void testDailyAlarmKeepsLocalTimeAcrossDst() {
+        WallClockAlarm alarm = new WallClockAlarm("Wake up", LocalDateTime.parse("2026-03-28T07:00"), BERLIN,
+                WallClockAlarm.Recurrence.DAILY);
+        Instant first = alarm.nextOccurrenceAfter(Instant.parse("2026-03-28T00:00:00Z"));
+        Instant second = alarm.nextOccurrenceAfter(first);
+        // Asked long after the first occurrence, jumps to the right day directly
+        Instant later = alarm.nextOccurrenceAfter(Instant.parse("2026-10-25T12:00:00Z"));
+        check("daily alarm keeps its local time across DST",
+                first.equals(Instant.parse("2026-03-28T06:00:00Z"))
+                        && second.equals(Instant.parse("2026-03-29T05:00:00Z"))
+                        && later.equals(Instant.parse("2026-10-26T06:00:00Z")),
+                first + ", " + second + ", " + later);
+    }
+
+    // 02:30 does not exist on the day the clocks go forward, it fires at 03:30 instead
+    private static void testTimeInGapMovesLater() {
+        WallClockAlarm alarm = new WallClockAlarm("Gap", LocalDateTime.parse("2026-03-28T02:30"), BERLIN,
+                WallClockAlarm.Recurrence.DAILY);
+        Instant inGap = alarm.nextOccurrenceAfter(Instant.parse("2026-03-28T12:00:00Z"));
+        Instant afterGap = alarm.nextOccurrenceAfter(inGap);
+        check("time in the DST gap moves later by the gap",
+                inGap.equals(Instant.parse("2026-03-29T01:30:00Z")) && afterGap.equals(Instant.parse("2026-03-30T00:30:00Z")),
+                inGap + ", " + afterGap);
+    }
+
+    // 02:30 exists twice on the day the clocks go back, the alarm fires at the first one only
+    private static void testTimeInOverlapFiresOnce() {
+        WallClockAlarm alarm = new WallClockAlarm("Overlap", LocalDateTime.parse("2026-10-25T02:30"), BERLIN,
+                WallClockAlarm.Recurrence.DAILY);
+        Instant first = alarm.nextOccurrenceAfter(Instant.parse("2026-10-24T12:00:00Z"));
+        Instant next = alarm.nextOccurrenceAfter(first);
+        check("time in the DST overlap fires once",
+                first.equals(Instant.parse("2026-10-25T00:30:00Z")) && next.equals(Instant.parse("2026-10-26T01:30:00Z")),
+                first + ", " + next);
+    }
+
+    // Alarms passed by a clock set forward fire once, a recurring alarm continues after the new time
+    private static void testClockSetForward() throws InterruptedException {
+        Instant start = Instant.parse("2026-05-04T08:00:00Z");
+        SettableClock clock = new SettableClock(start);
+        WallClockScheduler scheduler = new WallClockScheduler(clock);
+        ConcurrentLinkedQueue<String> fired = new ConcurrentLinkedQueue<>();
+        scheduler.addListener((alarm, deadline) -> fired.add(alarm.getName() + "@" + deadline));
+
+        WallClockAlarm once = WallClockAlarm.at("once", start.plus(Duration.ofHours(1)));
+        WallClockAlarm daily = new WallClockAlarm("daily", LocalDateTime.parse("2026-05-04T09:30"), ZoneOffset.UTC,
+                WallClockAlarm.Recurrence.DAILY);
+        scheduler.schedule(once);
+        scheduler.schedule(daily);
+
+        // Three days later, the daily alarm missed three occurrences
+        clock.set(start.plus(Duration.ofDays(3)));
+        scheduler.clockChanged();
+        waitFor(() -> fired.size() >= 2);
+        Thread.sleep(200);
+        check("clock set forward fires passed alarms once",
+                fired.size() == 2 && fired.contains("once@2026-05-04T09:00:00Z") && fired.contains("daily@2026-05-04T09:30:00Z")
+                        && !scheduler.isScheduled(once)
+                        && Instant.parse("2026-05-07T09:30:00Z").equals(scheduler.getNextDeadline(daily)),
+                fired + ", next " + scheduler.getNextDeadline(daily));
+    }
+
+    // A clock set back delays the alarms, and an occurrence that already fired does not fire again
+    private static void testClockSetBack() throws InterruptedException {
+        Instant start = Instant.parse("2026-05-04T08:59:00Z");
+        SettableClock clock = new SettableClock(start);
+        WallClockScheduler scheduler = new WallClockScheduler(clock);
+        ConcurrentLinkedQueue<String> fired = new ConcurrentLinkedQueue<>();
+        scheduler.addListener((alarm, deadline) -> fired.add(alarm.getName() + "@" + deadline));
+
+        WallClockAlarm daily = new WallClockAlarm("daily", LocalDateTime.parse("2026-05-04T09:00"), ZoneOffset.UTC,
+                WallClockAlarm.Recurrence.DAILY);
+        WallClockAlarm once = WallClockAlarm.at("once", Instant.parse("2026-05-04T09:10:00Z"));
+        scheduler.schedule(daily);
+        scheduler.schedule(once);
+
+        clock.set(Instant.parse("2026-05-04T09:01:00Z"));
+        scheduler.clockChanged();
+        waitFor(() -> fired.size() >= 1);
+        // Back before both deadlines: the daily alarm already fired today, the other one has to wait
+        clock.set(Instant.parse("2026-05-04T08:00:00Z"));
+        scheduler.clockChanged();
+        Thread.sleep(200);
+        boolean waited = fired.size() == 1;
+        clock.set(Instant.parse("2026-05-04T09:10:00Z"));
+        scheduler.clockChanged();
+        waitFor(() -> fired.size() >= 2);
+        Thread.sleep(200);
+        check("clock set back does not fire an alarm twice",
+                waited && fired.size() == 2 && fired.contains("daily@2026-05-04T09:00:00Z") && fired.contains("once@2026-05-04T09:10:00Z")
+                        && Instant.parse("2026-05-05T09:00:00Z").equals(scheduler.getNextDeadline(daily)),
+                fired + ", next " + scheduler.getNextDeadline(daily));
+    }
+
+    // Schedules many alarms far ahead and some due within the next seconds in random order, then checks that
+    // the due ones fire in the order of their deadline, how late they are and how often the thread woke up
+    private static void testManyAlarms(int alarmCount) throws InterruptedException {
+        WallClockScheduler scheduler = new WallClockScheduler(Clock.systemUTC());
+        int dueCount = Math.min(alarmCount, 2_000);
+        List<Long> fireOrder = Collections.synchronizedList(new ArrayList<>());
+        LatencyHistogram lateness = new LatencyHistogram();
+        scheduler.addListener((alarm, deadline) -> {
+            lateness.record(Duration.between(deadline, Instant.now()).toNanos());
+            fireOrder.add(deadline.toEpochMilli());
+        });
+
+        Random random = new Random(42);
+        Instant now = Instant.now();
+        List<WallClockAlarm> alarms = new ArrayList<>(alarmCount);
+        for (int i = 0; i < alarmCount; i++) {
+            // The due alarms at whole milliseconds within 1 to 3 seconds, the others within the next year
+            long offsetMillis = i < dueCount ? 1000 + random.nextInt(2000) : 86_400_000L + random.nextInt(365) * 86_400_000L;
+            alarms.add(WallClockAlarm.at("Alarm " + i, now.plusMillis(offsetMillis)));
+        }
+        Collections.shuffle(alarms, random);
+        long startNanos = System.nanoTime();
+        for (WallClockAlarm alarm : alarms) {
+            scheduler.schedule(alarm);
+        }
+        double scheduleNanos = (double) (System.nanoTime() - startNanos) / alarmCount;
+        long wakeUpsBefore = scheduler.getWakeUpCount();
+
+        waitFor(() -> fireOrder.size() >= dueCount);
+        Thread.sleep(200);
+        long wakeUps = scheduler.getWakeUpCount() - wakeUpsBefore;
+        boolean ordered = true;
+        synchronized (fireOrder) {
+            for (int i = 1; i < fireOrder.size(); i++) {
+                ordered &= fireOrder.get(i - 1) <= fireOrder.get(i);
+            }
+        }
+        System.out.printf("%d alarms: %.0f ns per schedule, %d fired, lateness p50 %.3f ms p99 %.3f ms max %.3f ms, %d wake-ups%n",
+                alarmCount, scheduleNanos, fireOrder.size(), lateness.getValueAtPercentile(50) / 1e6,
+                lateness.getValueAtPercentile(99) / 1e6, lateness.getMax() / 1e6, wakeUps);
+        // At most one wake-up per distinct deadline, plus the ones caused by scheduling
+        check("many alarms fire in order without polling",
+                fireOrder.size() == dueCount && ordered && wakeUps <= 2_000 + 10
+                        && scheduler.getScheduledCount() == alarmCount - dueCount,
+                fireOrder.size() + " fired, ordered " + ordered + ", " + wakeUps + " wake-ups");
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void check(String test, boolean passed, String details) {
+        System.out.printf("%-50s %s%n", test, passed ? "OK" : "FAILED (" + details + ")");
+        if (!passed) {
+            failedTests++;
+        }
+    }
+}
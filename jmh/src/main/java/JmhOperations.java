@@ -0,0 +1,180 @@
+import java.text.DecimalFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// Operations measured by the JMH benchmarks in the benchmark package, the same as in bench/HotPathBenchmark and
+// bench/FormatBenchmark. JMH does not accept benchmarks in the default package and a named package cannot use
+// the classes of the app, so the benchmarks create this class by name once in their setup and call every
+// operation through a LongSupplier. One call is one operation, and its result is consumed by the benchmark.
+public class JmhOperations implements Function<String, LongSupplier> {
+
+    // Ticks of a number of running timers, "ticks:1000" for 1000 timers. Every call waits for one tick of the
+    // scheduler and returns the ticks delivered since the last call. Closing it removes the timers.
+    private static final class RunningTimers implements LongSupplier, AutoCloseable {
+        private final TimerEngine engine = new TimerEngine();
+        private final AtomicLong ticks = new AtomicLong();
+        private long reportedTicks;
+
+        RunningTimers(int timerCount) {
+            engine.addTimerListener(new TimerListener() {
+                @Override
+                public void timerTicked(TimerModel timer, long millis) {
+                    ticks.incrementAndGet();
+                }
+            });
+            for (int i = 0; i < timerCount; i++) {
+                engine.createTimer("Timer " + i).start();
+            }
+        }
+
+        @Override
+        public long getAsLong() {
+            try {
+                Thread.sleep(TimerScheduler.TICK_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long current = ticks.get();
+            long delivered = current - reportedTicks;
+            reportedTicks = current;
+            return delivered;
+        }
+
+        @Override
+        public void close() {
+            for (TimerModel timer : engine.getTimers()) {
+                engine.removeTimer(timer);
+            }
+        }
+    }
+
+    private final TimerEngine engine = new TimerEngine();
+
+    @Override
+    public LongSupplier apply(String operation) {
+        switch (operation) {
+            case "tick":
+                return tick(false);
+            case "tickWithProgram":
+                return tick(true);
+            case "formatTime":
+                return formatTime();
+            case "formatTimeDecimalFormat":
+                return formatTimeDecimalFormat();
+            case "createSplit":
+                return createSplit();
+            case "removeSplit":
+                return removeSplit();
+            case "checkAlarmNotification":
+                return checkAlarmNotification();
+            case "recordLatency":
+                return recordLatency();
+            default:
+                if (operation.startsWith("ticks:")) {
+                    return new RunningTimers(Integer.parseInt(operation.substring("ticks:".length())));
+                }
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    // A tick of a timer with 100 alarms that are never reached, optionally with an interval program of 100k phases
+    private LongSupplier tick(boolean withProgram) {
+        TimerModel timer = engine.createTimer(withProgram ? "program" : "tick");
+        addAlarms(timer, 100, 10_000_000L);
+        if (withProgram) {
+            timer.setProgram(IntervalProgram.compile("50000 x { work 40s; rest 20s }"));
+        }
+        return () -> {
+            timer.tick();
+            return 0;
+        };
+    }
+
+    private LongSupplier formatTime() {
+        char[] buffer = new char[TimeFormatter.MAX_LENGTH];
+        long[] value = {0};
+        return () -> TimeFormatter.format(buffer, value[0] += 10);
+    }
+
+    // The DecimalFormat based formatTime that TimeFormatter replaced, see FormatBenchmark
+    private LongSupplier formatTimeDecimalFormat() {
+        long[] value = {0};
+        return () -> {
+            long millis = value[0] += 10;
+            DecimalFormat format = new DecimalFormat("00");
+            String text = format.format(TimerState.hoursOf(millis)) + ":" + format.format(TimerState.minutesOf(millis))
+                    + ":" + format.format(TimerState.secondsOf(millis)) + ":"
+                    + format.format(TimerState.millisecondsOf(millis) / 10);
+            return text.length();
+        };
+    }
+
+    // Creating splits, the list is cleared regularly to keep the memory bounded
+    private LongSupplier createSplit() {
+        TimerModel timer = engine.createTimer("split");
+        int[] splits = {0};
+        return () -> {
+            if (++splits[0] % 1000 == 0) {
+                timer.clearSplits();
+            }
+            return timer.split();
+        };
+    }
+
+    // Removing the first of 1000 splits, which renumbers all the following splits
+    private LongSupplier removeSplit() {
+        TimerModel timer = engine.createTimer("removeSplit");
+        for (int i = 0; i < 1000; i++) {
+            timer.split();
+        }
+        int[] firstIndex = {0};
+        return () -> {
+            timer.removeSplits(firstIndex);
+            return timer.split();
+        };
+    }
+
+    // Advancing 10 ms per operation through 10k alarms that are 1 second apart
+    private LongSupplier checkAlarmNotification() {
+        AlarmIndex alarmIndex = new AlarmIndex();
+        TimerModel timer = engine.createTimer("alarms");
+        addAlarms(timer, 10_000, 1000);
+        alarmIndex.rebuild(timer.getAlarms());
+        long[] value = {0};
+        long[] version = {0};
+        long[] reached = {0};
+        return () -> {
+            value[0] += 10;
+            if (value[0] > 10_000_000L) {
+                value[0] = 0;
+                alarmIndex.seek(0, ++version[0]);
+            }
+            alarmIndex.advance(value[0], version[0], alarm -> reached[0]++);
+            return reached[0];
+        };
+    }
+
+    // Cost of the metrics recorded on the hot paths, with values up to 37 seconds in nanoseconds
+    private LongSupplier recordLatency() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] value = {0};
+        return () -> {
+            value[0] = (value[0] + 37) % 37_000_000_000L;
+            histogram.record(value[0]);
+            return 0;
+        };
+    }
+
+    private static void addAlarms(TimerModel timer, int count, long distanceMillis) {
+        for (int i = 1; i <= count; i++) {
+            Alarm alarm = new Alarm();
+            long millis = i * distanceMillis;
+            alarm.setHours(TimerState.hoursOf(millis));
+            alarm.setMinutes(TimerState.minutesOf(millis));
+            alarm.setSeconds(TimerState.secondsOf(millis));
+            alarm.setMilliseconds(TimerState.millisecondsOf(millis));
+            timer.addAlarm(alarm);
+        }
+    }
+}
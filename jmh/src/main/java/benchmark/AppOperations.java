@@ -0,0 +1,24 @@
+package benchmark;
+
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// Creates the operations of the app that the benchmarks measure, see JmhOperations in the default package
+final class AppOperations {
+
+    private AppOperations() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static LongSupplier create(String operation) throws ReflectiveOperationException {
+        Function<String, LongSupplier> operations = (Function<String, LongSupplier>)
+                Class.forName("JmhOperations").getDeclaredConstructor().newInstance();
+        return operations.apply(operation);
+    }
+
+    static void close(LongSupplier operation) throws Exception {
+        if (operation instanceof AutoCloseable) {
+            ((AutoCloseable) operation).close();
+        }
+    }
+}
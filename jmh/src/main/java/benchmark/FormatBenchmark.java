@@ -0,0 +1,46 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The allocation-free TimeFormatter compared with the old DecimalFormat based formatTime, as in
+// bench/FormatBenchmark, which also checks that both produce the same text. Run with -prof gc for the
+// allocated bytes per operation.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class FormatBenchmark {
+
+    private LongSupplier timeFormatter;
+    private LongSupplier decimalFormat;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        timeFormatter = AppOperations.create("formatTime");
+        decimalFormat = AppOperations.create("formatTimeDecimalFormat");
+    }
+
+    @Benchmark
+    public long timeFormatter() {
+        return timeFormatter.getAsLong();
+    }
+
+    @Benchmark
+    public long decimalFormat() {
+        return decimalFormat.getAsLong();
+    }
+}
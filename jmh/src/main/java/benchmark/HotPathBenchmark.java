@@ -0,0 +1,82 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The hot paths of a timer measured by bench/HotPathBenchmark: the tick (also with an interval program),
+// formatting the value, creating and removing splits, checking 10k alarms and recording a latency.
+// Every benchmark method runs one operation of JmhOperations.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class HotPathBenchmark {
+
+    private LongSupplier tick;
+    private LongSupplier tickWithProgram;
+    private LongSupplier formatTime;
+    private LongSupplier createSplit;
+    private LongSupplier removeSplit;
+    private LongSupplier checkAlarmNotification;
+    private LongSupplier recordLatency;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        tick = AppOperations.create("tick");
+        tickWithProgram = AppOperations.create("tickWithProgram");
+        formatTime = AppOperations.create("formatTime");
+        createSplit = AppOperations.create("createSplit");
+        removeSplit = AppOperations.create("removeSplit");
+        checkAlarmNotification = AppOperations.create("checkAlarmNotification");
+        recordLatency = AppOperations.create("recordLatency");
+    }
+
+    @Benchmark
+    public long tick() {
+        return tick.getAsLong();
+    }
+
+    @Benchmark
+    public long tickWithProgram() {
+        return tickWithProgram.getAsLong();
+    }
+
+    @Benchmark
+    public long formatTime() {
+        return formatTime.getAsLong();
+    }
+
+    @Benchmark
+    public long createSplit() {
+        return createSplit.getAsLong();
+    }
+
+    // Removing the first of 1000 splits and adding a new one
+    @Benchmark
+    public long removeSplit() {
+        return removeSplit.getAsLong();
+    }
+
+    @Benchmark
+    public long checkAlarmNotification() {
+        return checkAlarmNotification.getAsLong();
+    }
+
+    @Benchmark
+    public long recordLatency() {
+        return recordLatency.getAsLong();
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// End-to-end tick throughput of 1k and 10k running timers on the shared scheduler, as the ticks(N timers)
+// results of bench/HotPathBenchmark. The primary result counts waits for a scheduler tick; the ticks delivered
+// to the timer listeners per second are the secondary result "ticks".
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimerThroughputBenchmark {
+
+    // Ticks delivered in the current iteration, reported by JMH per second
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Ticks {
+        public long ticks;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            ticks = 0;
+        }
+    }
+
+    @Param({"1000", "10000"})
+    public int timers;
+
+    private LongSupplier runningTimers;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        runningTimers = AppOperations.create("ticks:" + timers);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        AppOperations.close(runningTimers);
+    }
+
+    @Benchmark
+    public void ticks(Ticks counters) {
+        counters.ticks += runningTimers.getAsLong();
+    }
+}
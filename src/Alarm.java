@@ -1,20 +1,30 @@
-import javax.swing.*;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Alarm value of a timer, plain data without any UI. The AlarmManager window shows the alarms of a timer in a
+// table, and the id identifies an alarm for removing it (see TimerModel.removeAlarm).
 class Alarm {
-    public JLabel getNameLabelOfAlarm() {
-        return nameLabelOfAlarm;
-    }
+    private static final AtomicLong nextId = new AtomicLong(1);
+
+    private final long id = nextId.getAndIncrement();
+    private String name;
+    private int hours;
+    private int minutes;
+    private int seconds;
+    private int milliseconds;
+    // Set when the timer reached the alarm value, shown in green by the alarm manager
+    private volatile boolean reached;
 
-    public void setNameLabelOfAlarm(JLabel nameLabelOfAlarm) {
-        this.nameLabelOfAlarm = nameLabelOfAlarm;
+    // Unique among all alarms of the app
+    public long getId() {
+        return id;
     }
 
-    public JLabel getAlarmTimeLabel() {
-        return alarmTimeLabel;
+    public String getName() {
+        return name;
     }
 
-    public void setAlarmTimeLabel(JLabel alarmTimeLabel) {
-        this.alarmTimeLabel = alarmTimeLabel;
+    public void setName(String name) {
+        this.name = name;
     }
 
     public int getHours() {
@@ -49,11 +59,24 @@ class Alarm {
         this.milliseconds = milliseconds;
     }
 
-    private JLabel nameLabelOfAlarm;
-    private JLabel alarmTimeLabel;
-    private int hours;
-    private int minutes;
-    private int seconds;
-    private int milliseconds;
+    // Alarm value in milliseconds, comparable with the value of the timer
+    public long getTotalMilliseconds() {
+        return TimerState.toMillis(hours, minutes, seconds, milliseconds);
+    }
+
+    // Set the alarm value from a value in milliseconds
+    public void setTotalMilliseconds(long totalMilliseconds) {
+        hours = TimerState.hoursOf(totalMilliseconds);
+        minutes = TimerState.minutesOf(totalMilliseconds);
+        seconds = TimerState.secondsOf(totalMilliseconds);
+        milliseconds = TimerState.millisecondsOf(totalMilliseconds);
+    }
+
+    public boolean isReached() {
+        return reached;
+    }
 
-}
\ No newline at end of file
+    public void setReached(boolean reached) {
+        this.reached = reached;
+    }
+}
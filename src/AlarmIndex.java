@@ -0,0 +1,197 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Alarms of one timer ordered by their deadline (the alarm value in milliseconds).
+// A cursor points to the first alarm after the last evaluated timer value. On every tick only the alarms
+// between the previous and the current value are visited, so the cost per tick is O(1) amortized no matter
+// how many alarms a timer has, and no alarm is missed when a tick skips over its exact value.
+// Removing an alarm leaves a tombstone (a null alarm with its deadline kept), so the arrays stay sorted without
+// copying them, and the tombstones are compacted away once they are half of the slots.
+public class AlarmIndex {
+
+    // Tombstones skipped by one lookup of the next alarm before the index is compacted right away
+    private static final int MAX_SKIPPED_TOMBSTONES = 64;
+
+    private long[] deadlines = new long[0];
+    // null for a removed alarm
+    private Alarm[] sortedAlarms = new Alarm[0];
+    private int removedCount;
+    // Index of the first deadline greater than lastMillis
+    private int cursor;
+    // Timer value of the last evaluation
+    private long lastMillis;
+    // Version of the timer state (see TimerState.Snapshot) the last value belongs to
+    private long version;
+
+    // Rebuild the index after alarms were added, removed or edited
+    public synchronized void rebuild(List<Alarm> alarms) {
+        Alarm[] sorted = alarms.toArray(new Alarm[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(Alarm::getTotalMilliseconds));
+        long[] sortedDeadlines = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sortedDeadlines[i] = sorted[i].getTotalMilliseconds();
+        }
+        sortedAlarms = sorted;
+        deadlines = sortedDeadlines;
+        removedCount = 0;
+        cursor = upperBound(lastMillis);
+    }
+
+    // Remove one alarm without sorting again: a binary search finds its deadline and the slot becomes a tombstone,
+    // O(log n) without copying or allocating. Compacting the tombstones costs O(n) once per n/2 removals.
+    // Returns false if the alarm is not indexed.
+    public synchronized boolean remove(Alarm alarm) {
+        long deadline = alarm.getTotalMilliseconds();
+        int index = lowerBound(deadline);
+        while (index < deadlines.length && deadlines[index] == deadline && sortedAlarms[index] != alarm) {
+            index++;
+        }
+        if (index == deadlines.length || sortedAlarms[index] != alarm) {
+            return false;
+        }
+        sortedAlarms[index] = null;
+        removedCount++;
+        if (removedCount * 2 > deadlines.length) {
+            compact();
+        }
+        return true;
+    }
+
+    // Move to a new timer value without triggering the alarms in between (reset, modify).
+    // A seek of a state version that was already seen (e.g. by a tick that ran first) is ignored.
+    public synchronized void seek(long millis, long stateVersion) {
+        if (stateVersion <= version) {
+            return;
+        }
+        version = stateVersion;
+        lastMillis = millis;
+        cursor = upperBound(millis);
+    }
+
+    // Call onReached for every alarm passed since the last evaluation. Counting forward, alarms in
+    // (last, current] are reached, counting backwards alarms in [current, last) are reached.
+    // The state version tells whether the value was reached by counting or by a jump: a tick that read the
+    // state before a concurrent reset or modify is dropped, and the first tick after a jump only seeks.
+    public synchronized void advance(long currentMillis, long stateVersion, Consumer<Alarm> onReached) {
+        if (stateVersion != version) {
+            seek(currentMillis, stateVersion);
+            return;
+        }
+        if (currentMillis > lastMillis) {
+            while (cursor < deadlines.length && deadlines[cursor] <= currentMillis) {
+                if (sortedAlarms[cursor] != null) {
+                    onReached.accept(sortedAlarms[cursor]);
+                }
+                cursor++;
+            }
+        } else if (currentMillis < lastMillis) {
+            int index = cursor;
+            // Alarms equal to the last value were already reached when arriving at it
+            while (index > 0 && deadlines[index - 1] >= lastMillis) {
+                index--;
+            }
+            while (index > 0 && deadlines[index - 1] >= currentMillis) {
+                if (sortedAlarms[index - 1] != null) {
+                    onReached.accept(sortedAlarms[index - 1]);
+                }
+                index--;
+            }
+            // Keep the cursor behind the alarms equal to the current value
+            while (index < deadlines.length && deadlines[index] == currentMillis) {
+                index++;
+            }
+            cursor = index;
+        }
+        lastMillis = currentMillis;
+    }
+
+    // Milliseconds the timer has to count from the given value until it reaches the next alarm in the given
+    // direction, Long.MAX_VALUE if there is no alarm ahead. Alarms equal to the value count as reached.
+    public synchronized long millisUntilNextAlarm(long currentMillis, boolean reverse) {
+        int index = upperBound(currentMillis);
+        if (!reverse) {
+            int skipped = 0;
+            while (index < deadlines.length && sortedAlarms[index] == null) {
+                if (++skipped > MAX_SKIPPED_TOMBSTONES) {
+                    // This lookup runs after every tick of a hidden timer, it must not scan many tombstones each time
+                    compact();
+                    return millisUntilNextAlarm(currentMillis, false);
+                }
+                index++;
+            }
+            return index < deadlines.length ? deadlines[index] - currentMillis : Long.MAX_VALUE;
+        }
+        while (index > 0 && deadlines[index - 1] >= currentMillis) {
+            index--;
+        }
+        int skipped = 0;
+        while (index > 0 && sortedAlarms[index - 1] == null) {
+            if (++skipped > MAX_SKIPPED_TOMBSTONES) {
+                compact();
+                return millisUntilNextAlarm(currentMillis, true);
+            }
+            index--;
+        }
+        return index > 0 ? currentMillis - deadlines[index - 1] : Long.MAX_VALUE;
+    }
+
+    // Number of indexed alarms, without the removed ones
+    public synchronized int size() {
+        return deadlines.length - removedCount;
+    }
+
+    // Drop the tombstones, the remaining alarms are still in order so nothing has to be sorted
+    private void compact() {
+        int size = deadlines.length - removedCount;
+        long[] remainingDeadlines = new long[size];
+        Alarm[] remainingAlarms = new Alarm[size];
+        int remaining = 0;
+        int remainingBeforeCursor = 0;
+        for (int i = 0; i < deadlines.length; i++) {
+            if (sortedAlarms[i] != null) {
+                if (i < cursor) {
+                    remainingBeforeCursor++;
+                }
+                remainingDeadlines[remaining] = deadlines[i];
+                remainingAlarms[remaining] = sortedAlarms[i];
+                remaining++;
+            }
+        }
+        deadlines = remainingDeadlines;
+        sortedAlarms = remainingAlarms;
+        removedCount = 0;
+        cursor = remainingBeforeCursor;
+    }
+
+    // Index of the first deadline greater than or equal to the given value
+    private int lowerBound(long millis) {
+        int low = 0;
+        int high = deadlines.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (deadlines[middle] < millis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Index of the first deadline greater than the given value
+    private int upperBound(long millis) {
+        int low = 0;
+        int high = deadlines.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (deadlines[middle] <= millis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -1,43 +1,189 @@
 import javax.sound.sampled.*;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.util.Objects;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Plays the notification sound of the alarms.
+// The WAV file is decoded once into memory and played from a small pool of reused clips by a single
+// dispatcher (a thread of its own, or a serial executor of the ExecutionBackend when it is not inline). Triggers arriving while a playback just started are merged into it, so many alarms
+// firing together produce one sound instead of a thread and a disk read each.
+// When no audio device exists (e.g. headless servers), playing a sound does nothing.
 public class AudioPlayer {
-    private Clip clip;
+
+    private static final String NOTIFICATION_RESOURCE = "/audio/notification-sound.wav";
+    // Number of clips that can play at the same time
+    private static final int POOL_SIZE = 4;
+    // Triggers within this time after a playback started are merged into that playback
+    private static final long MERGE_WINDOW_NANOS = 50_000_000L;
+
+    private static AudioPlayer instance;
+
+    private final Executor dispatcher;
+    // Set while a trigger waits for the dispatcher, further triggers are merged into it
+    private final AtomicBoolean triggerPending = new AtomicBoolean();
+    private Clip[] clips;
+    // Trigger time of the playback of each clip, used to measure the latency when the clip starts
+    private long[] clipTriggerNanos;
+    private int nextClip;
+    private long lastPlaybackNanos;
+    private boolean initialized;
+    private volatile boolean available;
+
+    private final AtomicLong playbackCount = new AtomicLong();
+    private final AtomicLong mergedTriggerCount = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private volatile long lastLatencyNanos;
+
+    private AudioPlayer() {
+        ExecutionBackend backend = ExecutionBackend.getInstance();
+        if (backend.getMode() == ExecutionBackend.Mode.INLINE) {
+            // Loading and starting the clips must not delay the scheduler thread
+            dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "audio-dispatcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            dispatcher = backend.newSerialExecutor();
+        }
+    }
+
+    public static synchronized AudioPlayer getInstance() {
+        if (instance == null) {
+            instance = new AudioPlayer();
+        }
+        return instance;
+    }
 
     // Volume in dB, -10 means -10 dB lower than the original volume
     public void playNotificationSound(float volume) {
-        Thread audioThread = new Thread(() -> {
-            try {
-                String resourcesFolderPath = System.getProperty("user.dir") + "\\resources\\audio\\notification-sound.wav";
-                AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new File(resourcesFolderPath));
-                clip = AudioSystem.getClip();
-                clip.open(audioInputStream);
-                setVolume(volume); // Set the desired volume
+        long triggerNanos = System.nanoTime();
+        if (!triggerPending.compareAndSet(false, true)) {
+            mergedTriggerCount.incrementAndGet();
+            return;
+        }
+        dispatcher.execute(() -> {
+            triggerPending.set(false);
+            play(volume, triggerNanos);
+        });
+    }
+
+    // Runs on the dispatcher, one call at a time
+    private void play(float volume, long triggerNanos) {
+        if (!initialized) {
+            initialized = true;
+            available = loadClips();
+        }
+        if (!available) {
+            return;
+        }
+        if (lastPlaybackNanos != 0 && triggerNanos - lastPlaybackNanos < MERGE_WINDOW_NANOS) {
+            mergedTriggerCount.incrementAndGet();
+            return;
+        }
+
+        // Use the next clip of the pool, which is usually finished playing
+        Clip clip = clips[nextClip];
+        clipTriggerNanos[nextClip] = triggerNanos;
+        nextClip = (nextClip + 1) % clips.length;
+
+        clip.stop();
+        setVolume(clip, volume);
+        clip.setFramePosition(0);
+        clip.start();
+        lastPlaybackNanos = System.nanoTime();
+    }
+
+    // Decode the sound once and open the pool of clips with it, returns false if no audio device is available
+    private boolean loadClips() {
+        try (AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new BufferedInputStream(openSoundFile()))) {
+            AudioFormat format = audioInputStream.getFormat();
+            byte[] data = audioInputStream.readAllBytes();
 
+            clips = new Clip[POOL_SIZE];
+            clipTriggerNanos = new long[POOL_SIZE];
+            for (int i = 0; i < POOL_SIZE; i++) {
+                Clip clip = AudioSystem.getClip();
+                clip.open(format, data, 0, data.length);
+                int clipIndex = i;
                 clip.addLineListener(event -> {
-                    if (event.getType() == LineEvent.Type.STOP) {
-                        clip.close();
+                    if (event.getType() == LineEvent.Type.START) {
+                        recordLatency(System.nanoTime() - clipTriggerNanos[clipIndex]);
                     }
                 });
+                clips[i] = clip;
+            }
+            return true;
+        } catch (LineUnavailableException | IllegalArgumentException | UnsupportedAudioFileException | IOException e) {
+            // Continue without sound, the timers and alarms still work
+            closeClips();
+            System.err.println("Notification sound disabled: " + e.getMessage());
+            return false;
+        }
+    }
 
-                clip.start();
-            } catch (Exception e) {
-                e.printStackTrace();
+    private void closeClips() {
+        if (clips != null) {
+            for (Clip clip : clips) {
+                if (clip != null) {
+                    clip.close();
+                }
             }
-        });
+        }
+    }
 
-        audioThread.start();
+    // Read the sound from the classpath, or from the resources folder when started from the project directory
+    private InputStream openSoundFile() throws IOException {
+        InputStream resource = AudioPlayer.class.getResourceAsStream(NOTIFICATION_RESOURCE);
+        if (resource != null) {
+            return resource;
+        }
+        File file = new File(System.getProperty("user.dir"), "resources" + NOTIFICATION_RESOURCE.replace('/', File.separatorChar));
+        return new FileInputStream(file);
     }
 
-    private void setVolume(float volume) {
-        if (clip != null) {
-            try {
-                FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-                gainControl.setValue(volume);
-            } catch (IllegalArgumentException e) {
-                e.printStackTrace();
-            }
+    private void recordLatency(long latencyNanos) {
+        lastLatencyNanos = latencyNanos;
+        totalLatencyNanos.addAndGet(latencyNanos);
+        playbackCount.incrementAndGet();
+    }
+
+    private void setVolume(Clip clip, float volume) {
+        try {
+            FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
+            gainControl.setValue(volume);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
         }
     }
+
+    // False if no audio device was found, only known after the first sound was triggered
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public long getPlaybackCount() {
+        return playbackCount.get();
+    }
+
+    // Number of triggers that were merged into a playback that was already pending or just started
+    public long getMergedTriggerCount() {
+        return mergedTriggerCount.get();
+    }
+
+    // Time from the trigger of the last playback until the clip started, in milliseconds
+    public double getLastLatencyMillis() {
+        return lastLatencyNanos / 1_000_000.0;
+    }
+
+    public double getAverageLatencyMillis() {
+        long count = playbackCount.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / 1_000_000.0 / count;
+    }
 }
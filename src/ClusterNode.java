@@ -0,0 +1,574 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps the timers of several app instances in sync, e.g. on workstations showing the same timers.
+// The leader owns the timers. Followers create a copy of every timer of the leader and show it, changes made to
+// a copy are overwritten by the leader. A timer is replicated as its state (value at an anchor nanoTime, running,
+// direction) and its name, not as ticks, so followers count on their own from the same start instants.
+// Followers estimate the offset between their nanoTime and the one of the leader like NTP: they send their time,
+// the leader answers with its receive and send times, and of the last OFFSET_SAMPLES answers the one with the
+// shortest round trip is used. The anchors of the leader are moved into the clock of the follower with it.
+// Everything is sent over UDP:
+//   TIME_REQUEST  follower -> leader    t0, also registers the follower
+//   TIME_REPLY    leader -> follower    t0, t1, t2
+//   STATE         leader -> followers   batch of timer records: id, flags, base millis, anchor nanos, name
+// Changed timers are collected for BATCH_DELAY_NANOS and sent as one batch of datagrams. Every second all timers
+// are sent again, so a lost datagram or a follower that joined late is repaired within a second. A removed timer
+// is sent as a record with the REMOVED flag for TOMBSTONE_NANOS.
+// Groups, splits and alarms are not replicated. A single thread per node does all the network work.
+public class ClusterNode implements TimerListener, TimerEngine.Listener, AutoCloseable {
+
+    public enum Role {
+        LEADER,
+        FOLLOWER
+    }
+
+    public static final int DEFAULT_PORT = 7071;
+
+    private static final int MAGIC = 0x55544331;
+    private static final byte TIME_REQUEST = 1;
+    private static final byte TIME_REPLY = 2;
+    private static final byte STATE = 3;
+    private static final byte RUNNING = 1;
+    private static final byte REVERSE = 2;
+    private static final byte REMOVED = 4;
+    // Fits into the MTU of common networks without fragmentation
+    private static final int MAX_DATAGRAM_BYTES = 1400;
+    // Magic, type, epoch and record count
+    private static final int STATE_HEADER_BYTES = 4 + 1 + 8 + 2;
+    private static final int MAX_NAME_BYTES = 255;
+    private static final int SOCKET_BUFFER_BYTES = 1 << 20;
+    private static final long BATCH_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long FULL_SYNC_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Time requests are sent faster until the first samples are collected
+    private static final long FAST_TIME_REQUEST_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long TIME_REQUEST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int OFFSET_SAMPLES = 8;
+    private static final long FOLLOWER_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long TOMBSTONE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final TimerEngine engine;
+    private final Role role;
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final SocketAddress localAddress;
+    // Added to the nanoTime sent and received by this node, so tests can give nodes on one machine different clocks
+    private final long clockSkewNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(64 * 1024);
+    private final AtomicLong sentDatagramCount = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+    private final AtomicLong appliedChangeCount = new AtomicLong();
+
+    // Leader: random per start, so followers notice a restarted leader and measure the offset again
+    private long epoch;
+    // Leader: followers and the nanoTime of their last time request
+    private final Map<SocketAddress, Long> followers = new ConcurrentHashMap<>();
+    // Leader: ids of the timers changed since the last batch, and removed timers with the nanoTime of their removal
+    private final Set<Integer> changedTimers = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Long> removedTimers = new ConcurrentHashMap<>();
+    private final AtomicBoolean wakeUpRequested = new AtomicBoolean();
+    private long batchDeadlineNanos;
+    private long nextFullSyncNanos;
+
+    // Follower: copies of the timers of the leader by the id on the leader
+    private final Map<Integer, TimerModel> replicas = new ConcurrentHashMap<>();
+    private final long[] offsetSamples = new long[OFFSET_SAMPLES];
+    private final long[] roundTripSamples = new long[OFFSET_SAMPLES];
+    private int sampleCount;
+    // Leader nanoTime minus the nanoTime of this node, valid once synchronized
+    private volatile long offsetNanos;
+    private volatile long roundTripNanos;
+    private volatile boolean synchronizedWithLeader;
+    private long nextTimeRequestNanos;
+
+    // Lead the timers of the engine and send them to the followers that contact the given address
+    public static ClusterNode leader(TimerEngine engine, SocketAddress bindAddress) throws IOException {
+        return new ClusterNode(engine, Role.LEADER, bindAddress, 0);
+    }
+
+    // Show copies of the timers of the leader at the given address in the engine
+    public static ClusterNode follower(TimerEngine engine, SocketAddress leaderAddress) throws IOException {
+        return new ClusterNode(engine, Role.FOLLOWER, leaderAddress, 0);
+    }
+
+    ClusterNode(TimerEngine engine, Role role, SocketAddress address, long clockSkewNanos) throws IOException {
+        this.engine = engine;
+        this.role = role;
+        this.clockSkewNanos = clockSkewNanos;
+        channel = DatagramChannel.open();
+        channel.setOption(StandardSocketOptions.SO_SNDBUF, SOCKET_BUFFER_BYTES);
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, SOCKET_BUFFER_BYTES);
+        if (role == Role.LEADER) {
+            channel.bind(address);
+            epoch = ThreadLocalRandom.current().nextLong();
+            engine.addListener(this);
+            engine.addTimerListener(this);
+            changedTimers.addAll(timerIds(engine.getTimers()));
+        } else {
+            // Only datagrams of the leader are received
+            channel.connect(address);
+        }
+        channel.configureBlocking(false);
+        localAddress = channel.getLocalAddress();
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+
+        thread = new Thread(role == Role.LEADER ? this::leaderLoop : this::followerLoop, "cluster-" + role.name().toLowerCase());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Parse a cluster setting like "leader", "leader:7071", "follower:host:7071" or "follower:7071" (local leader)
+    // and join the cluster with the engine
+    public static ClusterNode open(TimerEngine engine, String setting) throws IOException {
+        String[] parts = setting.split(":", 2);
+        String address = parts.length > 1 ? parts[1] : "";
+        int colon = address.lastIndexOf(':');
+        if (parts[0].equalsIgnoreCase("leader")) {
+            if (address.isEmpty()) {
+                return leader(engine, new InetSocketAddress(DEFAULT_PORT));
+            }
+            return leader(engine, colon < 0
+                    ? new InetSocketAddress(Integer.parseInt(address))
+                    : new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+        } else if (parts[0].equalsIgnoreCase("follower") && !address.isEmpty()) {
+            return follower(engine, colon < 0
+                    ? new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address))
+                    : new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+        }
+        throw new IllegalArgumentException("Expected leader[:port] or follower:host:port instead of " + setting);
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    // The bound address, e.g. with the port chosen by the system for port 0
+    public SocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    // Leader: followers that sent a time request during the last FOLLOWER_TIMEOUT_NANOS
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    // Follower: true once the offset to the clock of the leader is known
+    public boolean isSynchronized() {
+        return synchronizedWithLeader;
+    }
+
+    // Follower: nanoTime of the leader minus the nanoTime of this node
+    public long getClockOffsetNanos() {
+        return offsetNanos;
+    }
+
+    // Follower: round trip of the time sample the offset was taken from
+    public long getRoundTripNanos() {
+        return roundTripNanos;
+    }
+
+    // Follower: copy of the timer with the given id on the leader, null if it is not known (yet)
+    public TimerModel getReplica(int leaderId) {
+        return replicas.get(leaderId);
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    public long getSentDatagramCount() {
+        return sentDatagramCount.get();
+    }
+
+    public long getSentBytes() {
+        return sentBytes.get();
+    }
+
+    // Follower: number of timer states taken over from the leader that changed a copy
+    public long getAppliedChangeCount() {
+        return appliedChangeCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (role == Role.LEADER) {
+            engine.removeListener(this);
+            engine.removeTimerListener(this);
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The clock of this node as seen by the other nodes
+    private long now() {
+        return System.nanoTime() + clockSkewNanos;
+    }
+
+    // Leader: remember the changed timer for the next batch, called on the thread that changed the timer
+    private void timerChanged(TimerModel timer) {
+        changedTimers.add(timer.getId());
+        if (wakeUpRequested.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void timerAdded(TimerModel timer) {
+        timerChanged(timer);
+    }
+
+    @Override
+    public void timerRemoved(TimerModel timer) {
+        removedTimers.put(timer.getId(), System.nanoTime());
+        timerChanged(timer);
+    }
+
+    @Override
+    public void timerStarted(TimerModel timer) {
+        timerChanged(timer);
+    }
+
+    @Override
+    public void timerPaused(TimerModel timer) {
+        timerChanged(timer);
+    }
+
+    @Override
+    public void timerReset(TimerModel timer) {
+        timerChanged(timer);
+    }
+
+    @Override
+    public void timerModified(TimerModel timer, long millis) {
+        timerChanged(timer);
+    }
+
+    @Override
+    public void reverseChanged(TimerModel timer, boolean reverse) {
+        timerChanged(timer);
+    }
+
+    @Override
+    public void nameChanged(TimerModel timer, String name) {
+        timerChanged(timer);
+    }
+
+    // Runs on the thread of a leader
+    private void leaderLoop() {
+        nextFullSyncNanos = System.nanoTime() + FULL_SYNC_INTERVAL_NANOS;
+        try {
+            while (running) {
+                long nowNanos = System.nanoTime();
+                long waitNanos = nextFullSyncNanos - nowNanos;
+                if (!changedTimers.isEmpty()) {
+                    if (batchDeadlineNanos == 0) {
+                        batchDeadlineNanos = nowNanos + BATCH_DELAY_NANOS;
+                    }
+                    waitNanos = Math.min(waitNanos, batchDeadlineNanos - nowNanos);
+                }
+                select(waitNanos);
+                SocketAddress sender;
+                while ((sender = receive()) != null) {
+                    handleTimeRequest(sender);
+                }
+                nowNanos = System.nanoTime();
+                if (batchDeadlineNanos != 0 && nowNanos - batchDeadlineNanos >= 0) {
+                    batchDeadlineNanos = 0;
+                    List<Integer> ids = new ArrayList<>(changedTimers);
+                    changedTimers.removeAll(ids);
+                    send(encodeStates(ids), followers.keySet());
+                }
+                if (nowNanos - nextFullSyncNanos >= 0) {
+                    nextFullSyncNanos = nowNanos + FULL_SYNC_INTERVAL_NANOS;
+                    long expired = nowNanos;
+                    followers.values().removeIf(lastSeenNanos -> expired - lastSeenNanos > FOLLOWER_TIMEOUT_NANOS);
+                    removedTimers.values().removeIf(removedNanos -> expired - removedNanos > TOMBSTONE_NANOS);
+                    send(encodeAllStates(), followers.keySet());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Cluster leader stopped: " + e.getMessage());
+        } finally {
+            closeChannel();
+        }
+    }
+
+    // Runs on the thread of a follower
+    private void followerLoop() {
+        try {
+            while (running) {
+                long nowNanos = System.nanoTime();
+                if (nowNanos - nextTimeRequestNanos >= 0) {
+                    sendTimeRequest();
+                    nextTimeRequestNanos = nowNanos + (sampleCount < OFFSET_SAMPLES
+                            ? FAST_TIME_REQUEST_INTERVAL_NANOS : TIME_REQUEST_INTERVAL_NANOS);
+                }
+                select(nextTimeRequestNanos - nowNanos);
+                while (receive() != null) {
+                    handleFollowerDatagram();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Cluster follower stopped: " + e.getMessage());
+        } finally {
+            closeChannel();
+        }
+    }
+
+    private void select(long waitNanos) throws IOException {
+        if (waitNanos <= 0) {
+            selector.selectNow();
+        } else {
+            // select(0) would wait without a timeout
+            selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+        }
+        selector.selectedKeys().clear();
+        wakeUpRequested.set(false);
+    }
+
+    // Receive the next datagram into the receive buffer, returns its sender or null if there is none
+    private SocketAddress receive() throws IOException {
+        while (true) {
+            receiveBuffer.clear();
+            SocketAddress sender;
+            try {
+                sender = channel.receive(receiveBuffer);
+            } catch (PortUnreachableException e) {
+                // The leader is not running (yet), the next time request tries again
+                continue;
+            }
+            if (sender == null) {
+                return null;
+            }
+            receiveBuffer.flip();
+            if (receiveBuffer.remaining() >= 13 && receiveBuffer.getInt() == MAGIC) {
+                return sender;
+            }
+            // Not a datagram of a node, ignored
+        }
+    }
+
+    private void handleTimeRequest(SocketAddress sender) throws IOException {
+        long receivedNanos = now();
+        if (receiveBuffer.get() != TIME_REQUEST || receiveBuffer.remaining() < 16) {
+            return;
+        }
+        receiveBuffer.getLong();
+        long requestNanos = receiveBuffer.getLong();
+        ByteBuffer reply = ByteBuffer.allocate(4 + 1 + 8 + 24);
+        reply.putInt(MAGIC).put(TIME_REPLY).putLong(epoch).putLong(requestNanos).putLong(receivedNanos).putLong(now());
+        reply.flip();
+        sendTo(reply, sender);
+        // A new follower gets all timers right away instead of with the next full sync
+        if (followers.put(sender, System.nanoTime()) == null) {
+            send(encodeAllStates(), List.of(sender));
+        }
+    }
+
+    private void sendTimeRequest() throws IOException {
+        ByteBuffer request = ByteBuffer.allocate(4 + 1 + 8 + 8);
+        request.putInt(MAGIC).put(TIME_REQUEST).putLong(epoch).putLong(now());
+        request.flip();
+        try {
+            channel.write(request);
+            sentDatagramCount.incrementAndGet();
+            sentBytes.addAndGet(request.limit());
+        } catch (PortUnreachableException e) {
+            // The leader is not running (yet)
+        }
+    }
+
+    private void handleFollowerDatagram() {
+        long receivedNanos = now();
+        byte type = receiveBuffer.get();
+        long leaderEpoch = receiveBuffer.getLong();
+        if (type == TIME_REPLY && receiveBuffer.remaining() >= 24) {
+            if (leaderEpoch != epoch) {
+                // A new leader, the samples of the old one do not apply
+                epoch = leaderEpoch;
+                sampleCount = 0;
+                synchronizedWithLeader = false;
+            }
+            long requestNanos = receiveBuffer.getLong();
+            long leaderReceivedNanos = receiveBuffer.getLong();
+            long leaderSentNanos = receiveBuffer.getLong();
+            addTimeSample(((leaderReceivedNanos - requestNanos) + (leaderSentNanos - receivedNanos)) / 2,
+                    (receivedNanos - requestNanos) - (leaderSentNanos - leaderReceivedNanos));
+        } else if (type == STATE && leaderEpoch == epoch && synchronizedWithLeader && receiveBuffer.remaining() >= 2) {
+            applyStates();
+        }
+    }
+
+    // Keep the offset of the sample with the shortest round trip, its delays on the way there and back can
+    // differ the least
+    private void addTimeSample(long offset, long roundTrip) {
+        offsetSamples[sampleCount % OFFSET_SAMPLES] = offset;
+        roundTripSamples[sampleCount % OFFSET_SAMPLES] = roundTrip;
+        sampleCount++;
+        int best = 0;
+        for (int i = 1; i < Math.min(sampleCount, OFFSET_SAMPLES); i++) {
+            if (roundTripSamples[i] < roundTripSamples[best]) {
+                best = i;
+            }
+        }
+        offsetNanos = offsetSamples[best];
+        roundTripNanos = roundTripSamples[best];
+        synchronizedWithLeader = true;
+    }
+
+    private void applyStates() {
+        int count = receiveBuffer.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            int id = receiveBuffer.getInt();
+            byte flags = receiveBuffer.get();
+            long baseMillis = receiveBuffer.getLong();
+            long anchorNanos = receiveBuffer.getLong();
+            byte[] nameBytes = new byte[receiveBuffer.get() & 0xFF];
+            receiveBuffer.get(nameBytes);
+            TimerModel replica = replicas.get(id);
+            if ((flags & REMOVED) != 0) {
+                if (replica != null) {
+                    replicas.remove(id);
+                    engine.removeTimer(replica);
+                }
+                continue;
+            }
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+            if (replica == null) {
+                replica = engine.createTimer(name);
+                replicas.put(id, replica);
+            } else if (!name.equals(replica.getName())) {
+                replica.setName(name);
+            }
+            // The anchor in the nanoTime of this JVM
+            long localAnchorNanos = anchorNanos - offsetNanos - clockSkewNanos;
+            if (replica.replicateState(baseMillis, localAnchorNanos, (flags & RUNNING) != 0, (flags & REVERSE) != 0)) {
+                appliedChangeCount.incrementAndGet();
+            }
+        }
+    }
+
+    private List<ByteBuffer> encodeAllStates() {
+        List<Integer> ids = timerIds(engine.getTimers());
+        ids.addAll(removedTimers.keySet());
+        return encodeStates(ids);
+    }
+
+    // Encode the records of the given timers into datagrams
+    private List<ByteBuffer> encodeStates(Collection<Integer> ids) {
+        List<ByteBuffer> datagrams = new ArrayList<>();
+        ByteBuffer datagram = null;
+        int count = 0;
+        for (int id : ids) {
+            TimerModel timer = engine.getTimer(id);
+            if (timer == null && !removedTimers.containsKey(id)) {
+                continue;
+            }
+            byte[] nameBytes = timer == null ? new byte[0] : nameBytes(timer.getName());
+            int recordBytes = 4 + 1 + 8 + 8 + 1 + nameBytes.length;
+            if (datagram == null || datagram.remaining() < recordBytes) {
+                finish(datagram, count, datagrams);
+                datagram = ByteBuffer.allocate(MAX_DATAGRAM_BYTES);
+                datagram.putInt(MAGIC).put(STATE).putLong(epoch).putShort((short) 0);
+                count = 0;
+            }
+            datagram.putInt(id);
+            if (timer == null) {
+                datagram.put(REMOVED).putLong(0).putLong(0);
+            } else {
+                // Read the state once, a concurrent start or reset must not be sent half applied
+                TimerState.Snapshot snapshot = timer.snapshot();
+                byte flags = (byte) ((snapshot.isRunning() ? RUNNING : 0) | (snapshot.isReverse() ? REVERSE : 0));
+                datagram.put(flags).putLong(snapshot.getBaseMillis()).putLong(snapshot.getAnchorNanos() + clockSkewNanos);
+            }
+            datagram.put((byte) nameBytes.length).put(nameBytes);
+            count++;
+        }
+        finish(datagram, count, datagrams);
+        return datagrams;
+    }
+
+    private static void finish(ByteBuffer datagram, int count, List<ByteBuffer> datagrams) {
+        if (datagram != null && count > 0) {
+            datagram.putShort(STATE_HEADER_BYTES - 2, (short) count);
+            datagram.flip();
+            datagrams.add(datagram);
+        }
+    }
+
+    // UTF-8 bytes of the name, cut at a character boundary to fit the length byte
+    private static byte[] nameBytes(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        int length = MAX_NAME_BYTES;
+        while ((bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] cut = new byte[length];
+        System.arraycopy(bytes, 0, cut, 0, length);
+        return cut;
+    }
+
+    private void send(List<ByteBuffer> datagrams, Collection<SocketAddress> targets) throws IOException {
+        for (SocketAddress target : targets) {
+            for (ByteBuffer datagram : datagrams) {
+                sendTo(datagram.duplicate(), target);
+            }
+        }
+    }
+
+    // A datagram that does not fit into the send buffer is dropped like one lost on the network
+    private void sendTo(ByteBuffer datagram, SocketAddress target) throws IOException {
+        int bytes = datagram.remaining();
+        if (channel.send(datagram, target) > 0) {
+            sentDatagramCount.incrementAndGet();
+            sentBytes.addAndGet(bytes);
+        }
+    }
+
+    private static List<Integer> timerIds(Collection<TimerModel> timers) {
+        List<Integer> ids = new ArrayList<>(timers.size());
+        for (TimerModel timer : timers) {
+            ids.add(timer.getId());
+        }
+        return ids;
+    }
+
+    private void closeChannel() {
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
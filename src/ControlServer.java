@@ -0,0 +1,528 @@
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local control API, so other programs can drive the timers of an engine without the UI.
+// Listens on a loopback TCP port or a Unix domain socket and speaks a line based text protocol, one command
+// per line, each answered in order with "OK [result]" or "ERR <message>":
+//   CREATE <name>                 -> OK <id>
+//   START <id>, PAUSE <id>, RESET <id>, REMOVE <id>
+//   SPLIT <id>                    -> OK <split millis>
+//   GET <id>                      -> OK <millis> RUNNING|PAUSED
+//   ALARM <id> <millis> [name]
+//   STATS <id>                    -> OK <laps> <last> <best> <worst> <mean> <stddev> <median> <p90> <p99>
+//   LIST                          -> OK <id> <id> ...
+//   SUBSCRIBE [TICKS], UNSUBSCRIBE
+//   WATCH <id>, UNWATCH <id>      the timer ticks every 10 ms while watched (see TimerModel.addViewer)
+// Subscribed connections also receive event lines: "EVENT START|PAUSE|RESET <id>", "EVENT SPLIT <id> <index>
+// <millis>", "EVENT ALARM <id> <millis> <alarm millis> <name>", with TICKS "EVENT TICK <id> <millis>", and
+// "EVENT DROPPED <count>" when events were dropped because the connection did not read them fast enough.
+// A single thread serves all connections with non-blocking NIO. Commands change the timers directly on that
+// thread, the TimerModel is thread-safe and the UI follows through its listeners without a round trip to the EDT.
+public class ControlServer implements TimerListener, AutoCloseable {
+
+    public static final int DEFAULT_PORT = 7070;
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final int INITIAL_OUTPUT_BYTES = 8 * 1024;
+    // Output buffered for a connection before it stops reading commands and its events are dropped
+    private static final int MAX_OUTPUT_BYTES = 4 * 1024 * 1024;
+
+    private final TimerEngine engine;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final SocketAddress localAddress;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Connections that receive events, and how many of them also want the ticks
+    private final Set<Connection> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger tickSubscriberCount = new AtomicInteger();
+    // Connections with events written by other threads, written to the channel by the selector thread
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeUpRequested = new AtomicBoolean();
+    private final AtomicLong commandCount = new AtomicLong();
+    private final AtomicLong droppedEventCount = new AtomicLong();
+
+    public ControlServer(TimerEngine engine, SocketAddress address) throws IOException {
+        this.engine = engine;
+        if (address instanceof UnixDomainSocketAddress unixAddress) {
+            deleteStaleSocket(unixAddress);
+            serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else if (address instanceof InetSocketAddress inetAddress && inetAddress.getAddress() != null
+                && inetAddress.getAddress().isLoopbackAddress()) {
+            serverChannel = ServerSocketChannel.open();
+        } else {
+            throw new IllegalArgumentException("The control server only listens on loopback addresses: " + address);
+        }
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        localAddress = serverChannel.getLocalAddress();
+        selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        engine.addTimerListener(this);
+        thread = new Thread(this::selectLoop, "control-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Parse an address like "7070", "localhost:7070" or "unix:/tmp/timer.sock", "true" is the default port
+    public static SocketAddress parseAddress(String address) {
+        if (address.isEmpty() || address.equalsIgnoreCase("true")) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), DEFAULT_PORT);
+        }
+        if (address.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+        }
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    // The bound address, e.g. with the port chosen by the system for port 0
+    public SocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    public long getCommandCount() {
+        return commandCount.get();
+    }
+
+    // Events not sent to a subscriber because it did not read them fast enough
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        engine.removeTimerListener(this);
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A socket file left behind by a crashed app would make the bind fail, a socket of a running app is kept
+    private static void deleteStaleSocket(UnixDomainSocketAddress address) throws IOException {
+        if (!Files.exists(address.getPath())) {
+            return;
+        }
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(address);
+        } catch (ConnectException e) {
+            Files.delete(address.getPath());
+            return;
+        }
+        channel.close();
+        throw new IOException("Another program listens on " + address.getPath());
+    }
+
+    // Runs on the server thread
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select();
+                wakeUpRequested.set(false);
+                Connection connection;
+                while ((connection = pendingWrites.poll()) != null) {
+                    connection.flushQuietly();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    } catch (IOException e) {
+                        // The client went away
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Control server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    connection.close();
+                }
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+                if (localAddress instanceof UnixDomainSocketAddress unixAddress) {
+                    Files.deleteIfExists(unixAddress.getPath());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+        }
+    }
+
+    // Send an event line to all subscribers, called on the thread that changed the timer
+    private void publish(String line, boolean tick) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        for (Connection connection : subscribers) {
+            if (!tick || connection.ticks) {
+                connection.sendEvent(bytes);
+            }
+        }
+    }
+
+    @Override
+    public void timerStarted(TimerModel timer) {
+        if (!subscribers.isEmpty()) {
+            publish("EVENT START " + timer.getId() + "\n", false);
+        }
+    }
+
+    @Override
+    public void timerPaused(TimerModel timer) {
+        if (!subscribers.isEmpty()) {
+            publish("EVENT PAUSE " + timer.getId() + "\n", false);
+        }
+    }
+
+    @Override
+    public void timerReset(TimerModel timer) {
+        if (!subscribers.isEmpty()) {
+            publish("EVENT RESET " + timer.getId() + "\n", false);
+        }
+    }
+
+    @Override
+    public void splitCreated(TimerModel timer, int index, long millis) {
+        if (!subscribers.isEmpty()) {
+            publish("EVENT SPLIT " + timer.getId() + " " + (index + 1) + " " + millis + "\n", false);
+        }
+    }
+
+    @Override
+    public void alarmReached(TimerModel timer, Alarm alarm) {
+        if (!subscribers.isEmpty()) {
+            String name = alarm.getName() == null ? "" : alarm.getName();
+            publish("EVENT ALARM " + timer.getId() + " " + timer.getMillis() + " " + alarm.getTotalMilliseconds()
+                    + " " + name + "\n", false);
+        }
+    }
+
+    @Override
+    public void timerTicked(TimerModel timer, long millis) {
+        if (tickSubscriberCount.get() > 0) {
+            publish("EVENT TICK " + timer.getId() + " " + millis + "\n", true);
+        }
+    }
+
+    // Execute one command line and return the reply without the line break, runs on the server thread
+    private String execute(Connection connection, String line) {
+        commandCount.incrementAndGet();
+        String[] parts = line.trim().split(" ", 3);
+        String command = parts[0].toUpperCase();
+        try {
+            switch (command) {
+                case "CREATE":
+                    if (parts.length < 2) {
+                        return "ERR missing timer name";
+                    }
+                    return "OK " + engine.createTimer(line.trim().substring(parts[0].length()).trim()).getId();
+                case "START":
+                    timer(parts).start();
+                    return "OK";
+                case "PAUSE":
+                    timer(parts).pause();
+                    return "OK";
+                case "RESET":
+                    timer(parts).reset();
+                    return "OK";
+                case "REMOVE":
+                    engine.removeTimer(timer(parts));
+                    return "OK";
+                case "SPLIT":
+                    return "OK " + timer(parts).split();
+                case "GET": {
+                    TimerState.Snapshot snapshot = timer(parts).snapshot();
+                    return "OK " + snapshot.getMillis(System.nanoTime()) + (snapshot.isRunning() ? " RUNNING" : " PAUSED");
+                }
+                case "ALARM":
+                    return addAlarm(timer(parts), parts);
+                case "STATS": {
+                    SplitStatistics.Summary statistics = timer(parts).getSplitStatistics();
+                    return "OK " + statistics.getLapCount() + " " + statistics.getLastLap() + " " + statistics.getBestLap()
+                            + " " + statistics.getWorstLap() + " " + Math.round(statistics.getMean())
+                            + " " + Math.round(statistics.getStandardDeviation()) + " " + statistics.getMedian()
+                            + " " + statistics.getP90() + " " + statistics.getP99();
+                }
+                case "LIST": {
+                    StringBuilder reply = new StringBuilder("OK");
+                    for (TimerModel timer : engine.getTimers()) {
+                        reply.append(' ').append(timer.getId());
+                    }
+                    return reply.toString();
+                }
+                case "SUBSCRIBE":
+                    connection.subscribe(parts.length > 1 && parts[1].equalsIgnoreCase("TICKS"));
+                    return "OK";
+                case "UNSUBSCRIBE":
+                    connection.unsubscribe();
+                    return "OK";
+                case "WATCH":
+                    connection.watch(timer(parts));
+                    return "OK";
+                case "UNWATCH":
+                    connection.unwatch(timer(parts));
+                    return "OK";
+                default:
+                    return "ERR unknown command " + parts[0];
+            }
+        } catch (NumberFormatException e) {
+            return "ERR invalid number in " + line;
+        } catch (IllegalArgumentException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    private TimerModel timer(String[] parts) {
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("missing timer id");
+        }
+        TimerModel timer = engine.getTimer(Integer.parseInt(parts[1]));
+        if (timer == null) {
+            throw new IllegalArgumentException("no timer " + parts[1]);
+        }
+        return timer;
+    }
+
+    // ALARM <id> <millis> [name], the name is "Alarm <n>:" like in the alarm manager if it is missing
+    private static String addAlarm(TimerModel timer, String[] parts) {
+        if (parts.length < 3) {
+            return "ERR missing alarm value";
+        }
+        String[] valueAndName = parts[2].split(" ", 2);
+        long millis = Long.parseLong(valueAndName[0]);
+        if (millis < 0) {
+            return "ERR negative alarm value";
+        }
+        Alarm alarm = new Alarm();
+        alarm.setTotalMilliseconds(millis);
+        alarm.setName(valueAndName.length > 1 ? valueAndName[1] : "Alarm " + (timer.getAlarmCount() + 1) + ":");
+        timer.addAlarm(alarm);
+        return "OK";
+    }
+
+    // A client connection, read and written by the server thread. Events of other threads are added to the
+    // output under the lock of the connection.
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer input = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        // Guarded by this: replies and events not written to the channel yet
+        private ByteBuffer output = ByteBuffer.allocate(INITIAL_OUTPUT_BYTES);
+        private long droppedEvents;
+        private boolean writeScheduled;
+        private volatile boolean ticks;
+        private boolean closed;
+        // Timers this connection is a viewer of, only used by the server thread
+        private final Set<TimerModel> watched = new HashSet<>();
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        // Execute the complete command lines received so far
+        void read() throws IOException {
+            if (channel.read(input) < 0) {
+                close();
+                return;
+            }
+            byte[] bytes = input.array();
+            int lineStart = 0;
+            for (int index = 0; index < input.position(); index++) {
+                if (bytes[index] == '\n') {
+                    int lineEnd = index > lineStart && bytes[index - 1] == '\r' ? index - 1 : index;
+                    String line = new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                    if (!line.isBlank()) {
+                        reply(execute(this, line));
+                    }
+                    lineStart = index + 1;
+                }
+            }
+            input.flip();
+            input.position(lineStart);
+            input.compact();
+            if (!input.hasRemaining()) {
+                // A line longer than the buffer is no command of this protocol
+                close();
+                return;
+            }
+            flush();
+        }
+
+        synchronized void reply(String line) {
+            // Replies are never dropped, a client that does not read them stops being read (see flush)
+            put((line + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Add an event to the output and let the server thread write it, called by any thread
+        void sendEvent(byte[] bytes) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (output.position() + bytes.length > MAX_OUTPUT_BYTES) {
+                    droppedEvents++;
+                    droppedEventCount.incrementAndGet();
+                    return;
+                }
+                if (droppedEvents > 0) {
+                    put(("EVENT DROPPED " + droppedEvents + "\n").getBytes(StandardCharsets.UTF_8));
+                    droppedEvents = 0;
+                }
+                put(bytes);
+                if (writeScheduled) {
+                    return;
+                }
+                writeScheduled = true;
+            }
+            pendingWrites.add(this);
+            if (wakeUpRequested.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+
+        // Must be called while holding the lock of the connection
+        private void put(byte[] bytes) {
+            if (output.remaining() < bytes.length) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(output.capacity() * 2, output.position() + bytes.length));
+                output.flip();
+                larger.put(output);
+                output = larger;
+            }
+            output.put(bytes);
+        }
+
+        // Write as much output as the channel takes, wait for OP_WRITE for the rest
+        synchronized void flush() throws IOException {
+            writeScheduled = false;
+            if (closed) {
+                return;
+            }
+            output.flip();
+            channel.write(output);
+            output.compact();
+            int interestOps = SelectionKey.OP_READ;
+            if (output.position() > 0) {
+                interestOps |= SelectionKey.OP_WRITE;
+            }
+            if (output.position() > MAX_OUTPUT_BYTES) {
+                // Stop reading commands until the client reads its replies
+                interestOps &= ~SelectionKey.OP_READ;
+            }
+            key.interestOps(interestOps);
+        }
+
+        void flushQuietly() {
+            try {
+                flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void subscribe(boolean withTicks) {
+            if (withTicks != ticks) {
+                tickSubscriberCount.addAndGet(withTicks ? 1 : -1);
+                ticks = withTicks;
+            }
+            subscribers.add(this);
+        }
+
+        void unsubscribe() {
+            if (subscribers.remove(this) && ticks) {
+                tickSubscriberCount.decrementAndGet();
+                ticks = false;
+            }
+        }
+
+        void watch(TimerModel timer) {
+            if (watched.add(timer)) {
+                timer.addViewer();
+            }
+        }
+
+        void unwatch(TimerModel timer) {
+            if (watched.remove(timer)) {
+                timer.removeViewer();
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            unsubscribe();
+            for (TimerModel timer : new ArrayList<>(watched)) {
+                unwatch(timer);
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
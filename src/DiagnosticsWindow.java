@@ -0,0 +1,137 @@
+import javax.swing.*;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Locale;
+
+// Window showing the TimerMetrics: the latency histograms of the scheduler, the EDT and the alarms, the
+// number of running timers and threads, and whether the machine is overloaded. Refreshed twice per second.
+public class DiagnosticsWindow extends JFrame {
+
+    private static final int REFRESH_INTERVAL_MS = 500;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final TimerMetrics metrics = TimerMetrics.getInstance();
+    private final HistogramTableModel tableModel = new HistogramTableModel();
+    private final JLabel startupLabel = new JLabel();
+    private final JLabel activeTimersLabel = new JLabel();
+    private final JLabel threadCountLabel = new JLabel();
+    private final JLabel wakeUpsLabel = new JLabel();
+    private final JLabel edtEventsLabel = new JLabel();
+    private final JLabel statusLabel = new JLabel();
+    private final Timer refreshTimer;
+
+    // Rows of the table, one per histogram of the metrics
+    private class HistogramTableModel extends AbstractTableModel {
+        private final String[] names = {
+                "Tick jitter", "Tick duration", "Start to first tick", "EDT queue latency", "Label update latency", "Alarm lateness"
+        };
+        private final LatencyHistogram[] histograms = {
+                metrics.getTickJitter(), metrics.getTickDuration(), metrics.getStartToFirstTick(),
+                metrics.getEdtQueueLatency(), metrics.getRenderLatency(), metrics.getAlarmLateness()
+        };
+
+        @Override
+        public int getRowCount() {
+            return names.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return PERCENTILES.length + 3;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            if (column == 0) {
+                return "Metric";
+            } else if (column == 1) {
+                return "Count";
+            } else if (column == getColumnCount() - 1) {
+                return "Max (ms)";
+            }
+            return "p" + formatPercentile(PERCENTILES[column - 2]) + " (ms)";
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            LatencyHistogram histogram = histograms[row];
+            if (column == 0) {
+                return names[row];
+            } else if (column == 1) {
+                return histogram.getCount();
+            } else if (column == getColumnCount() - 1) {
+                return formatMillis(histogram.getMax());
+            }
+            return formatMillis(histogram.getValueAtPercentile(PERCENTILES[column - 2]));
+        }
+    }
+
+    public DiagnosticsWindow() {
+        super("Diagnostics");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout());
+
+        JTable table = new JTable(tableModel);
+        table.setFillsViewportHeight(true);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JPanel statusPanel = new JPanel(new GridLayout(0, 1));
+        statusPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        statusPanel.add(startupLabel);
+        statusPanel.add(activeTimersLabel);
+        statusPanel.add(threadCountLabel);
+        statusPanel.add(wakeUpsLabel);
+        statusPanel.add(edtEventsLabel);
+        statusPanel.add(statusLabel);
+        add(statusPanel, BorderLayout.NORTH);
+
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+        add(resetButton, BorderLayout.SOUTH);
+
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                refreshTimer.stop();
+            }
+        });
+        refresh();
+        refreshTimer.start();
+
+        setSize(750, 320);
+        setLocationByPlatform(true);
+        setVisible(true);
+    }
+
+    private void refresh() {
+        startupLabel.setText("Time to first frame: " + metrics.getTimeToFirstFrameMillis() + " ms");
+        activeTimersLabel.setText("Running timers: " + metrics.getActiveTimers());
+        threadCountLabel.setText("Threads: " + metrics.getThreadCount());
+        wakeUpsLabel.setText("Scheduler wake-ups per second: " + metrics.getSchedulerWakeUpsPerSecond()
+                + " (" + metrics.getFullResolutionTimers() + " timers at full resolution)");
+        edtEventsLabel.setText("EDT events per second: " + RenderPipeline.getInstance().getEdtEventsPerSecond());
+        if (metrics.isOverloaded()) {
+            statusLabel.setText("Status: overloaded, ticks or UI updates are late");
+            statusLabel.setForeground(Color.RED);
+        } else {
+            statusLabel.setText("Status: OK");
+            statusLabel.setForeground(new Color(0, 128, 0));
+        }
+        tableModel.fireTableDataChanged();
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,421 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Streams the splits and reached alarms of all timers of an engine into rotating files for offline analysis.
+// The timer callbacks only put the event into a bounded queue and never wait: when the queue is full the
+// event is dropped and counted. A background thread encodes the events into a buffer and writes them to
+// FileChannels in batches, as CSV, as a compact binary format, or both. A file is closed and a new one is
+// started when it reaches the maximum size. EventLogReader reads both formats.
+public class EventExporter implements TimerListener, AutoCloseable {
+
+    public enum Format {
+        CSV(".csv"),
+        BINARY(".bin");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    public enum Type {
+        SPLIT,
+        ALARM
+    }
+
+    // A split or a reached alarm of a timer
+    public static final class Event {
+        private final Type type;
+        private final long epochMillis;
+        private final int timerId;
+        private final String timerName;
+        private final long timerMillis;
+        private final long detail;
+        private final String alarmName;
+
+        public Event(Type type, long epochMillis, int timerId, String timerName, long timerMillis, long detail,
+                     String alarmName) {
+            this.type = type;
+            this.epochMillis = epochMillis;
+            this.timerId = timerId;
+            this.timerName = timerName;
+            this.timerMillis = timerMillis;
+            this.detail = detail;
+            this.alarmName = alarmName;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        // Wall clock time of the event
+        public long getEpochMillis() {
+            return epochMillis;
+        }
+
+        public int getTimerId() {
+            return timerId;
+        }
+
+        public String getTimerName() {
+            return timerName;
+        }
+
+        // Timer value when the event happened
+        public long getTimerMillis() {
+            return timerMillis;
+        }
+
+        // Index of the split for SPLIT events, value of the alarm for ALARM events
+        public long getDetail() {
+            return detail;
+        }
+
+        // Name of the alarm, empty for SPLIT events
+        public String getAlarmName() {
+            return alarmName;
+        }
+    }
+
+    // Formats and parses the times of the CSV files like "2024-05-01T12:30:15.250Z" (UTC).
+    // The date and time part up to the seconds is cached, it only changes once per second.
+    static final class CsvTime {
+        private long cachedSecond = Long.MIN_VALUE;
+        private String cachedPrefix;
+        private String parsedPrefix = "";
+        private long parsedSecond;
+
+        void append(StringBuilder text, long epochMillis) {
+            long second = Math.floorDiv(epochMillis, 1000L);
+            if (second != cachedSecond) {
+                cachedSecond = second;
+                cachedPrefix = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC).format(PREFIX_FORMAT);
+            }
+            int millis = (int) Math.floorMod(epochMillis, 1000L);
+            text.append(cachedPrefix).append('.')
+                    .append((char) ('0' + millis / 100))
+                    .append((char) ('0' + millis / 10 % 10))
+                    .append((char) ('0' + millis % 10))
+                    .append('Z');
+        }
+
+        long parse(String time) {
+            if (time.length() != PREFIX_LENGTH + 5) {
+                // Not written by append, e.g. edited by hand
+                return Instant.parse(time).toEpochMilli();
+            }
+            if (!time.regionMatches(0, parsedPrefix, 0, PREFIX_LENGTH)) {
+                parsedPrefix = time.substring(0, PREFIX_LENGTH);
+                parsedSecond = LocalDateTime.parse(parsedPrefix, PREFIX_FORMAT).toEpochSecond(ZoneOffset.UTC);
+            }
+            int millis = (time.charAt(PREFIX_LENGTH + 1) - '0') * 100
+                    + (time.charAt(PREFIX_LENGTH + 2) - '0') * 10
+                    + (time.charAt(PREFIX_LENGTH + 3) - '0');
+            return parsedSecond * 1000L + millis;
+        }
+
+        private static final DateTimeFormatter PREFIX_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss");
+        private static final int PREFIX_LENGTH = 19;
+    }
+
+    // Header of the binary files, followed by the records
+    static final int BINARY_MAGIC = 0x54494d45; // "TIME"
+    static final int BINARY_VERSION = 1;
+    static final int BINARY_HEADER_BYTES = 8;
+    // Names are stored with a one byte length
+    static final int MAX_NAME_BYTES = 255;
+    // Type, wall time, timer id, timer value, detail and the two names
+    static final int MAX_RECORD_BYTES = 1 + 8 + 4 + 8 + 8 + 2 * (1 + MAX_NAME_BYTES);
+    static final String CSV_HEADER = "event,time,timer_id,timer_name,timer_millis,timer_value,split_number,alarm_name,alarm_millis\n";
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 65_536;
+    private static final long DEFAULT_MAX_FILE_BYTES = 64L * 1024 * 1024;
+    private static final int BUFFER_BYTES = 256 * 1024;
+    // Events written by the background thread in one batch
+    private static final int BATCH_SIZE = 4096;
+    // Buffered events are written at least this often when few events arrive
+    private static final long FLUSH_INTERVAL_MS = 200;
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final BlockingQueue<Event> queue;
+    private final List<EventFile> files = new ArrayList<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private TimerEngine engine;
+
+    private final AtomicLong exportedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public EventExporter(Path directory, Set<Format> formats) throws IOException {
+        this(directory, formats, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_FILE_BYTES);
+    }
+
+    public EventExporter(Path directory, Set<Format> formats, int queueCapacity, long maxFileBytes) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        for (Format format : formats) {
+            files.add(new EventFile(format));
+        }
+        writerThread = new Thread(this::writeLoop, "event-exporter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Default location of the exported files in the home directory of the user
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".ultimate-timer", "export");
+    }
+
+    // Parse a comma separated list of formats like "csv,binary"
+    public static Set<Format> parseFormats(String formats) {
+        Set<Format> result = EnumSet.noneOf(Format.class);
+        for (String format : formats.split(",")) {
+            if (!format.isBlank()) {
+                result.add(Format.valueOf(format.trim().toUpperCase()));
+            }
+        }
+        return result;
+    }
+
+    // Export the events of all current and future timers of the engine
+    public void attach(TimerEngine engine) {
+        this.engine = engine;
+        engine.addTimerListener(this);
+    }
+
+    @Override
+    public void splitCreated(TimerModel timer, int index, long millis) {
+        export(new Event(Type.SPLIT, System.currentTimeMillis(), timer.getId(), timer.getName(), millis, index, ""));
+    }
+
+    // Called on the scheduler thread, so it must never block
+    @Override
+    public void alarmReached(TimerModel timer, Alarm alarm) {
+        export(new Event(Type.ALARM, System.currentTimeMillis(), timer.getId(), timer.getName(), timer.getMillis(),
+                alarm.getTotalMilliseconds(), alarm.getName() == null ? "" : alarm.getName()));
+    }
+
+    // Queue an event for writing, drops it if the writer cannot keep up
+    public void export(Event event) {
+        if (!queue.offer(event)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    public long getExportedCount() {
+        return exportedCount.get();
+    }
+
+    // Number of events that were dropped because the queue was full
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    // Write the queued events and close the files
+    @Override
+    public void close() throws IOException {
+        if (engine != null) {
+            engine.removeTimerListener(this);
+        }
+        running = false;
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs on the writer thread
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (running || !queue.isEmpty()) {
+                Event first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                }
+                for (EventFile file : files) {
+                    for (Event event : batch) {
+                        file.append(event);
+                    }
+                    file.flush();
+                }
+                exportedCount.addAndGet(batch.size());
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Event export stopped: " + e.getMessage());
+        } finally {
+            for (EventFile file : files) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // The current file of one format, only used by the writer thread
+    private class EventFile {
+        private final Format format;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        // Reused for the text of a CSV line
+        private final StringBuilder line = new StringBuilder(256);
+        private final char[] timeChars = new char[TimeFormatter.MAX_LENGTH];
+        private final CsvTime csvTime = new CsvTime();
+        private FileChannel channel;
+        private long fileBytes;
+        private int fileNumber;
+
+        EventFile(Format format) {
+            this.format = format;
+        }
+
+        void append(Event event) throws IOException {
+            if (channel == null || fileBytes + buffer.position() >= maxFileBytes) {
+                rotate();
+            }
+            if (buffer.remaining() < MAX_RECORD_BYTES * 4) {
+                writeBuffer();
+            }
+            if (format == Format.CSV) {
+                appendCsv(event);
+            } else {
+                appendBinary(event);
+            }
+        }
+
+        private void appendBinary(Event event) {
+            buffer.put((byte) event.getType().ordinal());
+            buffer.putLong(event.getEpochMillis());
+            buffer.putInt(event.getTimerId());
+            buffer.putLong(event.getTimerMillis());
+            buffer.putLong(event.getDetail());
+            putName(event.getTimerName());
+            putName(event.getAlarmName());
+        }
+
+        private void putName(String name) {
+            byte[] bytes = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+            // Shorten long names by whole characters, so the stored bytes stay valid UTF-8
+            while (bytes.length > MAX_NAME_BYTES) {
+                name = name.substring(0, name.length() - 1);
+                bytes = name.getBytes(StandardCharsets.UTF_8);
+            }
+            buffer.put((byte) bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void appendCsv(Event event) throws IOException {
+            line.setLength(0);
+            line.append(event.getType().name().toLowerCase()).append(',');
+            csvTime.append(line, event.getEpochMillis());
+            line.append(',');
+            line.append(event.getTimerId()).append(',');
+            appendQuoted(event.getTimerName());
+            line.append(',').append(event.getTimerMillis()).append(',');
+            line.append(timeChars, 0, TimeFormatter.format(timeChars, event.getTimerMillis())).append(',');
+            if (event.getType() == Type.SPLIT) {
+                // Splits are numbered from 1 in the UI
+                line.append(event.getDetail() + 1).append(",,");
+            } else {
+                line.append(',');
+                appendQuoted(event.getAlarmName());
+                line.append(',').append(event.getDetail());
+            }
+            line.append('\n');
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > buffer.remaining()) {
+                writeBuffer();
+            }
+            if (bytes.length > buffer.remaining()) {
+                // Line with very long names, larger than the whole buffer
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    fileBytes += channel.write(large);
+                }
+                return;
+            }
+            buffer.put(bytes);
+        }
+
+        private void appendQuoted(String text) {
+            line.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        // Write the buffered events to the file, without forcing them to the disk
+        void flush() throws IOException {
+            if (channel != null) {
+                writeBuffer();
+            }
+        }
+
+        private void writeBuffer() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                fileBytes += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        // Close the current file and start the next one
+        private void rotate() throws IOException {
+            close();
+            fileNumber++;
+            String fileName = "events-" + LocalDateTime.now().format(FILE_TIME_FORMAT) + "-" + fileNumber + format.getExtension();
+            channel = FileChannel.open(directory.resolve(fileName), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            fileBytes = 0;
+            if (format == Format.CSV) {
+                buffer.put(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            } else {
+                buffer.putInt(BINARY_MAGIC).putInt(BINARY_VERSION);
+            }
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                writeBuffer();
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+}
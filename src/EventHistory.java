@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+// Rolling history of the state changes of all timers (and optionally every tick) in a memory-mapped file of a
+// fixed size, for looking at what the timers did before something went wrong.
+// The file is a ring of 64 byte records. Recording an event claims the next sequence number with one atomic add
+// and writes the record into its slot, without locks and without allocating, so it can run on the tick thread.
+// Each slot has a seqlock: a writer marks the sequence of the slot as being written with a compare-and-set, then
+// writes the record, then publishes the sequence. The mark makes the writer the only one of the slot: a writer
+// that was preempted for a whole cycle of the ring finds a newer sequence in its slot, or another writer still
+// writing it, and drops its record instead of interleaving with the other writer. Readers in this or another process (see
+// EventHistoryReader) copy a record and check that its sequence did not change, so they never see a torn record.
+// The mapped pages belong to the operating system, so the records survive a crash of the app (but not of the
+// machine, the file is not forced to the disk). Opening an existing history continues after its last record.
+public class EventHistory implements TimerListener, AutoCloseable {
+
+    public enum Type {
+        STARTED,
+        PAUSED,
+        RESET,
+        MODIFIED,
+        REVERSED,
+        TICK,
+        SPLIT,
+        ALARM
+    }
+
+    // Header of the file, followed by the records
+    static final int MAGIC = 0x54484953; // "THIS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    // Next sequence number to be claimed, every record before it was claimed by a writer
+    static final int NEXT_SEQUENCE_OFFSET = 16;
+
+    // A record is one cache line: sequence state, wall clock time, timer value, detail, timer id, type and name
+    static final int RECORD_BYTES = 64;
+    static final int SEQUENCE_OFFSET = 0;
+    static final int EPOCH_NANOS_OFFSET = 8;
+    static final int TIMER_MILLIS_OFFSET = 16;
+    static final int DETAIL_OFFSET = 24;
+    static final int TIMER_ID_OFFSET = 32;
+    static final int TYPE_OFFSET = 36;
+    static final int NAME_LENGTH_OFFSET = 37;
+    static final int NAME_OFFSET = 40;
+    // Names are cut to this many characters, other than ASCII stored as '?'
+    static final int MAX_NAME_BYTES = RECORD_BYTES - NAME_OFFSET;
+
+    // The file has a fixed byte order, so it can be read on any machine
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, BYTE_ORDER);
+
+    private static final int DEFAULT_CAPACITY = 262_144;
+
+    private final Path file;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean ticks;
+    // Wall clock time of the nanoTime origin, so a record gets its wall clock time without calling the system clock
+    private final long epochNanosAtOrigin;
+    private TimerEngine engine;
+
+    // History of the state changes in the given file, holding the last 262,144 events (16 MB)
+    public EventHistory(Path file, boolean ticks) throws IOException {
+        this(file, DEFAULT_CAPACITY, ticks);
+    }
+
+    // The capacity is the number of records kept and must be a power of two
+    public EventHistory(Path file, int capacity, boolean ticks) throws IOException {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.file = file;
+        this.capacity = capacity;
+        this.ticks = ticks;
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = HEADER_BYTES + (long) capacity * RECORD_BYTES;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(BYTE_ORDER);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != capacity
+                || buffer.getInt(12) != RECORD_BYTES || channel.size() != size) {
+            // New file or written with another layout, start an empty history
+            for (int i = 0; i < HEADER_BYTES; i += 8) {
+                buffer.putLong(i, 0);
+            }
+            for (long position = HEADER_BYTES; position < size; position += RECORD_BYTES) {
+                buffer.putLong((int) position + SEQUENCE_OFFSET, 0);
+            }
+            buffer.putInt(4, VERSION).putInt(8, capacity).putInt(12, RECORD_BYTES);
+            // The magic is written last, a file cut off while it was created is started again
+            LONGS.setRelease(buffer, NEXT_SEQUENCE_OFFSET, 0L);
+            buffer.putInt(0, MAGIC);
+        } else {
+            // A record a crashed app did not finish is dropped, otherwise its slot would stay marked as being written
+            for (long position = HEADER_BYTES; position < size; position += RECORD_BYTES) {
+                if ((buffer.getLong((int) position + SEQUENCE_OFFSET) & 1) == 1) {
+                    buffer.putLong((int) position + SEQUENCE_OFFSET, 0);
+                }
+            }
+        }
+        Instant now = Instant.now();
+        epochNanosAtOrigin = now.getEpochSecond() * 1_000_000_000L + now.getNano() - System.nanoTime();
+    }
+
+    // Default location of the history in the home directory of the user
+    public static Path defaultFile() {
+        return Path.of(System.getProperty("user.home"), ".ultimate-timer", "history.ring");
+    }
+
+    // Record the events of all current and future timers of the engine
+    public void attach(TimerEngine engine) {
+        this.engine = engine;
+        engine.addTimerListener(this);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Number of events recorded in this file so far, including the ones already overwritten
+    public long getRecordedCount() {
+        return (long) LONGS.getAcquire(buffer, NEXT_SEQUENCE_OFFSET);
+    }
+
+    @Override
+    public void timerStarted(TimerModel timer) {
+        record(Type.STARTED, timer, timer.getMillis(), 0);
+    }
+
+    @Override
+    public void timerPaused(TimerModel timer) {
+        record(Type.PAUSED, timer, timer.getMillis(), 0);
+    }
+
+    @Override
+    public void timerReset(TimerModel timer) {
+        record(Type.RESET, timer, timer.getMillis(), 0);
+    }
+
+    @Override
+    public void timerModified(TimerModel timer, long millis) {
+        record(Type.MODIFIED, timer, millis, 0);
+    }
+
+    @Override
+    public void reverseChanged(TimerModel timer, boolean reverse) {
+        record(Type.REVERSED, timer, timer.getMillis(), reverse ? 1 : 0);
+    }
+
+    @Override
+    public void timerTicked(TimerModel timer, long millis) {
+        if (ticks) {
+            record(Type.TICK, timer, millis, 0);
+        }
+    }
+
+    // The detail is the index of the split
+    @Override
+    public void splitCreated(TimerModel timer, int index, long millis) {
+        record(Type.SPLIT, timer, millis, index);
+    }
+
+    // The detail is the value of the alarm
+    @Override
+    public void alarmReached(TimerModel timer, Alarm alarm) {
+        record(Type.ALARM, timer, timer.getMillis(), alarm.getTotalMilliseconds());
+    }
+
+    // Write one event into the next slot of the ring, may be called from any thread
+    public void record(Type type, TimerModel timer, long timerMillis, long detail) {
+        long epochNanos = epochNanosAtOrigin + System.nanoTime();
+        long sequence = (long) LONGS.getAndAdd(buffer, NEXT_SEQUENCE_OFFSET, 1L);
+        int position = HEADER_BYTES + (int) (sequence & (capacity - 1)) * RECORD_BYTES;
+        // Odd while the record is written, see EventHistoryReader
+        long writing = sequence * 2 + 1;
+        long slotState;
+        do {
+            slotState = (long) LONGS.getVolatile(buffer, position + SEQUENCE_OFFSET);
+            // Only possible when the ring wrapped while this writer was preempted, the record is dropped
+            if (slotState >= writing || (slotState & 1) == 1) {
+                return;
+            }
+        } while (!LONGS.compareAndSet(buffer, position + SEQUENCE_OFFSET, slotState, writing));
+        buffer.putLong(position + EPOCH_NANOS_OFFSET, epochNanos);
+        buffer.putLong(position + TIMER_MILLIS_OFFSET, timerMillis);
+        buffer.putLong(position + DETAIL_OFFSET, detail);
+        buffer.putInt(position + TIMER_ID_OFFSET, timer.getId());
+        buffer.put(position + TYPE_OFFSET, (byte) type.ordinal());
+        String name = timer.getName();
+        int length = name == null ? 0 : Math.min(name.length(), MAX_NAME_BYTES);
+        buffer.put(position + NAME_LENGTH_OFFSET, (byte) length);
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            buffer.put(position + NAME_OFFSET + i, c < 128 ? (byte) c : (byte) '?');
+        }
+        LONGS.setRelease(buffer, position + SEQUENCE_OFFSET, sequence * 2 + 2);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (engine != null) {
+            engine.removeTimerListener(this);
+        }
+        channel.close();
+    }
+}
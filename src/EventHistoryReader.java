@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+// Reads the ring file of an EventHistory, also while the app is still writing it or after it crashed.
+// A record is only returned when its sequence was published before and after it was copied, so records that
+// are being written, were overwritten while they were read or were cut off by a crash are skipped.
+// Run with: java -cp out EventHistoryReader [--follow] [file]
+// Prints the events in the history (by default ~/.ultimate-timer/history.ring), with --follow it keeps printing
+// new events until it is stopped.
+public class EventHistoryReader implements AutoCloseable {
+
+    private static final long FOLLOW_INTERVAL_MS = 100;
+
+    // One record of the history, reused for every record so reading does not allocate
+    public static final class Entry {
+        private final byte[] nameBytes = new byte[EventHistory.MAX_NAME_BYTES];
+        private long sequence;
+        private EventHistory.Type type;
+        private long epochNanos;
+        private int timerId;
+        private int nameLength;
+        private long timerMillis;
+        private long detail;
+
+        // Position of the event in the history, counting all events ever recorded in the file
+        public long getSequence() {
+            return sequence;
+        }
+
+        public EventHistory.Type getType() {
+            return type;
+        }
+
+        // Wall clock time of the event in nanoseconds since the epoch
+        public long getEpochNanos() {
+            return epochNanos;
+        }
+
+        public int getTimerId() {
+            return timerId;
+        }
+
+        // Name of the timer when the event happened, cut to its first characters
+        public String getTimerName() {
+            return new String(nameBytes, 0, nameLength, StandardCharsets.US_ASCII);
+        }
+
+        public long getTimerMillis() {
+            return timerMillis;
+        }
+
+        // Index of the split for SPLIT events, value of the alarm for ALARM events, 1 for REVERSED events that
+        // made the timer count down
+        public long getDetail() {
+            return detail;
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final EventHistory.Type[] types = EventHistory.Type.values();
+
+    public EventHistoryReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(EventHistory.BYTE_ORDER);
+        if (channel.size() < EventHistory.HEADER_BYTES || buffer.getInt(0) != EventHistory.MAGIC
+                || buffer.getInt(4) != EventHistory.VERSION || buffer.getInt(12) != EventHistory.RECORD_BYTES
+                || Integer.bitCount(buffer.getInt(8)) != 1
+                || channel.size() < EventHistory.HEADER_BYTES + (long) buffer.getInt(8) * EventHistory.RECORD_BYTES) {
+            channel.close();
+            throw new IOException("Not an event history: " + file);
+        }
+        capacity = buffer.getInt(8);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean follow = false;
+        Path file = EventHistory.defaultFile();
+        for (String arg : args) {
+            if (arg.equals("--follow")) {
+                follow = true;
+            } else {
+                file = Path.of(arg);
+            }
+        }
+        StringBuilder line = new StringBuilder(128);
+        try (EventHistoryReader reader = new EventHistoryReader(file)) {
+            Consumer<Entry> printer = entry -> {
+                line.setLength(0);
+                long epochNanos = entry.getEpochNanos();
+                line.append(Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L)))
+                        .append(' ').append(entry.getSequence())
+                        .append(' ').append(entry.getType().name().toLowerCase())
+                        .append(' ').append(entry.getTimerId())
+                        .append(" \"").append(entry.getTimerName()).append("\" ")
+                        .append(TimeFormatter.format(entry.getTimerMillis()));
+                if (entry.getType() == EventHistory.Type.SPLIT) {
+                    line.append(" split ").append(entry.getDetail() + 1);
+                } else if (entry.getType() == EventHistory.Type.ALARM) {
+                    line.append(" alarm ").append(TimeFormatter.format(entry.getDetail()));
+                } else if (entry.getType() == EventHistory.Type.REVERSED) {
+                    line.append(entry.getDetail() == 1 ? " down" : " up");
+                }
+                System.out.println(line);
+            };
+            Entry entry = new Entry();
+            long next = reader.read(reader.getOldestSequence(), entry, printer);
+            while (follow) {
+                Thread.sleep(FOLLOW_INTERVAL_MS);
+                if (next < reader.getOldestSequence()) {
+                    System.out.println("... " + (reader.getOldestSequence() - next) + " events overwritten before they were read");
+                    next = reader.getOldestSequence();
+                }
+                next = reader.read(next, entry, printer);
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Sequence of the next event that will be recorded
+    public long getNextSequence() {
+        return (long) EventHistory.LONGS.getAcquire(buffer, EventHistory.NEXT_SEQUENCE_OFFSET);
+    }
+
+    // Sequence of the oldest event that is still in the ring
+    public long getOldestSequence() {
+        return Math.max(0, getNextSequence() - capacity);
+    }
+
+    // Pass the events from the given sequence up to the last recorded one to the consumer, in the order they
+    // were recorded. The entry is filled for every event and must not be kept. Returns the sequence to continue
+    // with.
+    public long read(long fromSequence, Entry entry, Consumer<Entry> consumer) {
+        long next = getNextSequence();
+        for (long sequence = Math.max(fromSequence, next - capacity); sequence < next; sequence++) {
+            if (read(sequence, entry)) {
+                consumer.accept(entry);
+            }
+        }
+        return next;
+    }
+
+    // Copy one record into the entry, false if it is not there or changed while it was copied
+    public boolean read(long sequence, Entry entry) {
+        int position = EventHistory.HEADER_BYTES + (int) (sequence & (capacity - 1)) * EventHistory.RECORD_BYTES;
+        long published = sequence * 2 + 2;
+        if ((long) EventHistory.LONGS.getAcquire(buffer, position + EventHistory.SEQUENCE_OFFSET) != published) {
+            return false;
+        }
+        int type = buffer.get(position + EventHistory.TYPE_OFFSET);
+        entry.epochNanos = buffer.getLong(position + EventHistory.EPOCH_NANOS_OFFSET);
+        entry.timerMillis = buffer.getLong(position + EventHistory.TIMER_MILLIS_OFFSET);
+        entry.detail = buffer.getLong(position + EventHistory.DETAIL_OFFSET);
+        entry.timerId = buffer.getInt(position + EventHistory.TIMER_ID_OFFSET);
+        entry.nameLength = Math.min(buffer.get(position + EventHistory.NAME_LENGTH_OFFSET) & 0xff, EventHistory.MAX_NAME_BYTES);
+        buffer.get(position + EventHistory.NAME_OFFSET, entry.nameBytes, 0, entry.nameLength);
+        VarHandle.loadLoadFence();
+        if ((long) EventHistory.LONGS.getAcquire(buffer, position + EventHistory.SEQUENCE_OFFSET) != published
+                || type < 0 || type >= types.length) {
+            return false;
+        }
+        entry.sequence = sequence;
+        entry.type = types[type];
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,225 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Reads the files written by the EventExporter and replays their events.
+// Binary files are memory mapped in large windows and decoded without copying the file, so files of
+// several GB are replayed at disk speed. A record cut off by a crash at the end of a file is ignored.
+// Run with: java -cp out EventLogReader [--csv] <file or directory>...
+// Without --csv a summary of the events is printed, with --csv all events are printed as CSV.
+public class EventLogReader {
+
+    // Size of the part of a binary file that is mapped at once
+    private static final long WINDOW_BYTES = 256L * 1024 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        boolean printCsv = false;
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--csv")) {
+                printCsv = true;
+            } else {
+                files.addAll(listEventFiles(Path.of(arg)));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: java EventLogReader [--csv] <file or directory>...");
+            System.exit(1);
+        }
+
+        if (printCsv) {
+            StringBuilder line = new StringBuilder(256);
+            EventExporter.CsvTime csvTime = new EventExporter.CsvTime();
+            System.out.print(EventExporter.CSV_HEADER);
+            for (Path file : files) {
+                read(file, event -> {
+                    line.setLength(0);
+                    line.append(event.getType().name().toLowerCase()).append(',');
+                    csvTime.append(line, event.getEpochMillis());
+                    line.append(',').append(event.getTimerId()).append(",\"").append(event.getTimerName().replace("\"", "\"\""))
+                            .append("\",").append(event.getTimerMillis()).append(',')
+                            .append(TimeFormatter.format(event.getTimerMillis())).append(',');
+                    if (event.getType() == EventExporter.Type.SPLIT) {
+                        line.append(event.getDetail() + 1).append(",,");
+                    } else {
+                        line.append(",\"").append(event.getAlarmName().replace("\"", "\"\"")).append("\",")
+                                .append(event.getDetail());
+                    }
+                    System.out.println(line);
+                });
+            }
+            return;
+        }
+
+        long[] counts = new long[EventExporter.Type.values().length];
+        long[] timeRange = {Long.MAX_VALUE, Long.MIN_VALUE};
+        long bytes = 0;
+        long startNanos = System.nanoTime();
+        for (Path file : files) {
+            bytes += Files.size(file);
+            read(file, event -> {
+                counts[event.getType().ordinal()]++;
+                timeRange[0] = Math.min(timeRange[0], event.getEpochMillis());
+                timeRange[1] = Math.max(timeRange[1], event.getEpochMillis());
+            });
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        System.out.println("Files:  " + files.size());
+        System.out.println("Splits: " + counts[EventExporter.Type.SPLIT.ordinal()]);
+        System.out.println("Alarms: " + counts[EventExporter.Type.ALARM.ordinal()]);
+        if (timeRange[0] <= timeRange[1]) {
+            System.out.println("From:   " + Instant.ofEpochMilli(timeRange[0]));
+            System.out.println("To:     " + Instant.ofEpochMilli(timeRange[1]));
+        }
+        System.out.printf("Read %.1f MB in %.3f s (%.1f MB/s)%n", bytes / 1e6, seconds, bytes / 1e6 / seconds);
+    }
+
+    // The exported files in the given directory ordered by name, or the given file itself
+    static List<Path> listEventFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("events-"))
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.endsWith(EventExporter.Format.CSV.getExtension())
+                                || name.endsWith(EventExporter.Format.BINARY.getExtension());
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // Replay all events of the file in the order they were written, returns the number of events
+    public static long read(Path file, Consumer<EventExporter.Event> consumer) throws IOException {
+        if (file.getFileName().toString().endsWith(EventExporter.Format.CSV.getExtension())) {
+            return readCsv(file, consumer);
+        }
+        return readBinary(file, consumer);
+    }
+
+    private static long readBinary(Path file, Consumer<EventExporter.Event> consumer) throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < EventExporter.BINARY_HEADER_BYTES) {
+                return 0;
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, EventExporter.BINARY_HEADER_BYTES);
+            if (header.getInt() != EventExporter.BINARY_MAGIC || header.getInt() != EventExporter.BINARY_VERSION) {
+                throw new IOException("Not an event file: " + file);
+            }
+            long position = EventExporter.BINARY_HEADER_BYTES;
+            EventExporter.Type[] types = EventExporter.Type.values();
+            while (position < size) {
+                long windowBytes = Math.min(WINDOW_BYTES, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowBytes);
+                boolean lastWindow = position + windowBytes == size;
+                // Records crossing the end of the window are read from the next window
+                while (window.remaining() >= EventExporter.MAX_RECORD_BYTES || (lastWindow && window.hasRemaining())) {
+                    int recordStart = window.position();
+                    EventExporter.Event event;
+                    try {
+                        int type = window.get();
+                        if (type < 0 || type >= types.length) {
+                            throw new IOException("Damaged event file " + file + " at byte " + (position + recordStart));
+                        }
+                        long epochMillis = window.getLong();
+                        int timerId = window.getInt();
+                        long timerMillis = window.getLong();
+                        long detail = window.getLong();
+                        String timerName = getName(window);
+                        String alarmName = getName(window);
+                        event = new EventExporter.Event(types[type], epochMillis, timerId, timerName, timerMillis, detail, alarmName);
+                    } catch (BufferUnderflowException e) {
+                        // Record cut off at the end of the file
+                        return count;
+                    }
+                    consumer.accept(event);
+                    count++;
+                }
+                position += window.position();
+            }
+        }
+        return count;
+    }
+
+    private static String getName(ByteBuffer buffer) {
+        int length = buffer.get() & 0xff;
+        if (length == 0) {
+            return "";
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readCsv(Path file, Consumer<EventExporter.Event> consumer) throws IOException {
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            // Skip the header
+            reader.readLine();
+            List<String> fields = new ArrayList<>();
+            EventExporter.CsvTime csvTime = new EventExporter.CsvTime();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                splitCsvLine(line, fields);
+                if (fields.size() != 9) {
+                    // Line cut off at the end of the file
+                    continue;
+                }
+                EventExporter.Type type = EventExporter.Type.valueOf(fields.get(0).toUpperCase());
+                long detail = type == EventExporter.Type.SPLIT
+                        ? Long.parseLong(fields.get(6)) - 1
+                        : Long.parseLong(fields.get(8));
+                consumer.accept(new EventExporter.Event(type, csvTime.parse(fields.get(1)),
+                        Integer.parseInt(fields.get(2)), fields.get(3), Long.parseLong(fields.get(4)), detail, fields.get(7)));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Split a CSV line into its fields, quoted fields may contain commas and doubled quotes
+    private static void splitCsvLine(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+    }
+}
@@ -0,0 +1,118 @@
+import java.lang.reflect.InvocationTargetException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs the callbacks of the timers (ticks and reached alarms) and the audio playback. The time is always kept
+// by the single scheduler thread, only the work done for the listeners is moved. Selected with -Dtimer.execution:
+//   inline    the callbacks run on the scheduler thread (default)
+//   platform  a shared pool of daemon platform threads, one per processor
+//   virtual   a virtual thread per task, needs Java 21 or newer, platform is used on older versions
+// Each timer gets its own serial executor, so its callbacks keep their order while different timers run in parallel.
+public class ExecutionBackend {
+
+    public enum Mode {
+        INLINE,
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private static final ExecutionBackend INSTANCE = new ExecutionBackend(System.getProperty("timer.execution", "inline"));
+
+    private final Mode mode;
+    // Null in the inline mode
+    private final ExecutorService executor;
+
+    // Runs tasks one after another in the order they were submitted, on any thread of the backend.
+    // Only one task of a serial executor runs at a time, the next one starts after it.
+    private static final class SerialExecutor implements Executor {
+        private final Executor backend;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private SerialExecutor(Executor backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            if (draining.compareAndSet(false, true)) {
+                backend.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        // A failing listener must not stop the other callbacks of the timer
+                        e.printStackTrace();
+                    }
+                }
+                draining.set(false);
+                // A task added after the queue was found empty but before draining was reset
+            } while (!tasks.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+
+    private ExecutionBackend(String mode) {
+        Mode requested;
+        try {
+            requested = Mode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown timer.execution mode " + mode + ", using inline");
+            requested = Mode.INLINE;
+        }
+        ExecutorService virtualExecutor = requested == Mode.VIRTUAL ? newVirtualThreadExecutor() : null;
+        if (requested == Mode.VIRTUAL && virtualExecutor == null) {
+            System.err.println("Virtual threads need Java 21 or newer, using platform threads");
+            requested = Mode.PLATFORM;
+        }
+        this.mode = requested;
+        if (requested == Mode.VIRTUAL) {
+            executor = virtualExecutor;
+        } else if (requested == Mode.PLATFORM) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "timer-callback-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            executor = null;
+        }
+    }
+
+    public static ExecutionBackend getInstance() {
+        return INSTANCE;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // Executor running its tasks in order, one at a time. Runs them directly on the calling thread in the inline mode.
+    public Executor newSerialExecutor() {
+        if (executor == null) {
+            return Runnable::run;
+        }
+        return new SerialExecutor(executor);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor is looked up at runtime, so the app still compiles and runs on Java 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+}
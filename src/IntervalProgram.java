@@ -0,0 +1,349 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Interval training program compiled into a table of phase deadlines, e.g.
+//   warmup 5m
+//   8 x {
+//     work 40s
+//     rest 20s
+//   }
+//   cooldown 3m
+// A phase is a name and a duration (1h, 5m, 40s, 250ms, combined like 1m30s, or 1:30 and 1:02:03). A block in
+// braces is repeated the given number of times and may contain phases and further blocks. Statements are
+// separated by new lines or ';', names with spaces are quoted, and '#' starts a comment.
+// Compiling flattens the repeats into arrays of the phase end times (timer values in milliseconds from 0), so
+// running the program only compares the timer value with the end of the current phase (see ProgramCursor).
+// Immutable and shared between threads.
+public class IntervalProgram {
+
+    // Repeats multiply, so a short text can describe more phases than fit into memory
+    public static final int MAX_PHASES = 10_000_000;
+
+    private final String source;
+    // End of every phase, ascending, the start of a phase is the end of the phase before it
+    private final long[] phaseEnds;
+    // Index of the name of every phase in names, so repeated phases share their name
+    private final int[] phaseNames;
+    private final String[] names;
+
+    private IntervalProgram(String source, long[] phaseEnds, int[] phaseNames, String[] names) {
+        this.source = source;
+        this.phaseEnds = phaseEnds;
+        this.phaseNames = phaseNames;
+        this.names = names;
+    }
+
+    // Parse and compile a program, throws an IllegalArgumentException with the line of the first error
+    public static IntervalProgram compile(String source) {
+        Compiler compiler = new Compiler(source);
+        compiler.compileProgram();
+        return new IntervalProgram(source, Arrays.copyOf(compiler.phaseEnds, compiler.phaseCount),
+                Arrays.copyOf(compiler.phaseNames, compiler.phaseCount), compiler.names.toArray(new String[0]));
+    }
+
+    // Text the program was compiled from
+    public String getSource() {
+        return source;
+    }
+
+    public int getPhaseCount() {
+        return phaseEnds.length;
+    }
+
+    public String getPhaseName(int phase) {
+        return names[phaseNames[phase]];
+    }
+
+    // Timer value at which the phase starts
+    public long getPhaseStart(int phase) {
+        return phase == 0 ? 0 : phaseEnds[phase - 1];
+    }
+
+    // Timer value at which the phase ends and the next one starts
+    public long getPhaseEnd(int phase) {
+        return phaseEnds[phase];
+    }
+
+    public long getTotalMillis() {
+        return phaseEnds.length == 0 ? 0 : phaseEnds[phaseEnds.length - 1];
+    }
+
+    // Phase running at the given timer value, getPhaseCount() after the end of the program
+    public int phaseAt(long millis) {
+        int low = 0;
+        int high = phaseEnds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (phaseEnds[middle] <= millis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Recursive descent over the tokens of the source, appending the phases to growing arrays
+    private static final class Compiler {
+        private final String source;
+        private int position;
+        private int line = 1;
+        private long[] phaseEnds = new long[64];
+        private int[] phaseNames = new int[64];
+        private int phaseCount;
+        private long totalMillis;
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> nameIndices = new HashMap<>();
+
+        Compiler(String source) {
+            this.source = source;
+        }
+
+        void compileProgram() {
+            compileBlock(false);
+            if (phaseCount == 0) {
+                throw error("the program has no phases");
+            }
+        }
+
+        // Statements up to the end of the source or the closing brace of the block
+        private void compileBlock(boolean nested) {
+            while (true) {
+                skipSeparators();
+                if (position >= source.length()) {
+                    if (nested) {
+                        throw error("missing '}'");
+                    }
+                    return;
+                }
+                if (source.charAt(position) == '}') {
+                    if (!nested) {
+                        throw error("unexpected '}'");
+                    }
+                    position++;
+                    return;
+                }
+                compileStatement();
+            }
+        }
+
+        // A phase "name duration" or a repeated block "count x { ... }"
+        private void compileStatement() {
+            int statementLine = line;
+            String first = word();
+            if (first.isEmpty()) {
+                throw error("expected a phase like 'work 40s' or a repeat like '8 x {'");
+            }
+            skipSpaces();
+            if (isRepeat(first)) {
+                int count = parseCount(first);
+                if (!first.endsWith("x")) {
+                    String times = word();
+                    if (!times.equals("x")) {
+                        throw error("expected 'x' after the repeat count");
+                    }
+                    skipSpaces();
+                }
+                skipLineBreaks();
+                if (position >= source.length() || source.charAt(position) != '{') {
+                    throw error("expected '{' after '" + count + " x'");
+                }
+                position++;
+                int firstPhase = phaseCount;
+                long blockStart = totalMillis;
+                compileBlock(true);
+                repeat(firstPhase, blockStart, count, statementLine);
+                return;
+            }
+            String duration = word();
+            if (duration.isEmpty()) {
+                throw error("expected a duration after '" + first + "'");
+            }
+            addPhase(first, parseDuration(duration));
+        }
+
+        // The block was compiled once, append its phases count - 1 more times
+        private void repeat(int firstPhase, long blockStart, int count, int statementLine) {
+            int blockPhases = phaseCount - firstPhase;
+            long blockMillis = totalMillis - blockStart;
+            if (count == 0) {
+                phaseCount = firstPhase;
+                totalMillis = blockStart;
+                return;
+            }
+            if ((long) blockPhases * count > MAX_PHASES - firstPhase) {
+                line = statementLine;
+                throw error("more than " + MAX_PHASES + " phases");
+            }
+            long endMillis;
+            try {
+                endMillis = Math.addExact(blockStart, Math.multiplyExact(blockMillis, count));
+            } catch (ArithmeticException e) {
+                line = statementLine;
+                throw error("the program is too long");
+            }
+            ensureCapacity(firstPhase + blockPhases * count);
+            for (int i = 1; i < count; i++) {
+                long offset = blockMillis * i;
+                for (int phase = firstPhase; phase < firstPhase + blockPhases; phase++) {
+                    phaseEnds[phaseCount] = phaseEnds[phase] + offset;
+                    phaseNames[phaseCount] = phaseNames[phase];
+                    phaseCount++;
+                }
+            }
+            totalMillis = endMillis;
+        }
+
+        private void addPhase(String name, long millis) {
+            if (phaseCount >= MAX_PHASES) {
+                throw error("more than " + MAX_PHASES + " phases");
+            }
+            ensureCapacity(phaseCount + 1);
+            Integer index = nameIndices.get(name);
+            if (index == null) {
+                index = names.size();
+                names.add(name);
+                nameIndices.put(name, index);
+            }
+            if (millis > Long.MAX_VALUE - totalMillis) {
+                throw error("the program is too long");
+            }
+            totalMillis += millis;
+            phaseEnds[phaseCount] = totalMillis;
+            phaseNames[phaseCount] = index;
+            phaseCount++;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > phaseEnds.length) {
+                int newCapacity = Math.max(capacity, phaseEnds.length * 2);
+                phaseEnds = Arrays.copyOf(phaseEnds, newCapacity);
+                phaseNames = Arrays.copyOf(phaseNames, newCapacity);
+            }
+        }
+
+        private static boolean isRepeat(String word) {
+            String count = word.endsWith("x") ? word.substring(0, word.length() - 1) : word;
+            return !count.isEmpty() && count.chars().allMatch(Character::isDigit);
+        }
+
+        private int parseCount(String word) {
+            String count = word.endsWith("x") ? word.substring(0, word.length() - 1) : word;
+            try {
+                return Integer.parseInt(count);
+            } catch (NumberFormatException e) {
+                throw error("repeat count too large: " + count);
+            }
+        }
+
+        // Durations like 1h, 5m, 40s, 250ms, 1m30s, 1:30 (minutes and seconds) or 1:02:03
+        private long parseDuration(String text) {
+            try {
+                if (text.indexOf(':') >= 0) {
+                    String[] parts = text.split(":", -1);
+                    if (parts.length > 3) {
+                        throw error("invalid duration '" + text + "'");
+                    }
+                    long minutes = Long.parseLong(parts[parts.length - 2]);
+                    if (parts.length == 3) {
+                        minutes = Math.addExact(minutes, Math.multiplyExact(Long.parseLong(parts[0]), 60));
+                    }
+                    long seconds = Math.round(Double.parseDouble(parts[parts.length - 1]) * 1000);
+                    return checkDuration(text, Math.addExact(Math.multiplyExact(minutes, 60_000), seconds));
+                }
+                long millis = 0;
+                int index = 0;
+                while (index < text.length()) {
+                    int numberStart = index;
+                    while (index < text.length() && (Character.isDigit(text.charAt(index)) || text.charAt(index) == '.')) {
+                        index++;
+                    }
+                    int unitStart = index;
+                    while (index < text.length() && Character.isLetter(text.charAt(index))) {
+                        index++;
+                    }
+                    if (numberStart == unitStart || unitStart == index) {
+                        throw error("invalid duration '" + text + "', use e.g. 40s, 5m, 1m30s or 1:30");
+                    }
+                    double value = Double.parseDouble(text.substring(numberStart, unitStart));
+                    long unitMillis = switch (text.substring(unitStart, index)) {
+                        case "h" -> 3_600_000;
+                        case "m", "min" -> 60_000;
+                        case "s" -> 1000;
+                        case "ms" -> 1;
+                        default -> throw error("unknown unit '" + text.substring(unitStart, index) + "' in '" + text + "'");
+                    };
+                    millis = Math.addExact(millis, Math.round(value * unitMillis));
+                }
+                return checkDuration(text, millis);
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw error("invalid duration '" + text + "'");
+            }
+        }
+
+        private long checkDuration(String text, long millis) {
+            if (millis < 0) {
+                throw error("invalid duration '" + text + "'");
+            }
+            return millis;
+        }
+
+        // Next word, a quoted name or the characters up to the next space, separator or brace
+        private String word() {
+            skipSpaces();
+            if (position < source.length() && source.charAt(position) == '"') {
+                int end = source.indexOf('"', position + 1);
+                if (end < 0 || source.indexOf('\n', position) >= 0 && source.indexOf('\n', position) < end) {
+                    throw error("missing closing '\"'");
+                }
+                String word = source.substring(position + 1, end);
+                position = end + 1;
+                return word;
+            }
+            int start = position;
+            while (position < source.length() && !isDelimiter(source.charAt(position))) {
+                position++;
+            }
+            return source.substring(start, position);
+        }
+
+        private static boolean isDelimiter(char c) {
+            return Character.isWhitespace(c) || c == ';' || c == '{' || c == '}' || c == '#';
+        }
+
+        private void skipSpaces() {
+            while (position < source.length() && source.charAt(position) != '\n' && Character.isWhitespace(source.charAt(position))) {
+                position++;
+            }
+            if (position < source.length() && source.charAt(position) == '#') {
+                while (position < source.length() && source.charAt(position) != '\n') {
+                    position++;
+                }
+            }
+        }
+
+        private void skipLineBreaks() {
+            skipSpaces();
+            while (position < source.length() && source.charAt(position) == '\n') {
+                position++;
+                line++;
+                skipSpaces();
+            }
+        }
+
+        private void skipSeparators() {
+            skipLineBreaks();
+            while (position < source.length() && source.charAt(position) == ';') {
+                position++;
+                skipLineBreaks();
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Line " + line + ": " + message);
+        }
+    }
+}
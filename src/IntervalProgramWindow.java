@@ -0,0 +1,101 @@
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+// Window for writing or loading the IntervalProgram of a timer. Loading compiles the text and shows the number of
+// phases and the total duration, or the line of the first error.
+public class IntervalProgramWindow extends JFrame {
+
+    private static final String EXAMPLE = """
+            # Phases are a name and a duration, blocks in braces are repeated
+            warmup 5m
+            8 x {
+              work 40s
+              rest 20s
+            }
+            cooldown 3m
+            """;
+
+    private final TimerModel timer;
+    private final JTextArea sourceArea;
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JCheckBox resetCheckbox = new JCheckBox("Reset the timer", true);
+
+    public IntervalProgramWindow(TimerModel timer) {
+        super("Program of " + timer.getName());
+        this.timer = timer;
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout());
+
+        IntervalProgram program = timer.getProgram();
+        sourceArea = new JTextArea(program == null ? EXAMPLE : program.getSource(), 16, 40);
+        sourceArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+        add(new JScrollPane(sourceArea), BorderLayout.CENTER);
+        if (program != null) {
+            statusLabel.setText(describe(program));
+        }
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        JButton openButton = new JButton("Open File...");
+        openButton.addActionListener(e -> openFile());
+        buttonPanel.add(openButton);
+        // The phases start at the timer value 0, so a new program usually starts with a reset timer
+        buttonPanel.add(resetCheckbox);
+        JButton loadButton = new JButton("Load");
+        loadButton.addActionListener(e -> load());
+        buttonPanel.add(loadButton);
+        JButton removeButton = new JButton("Remove Program");
+        removeButton.addActionListener(e -> {
+            timer.setProgram(null);
+            statusLabel.setText("No program");
+        });
+        buttonPanel.add(removeButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
+        southPanel.add(statusLabel, BorderLayout.NORTH);
+        southPanel.add(buttonPanel, BorderLayout.SOUTH);
+        add(southPanel, BorderLayout.SOUTH);
+
+        pack();
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    private void load() {
+        IntervalProgram program;
+        try {
+            program = IntervalProgram.compile(sourceArea.getText());
+        } catch (IllegalArgumentException e) {
+            statusLabel.setText(e.getMessage());
+            statusLabel.setForeground(Color.RED);
+            return;
+        }
+        if (resetCheckbox.isSelected()) {
+            timer.reset();
+        }
+        timer.setProgram(program);
+        statusLabel.setText(describe(program));
+        statusLabel.setForeground(UIManager.getColor("Label.foreground"));
+    }
+
+    private void openFile() {
+        JFileChooser fileChooser = new JFileChooser();
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            sourceArea.setText(Files.readString(fileChooser.getSelectedFile().toPath(), StandardCharsets.UTF_8));
+            sourceArea.setCaretPosition(0);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not read the file: " + e.getMessage(), "Program",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static String describe(IntervalProgram program) {
+        return program.getPhaseCount() + " phases, " + TimeFormatter.format(program.getTotalMillis());
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntToLongFunction;
+
+// Histogram of non-negative values (e.g. latencies in nanoseconds) with log-linear buckets like HdrHistogram.
+// Values below 128 are counted exactly, larger values in 64 buckets per power of two, so every recorded
+// value is known with a relative error below 1/64 (1.6%) using a fixed array of counters.
+// Recording is lock-free and can be done from any thread, reading gives an approximate view while recording.
+public class LatencyHistogram {
+
+    // Number of buckets per power of two
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below this are counted exactly
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    // Record a value, negative values are recorded as 0
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+        long max;
+        while (value > (max = maxValue.get()) && !maxValue.compareAndSet(max, value)) {
+            // Retry, another thread recorded a value at the same time
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalSum.get() / count;
+    }
+
+    // Value below which the given percentage (0 to 100) of the recorded values are, 0 if nothing was recorded
+    public long getValueAtPercentile(double percentile) {
+        return valueAtPercentile(counts::get, totalCount.get(), maxValue.get(), percentile);
+    }
+
+    // Add the count of every bucket to the given array of BUCKET_COUNT sums, returns the number of values added
+    long addCountsTo(long[] sums) {
+        long added = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            long count = counts.get(index);
+            sums[index] += count;
+            added += count;
+        }
+        return added;
+    }
+
+    static long valueAtPercentile(IntToLongFunction countOf, long count, long max, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            seen += countOf.applyAsLong(index);
+            if (seen >= rank) {
+                // The highest value of the bucket, but never more than the largest recorded value
+                return Math.min(highestValueOf(index), max);
+            }
+        }
+        return max;
+    }
+
+    // Remove all recorded values
+    public void reset() {
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            counts.set(index, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        // Keep the highest SUB_BUCKET_BITS + 1 bits of the value
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latency values of the last seconds, for telling whether the machine is overloaded now and not since the app
+// started. The window is a ring of LatencyHistograms, one per time slot: a value is recorded in the histogram of
+// the current slot, which is cleared when its slot comes around again, and percentiles are taken over the slots
+// inside the window. So old values stop counting without a reader having to reset anything.
+// A value recorded by another thread while its slot is being cleared may be lost, which the percentiles allow.
+public class LatencyWindow {
+
+    private final long slotNanos;
+    private final LatencyHistogram[] slots;
+    // Number of the time slot (nanoTime / slotNanos) each histogram holds the values of
+    private final AtomicLongArray slotNumbers;
+
+    // Values of the last windowNanos, dropped in slotCount steps
+    public LatencyWindow(long windowNanos, int slotCount) {
+        slotNanos = windowNanos / slotCount;
+        slots = new LatencyHistogram[slotCount];
+        slotNumbers = new AtomicLongArray(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new LatencyHistogram();
+            slotNumbers.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public void record(long value) {
+        record(value, System.nanoTime());
+    }
+
+    void record(long value, long nowNanos) {
+        long slotNumber = Math.floorDiv(nowNanos, slotNanos);
+        int index = (int) Math.floorMod(slotNumber, (long) slots.length);
+        long current = slotNumbers.get(index);
+        if (current < slotNumber && slotNumbers.compareAndSet(index, current, slotNumber)) {
+            // The slot held the values of an earlier round of the ring
+            slots[index].reset();
+        } else if (current > slotNumber) {
+            // Recorded with a time measured before the slot came around again
+            return;
+        }
+        slots[index].record(value);
+    }
+
+    // Value below which the given percentage of the values recorded in the window are, 0 if there are none
+    public long getValueAtPercentile(double percentile) {
+        return getValueAtPercentile(percentile, System.nanoTime());
+    }
+
+    long getValueAtPercentile(double percentile, long nowNanos) {
+        long newest = Math.floorDiv(nowNanos, slotNanos);
+        long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < slots.length; i++) {
+            long slotNumber = slotNumbers.get(i);
+            if (slotNumber > newest - slots.length && slotNumber <= newest) {
+                total += slots[i].addCountsTo(counts);
+                max = Math.max(max, slots[i].getMax());
+            }
+        }
+        return LatencyHistogram.valueAtPercentile(index -> counts[index], total, max, percentile);
+    }
+
+    // Remove all recorded values
+    public void reset() {
+        for (int i = 0; i < slots.length; i++) {
+            slotNumbers.set(i, Long.MIN_VALUE);
+            slots[i].reset();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+// Position of a timer in its IntervalProgram, the counterpart of the AlarmIndex for programs.
+// The cursor points to the running phase, so a tick only compares the timer value with the end of that phase and
+// moves on when it was passed: O(1) per tick and per phase change, no matter how many phases the program has.
+// Only a jump of the timer value (reset, modify) looks the phase up again, with a binary search.
+public class ProgramCursor {
+
+    // Called when the running phase changed by counting, with getPhaseCount() when the program ended
+    public interface PhaseListener {
+        void phaseChanged(int phase);
+    }
+
+    private final IntervalProgram program;
+    // Index of the running phase, getPhaseCount() after the end of the program
+    private int phase;
+    // Timer value of the last evaluation
+    private long lastMillis;
+    // Version of the timer state (see TimerState.Snapshot) the last value belongs to
+    private long version;
+
+    public ProgramCursor(IntervalProgram program, long millis, long stateVersion) {
+        this.program = program;
+        lastMillis = millis;
+        version = stateVersion;
+        phase = program.phaseAt(millis);
+    }
+
+    public IntervalProgram getProgram() {
+        return program;
+    }
+
+    public synchronized int getPhase() {
+        return phase;
+    }
+
+    // Move to a new timer value without notifying about the phases in between (reset, modify).
+    // A seek of a state version that was already seen is ignored, like AlarmIndex.seek.
+    public synchronized void seek(long millis, long stateVersion) {
+        if (stateVersion <= version) {
+            return;
+        }
+        version = stateVersion;
+        lastMillis = millis;
+        phase = program.phaseAt(millis);
+    }
+
+    // Step to the phase of the current value and notify the listener if it changed. Several phases passed by one
+    // tick (shorter than a tick, or a late tick) are reported once, as the phase the timer is in now.
+    public synchronized void advance(long currentMillis, long stateVersion, PhaseListener listener) {
+        if (stateVersion != version) {
+            seek(currentMillis, stateVersion);
+            return;
+        }
+        int previous = phase;
+        int count = program.getPhaseCount();
+        if (currentMillis > lastMillis) {
+            while (phase < count && program.getPhaseEnd(phase) <= currentMillis) {
+                phase++;
+            }
+        } else if (currentMillis < lastMillis) {
+            // Counting backwards runs the program in reverse
+            while (phase > 0 && program.getPhaseStart(phase) > currentMillis) {
+                phase--;
+            }
+        }
+        lastMillis = currentMillis;
+        if (phase != previous) {
+            listener.phaseChanged(phase);
+        }
+    }
+
+    // Milliseconds the timer has to count from the given value until the running phase ends in the given
+    // direction, Long.MAX_VALUE if no phase change is ahead
+    public synchronized long millisUntilPhaseChange(long currentMillis, boolean reverse) {
+        int count = program.getPhaseCount();
+        if (!reverse) {
+            return phase < count ? Math.max(0, program.getPhaseEnd(phase) - currentMillis) : Long.MAX_VALUE;
+        }
+        if (phase == 0) {
+            return Long.MAX_VALUE;
+        }
+        // The phase changes once the value is below its start
+        return Math.max(0, currentMillis - program.getPhaseStart(Math.min(phase, count)) + 1);
+    }
+}
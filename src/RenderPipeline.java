@@ -0,0 +1,129 @@
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Coalesces the UI updates of all timers into one Event Dispatch Thread (EDT) event per frame.
+// Timers mark themselves dirty from any thread, and once per frame every dirty component renders itself.
+// The frame rate is capped by the "timer.fps" system property (60 by default). The frame timer only runs while
+// something is dirty, so an idle app or one whose timers are all hidden does not wake up the EDT.
+public class RenderPipeline {
+
+    // Interface implemented by everything that can be rendered by the pipeline
+    public interface Renderable {
+        // Called on the EDT, returns false if the component could not be rendered yet (e.g. it is not visible)
+        // and should be tried again in the next frame
+        boolean render();
+    }
+
+    private static final int DEFAULT_FPS = 60;
+
+    private static RenderPipeline instance;
+
+    private final Set<Renderable> dirty = ConcurrentHashMap.newKeySet();
+    private final Timer frameTimer;
+    // True while the frame timer runs or is being started
+    private final AtomicBoolean frameScheduled = new AtomicBoolean();
+    // Number of EDT events posted by the timers and frames, used to compute the events per second
+    private final AtomicLong edtEvents = new AtomicLong();
+    // nanoTime when the first component became dirty since the last frame, 0 if none did
+    private final AtomicLong firstDirtyNanos = new AtomicLong();
+    private long lastRateEvents;
+    private long lastRateNanos = System.nanoTime();
+    private int edtEventsPerSecond;
+
+    private RenderPipeline(int framesPerSecond) {
+        frameTimer = new Timer(1000 / framesPerSecond, e -> renderFrame());
+        frameTimer.setCoalesce(true);
+    }
+
+    public static synchronized RenderPipeline getInstance() {
+        if (instance == null) {
+            instance = new RenderPipeline(Integer.getInteger("timer.fps", DEFAULT_FPS));
+        }
+        return instance;
+    }
+
+    // Request the given component to be rendered in the next frame, can be called from any thread
+    public void markDirty(Renderable renderable) {
+        dirty.add(renderable);
+        if (firstDirtyNanos.get() == 0) {
+            firstDirtyNanos.compareAndSet(0, System.nanoTime());
+        }
+        // The first dirty component starts the frames
+        if (!frameScheduled.get() && frameScheduled.compareAndSet(false, true)) {
+            frameTimer.start();
+        }
+    }
+
+    // Run a one-off task on the EDT, count it in the EDT event statistics and measure how long it waited
+    public void invokeLater(Runnable runnable) {
+        edtEvents.incrementAndGet();
+        long postedNanos = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            TimerMetrics.getInstance().recordEdtQueueLatency(System.nanoTime() - postedNanos);
+            runnable.run();
+        });
+    }
+
+    // Change the frame rate cap at runtime
+    public void setFramesPerSecond(int framesPerSecond) {
+        frameTimer.setDelay(1000 / framesPerSecond);
+        frameTimer.setInitialDelay(1000 / framesPerSecond);
+    }
+
+    // EDT events caused by the timers and frames so far, see getEdtEventsPerSecond
+    public long getEdtEventCount() {
+        return edtEvents.get();
+    }
+
+    // EDT events caused by the timers during the last full second
+    public synchronized int getEdtEventsPerSecond() {
+        long now = System.nanoTime();
+        long elapsedNanos = now - lastRateNanos;
+        if (elapsedNanos >= 1_000_000_000L) {
+            long events = edtEvents.get();
+            edtEventsPerSecond = (int) ((events - lastRateEvents) * 1_000_000_000L / elapsedNanos);
+            lastRateEvents = events;
+            lastRateNanos = now;
+        }
+        return edtEventsPerSecond;
+    }
+
+    private void renderFrame() {
+        edtEvents.incrementAndGet();
+        long firstDirty = firstDirtyNanos.getAndSet(0);
+        if (firstDirty != 0) {
+            TimerMetrics.getInstance().recordRenderLatency(System.nanoTime() - firstDirty);
+        }
+        List<Renderable> notRendered = new ArrayList<>();
+        Iterator<Renderable> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            Renderable renderable = iterator.next();
+            // Remove before rendering so that a change arriving during rendering marks it dirty again
+            iterator.remove();
+            if (!renderable.render()) {
+                notRendered.add(renderable);
+            }
+        }
+        // Components that could not be rendered yet are tried again in the next frame
+        dirty.addAll(notRendered);
+        if (dirty.isEmpty()) {
+            stopFrames();
+        }
+    }
+
+    // Stop the frame timer until the next component becomes dirty. A component marked dirty while stopping sees
+    // frameScheduled still set, so it is checked for after clearing the flag and the frames start again.
+    private void stopFrames() {
+        frameTimer.stop();
+        frameScheduled.set(false);
+        if (!dirty.isEmpty() && frameScheduled.compareAndSet(false, true)) {
+            frameTimer.start();
+        }
+    }
+}
@@ -0,0 +1,633 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Persists the timers of a TimerEngine so that they survive a restart of the app.
+// Every state change (start, pause, reset, modify, reverse, rename, group, split, alarm changes) is appended as a
+// record to a journal file. Records are collected in memory and written and fsynced in batches by a
+// background thread. The journal is regularly compacted into a snapshot of all timers.
+// Appending a record only holds the lock of the pending records (this). The files are written under their own
+// lock, so a timer callback never waits for an fsync or a compaction: flushing and compacting swap the pending
+// records for an empty buffer under the lock, and write, capture and fsync outside of it.
+// Records carry a CRC, so a record torn by a crash is detected and ignored on restore.
+// A change can end up both in a snapshot and in the journal after it, so records that are not idempotent
+// carry enough information to be skipped when they were already applied.
+public class SessionStore implements TimerListener, TimerEngine.Listener, AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x54494d53; // "TIMS"
+    private static final int JOURNAL_MAGIC = 0x54494d4a; // "TIMJ"
+    // Version 2 added the groups of the timers, version 3 the interval programs, version 4 the ids of the alarms,
+    // older files are still read
+    private static final int FORMAT_VERSION = 4;
+
+    // Record types of the journal
+    private static final byte RECORD_CREATE = 1;
+    private static final byte RECORD_REMOVE = 2;
+    private static final byte RECORD_NAME = 3;
+    private static final byte RECORD_STATE = 4;
+    private static final byte RECORD_SPLIT = 5;
+    private static final byte RECORD_SPLITS_REMOVED = 6;
+    private static final byte RECORD_SPLITS_CLEARED = 7;
+    // All alarms of a timer, only written up to version 3, newer journals have a record per changed alarm
+    private static final byte RECORD_ALARMS = 8;
+    private static final byte RECORD_GROUP = 9;
+    private static final byte RECORD_PROGRAM = 10;
+    private static final byte RECORD_ALARM_ADDED = 11;
+    private static final byte RECORD_ALARM_EDITED = 12;
+    private static final byte RECORD_ALARM_REMOVED = 13;
+
+    // Longer records can only be the result of a damaged journal
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final long FLUSH_INTERVAL_MS = 200;
+    private static final long COMPACT_INTERVAL_MS = 60_000;
+    // Compact earlier when the journal grows beyond this size
+    private static final long MAX_JOURNAL_BYTES = 16L * 1024 * 1024;
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final ScheduledExecutorService writer;
+    // Guards the files, the journal channel and the generation. Taken before this, never while holding this.
+    private final Object fileLock = new Object();
+    private TimerEngine engine;
+    private FileChannel journalChannel;
+    // Generation of the current snapshot, the journal is only valid for the snapshot of the same generation
+    private long generation;
+    // Records that are not yet written to the journal, guarded by this
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    // Data of the record that is currently written
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private final CRC32 crc = new CRC32();
+
+    public SessionStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        snapshotFile = directory.resolve("session.snapshot");
+        journalFile = directory.resolve("session.journal");
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Default location of the session files in the home directory of the user
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".ultimate-timer");
+    }
+
+    // Restore the timers of the last session into the engine and start journaling its changes.
+    // Must be called once, before the engine is used by anything else.
+    public void open(TimerEngine engine) throws IOException {
+        this.engine = engine;
+        Map<Integer, TimerModel> restored = new HashMap<>();
+        // Restored alarms by their id in the files
+        Map<Long, Alarm> restoredAlarms = new HashMap<>();
+        readSnapshot(engine, restored, restoredAlarms);
+        readJournal(engine, restored, restoredAlarms);
+
+        // The restored timers got new ids, so the old files are replaced with a snapshot of the new ids
+        synchronized (fileLock) {
+            writeSnapshot(captureSnapshot());
+        }
+        engine.addListener(this);
+        engine.addTimerListener(this);
+
+        writer.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        writer.scheduleWithFixedDelay(this::compactQuietly, COMPACT_INTERVAL_MS, COMPACT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Write and fsync all pending records, then stop the background writer
+    @Override
+    public void close() throws IOException {
+        engine.removeListener(this);
+        engine.removeTimerListener(this);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (fileLock) {
+            flush();
+            journalChannel.close();
+        }
+    }
+
+    // Replace the snapshot with the current state of all timers and start a new, empty journal.
+    // The pending records are swapped out before the timers are captured: a record in them describes a change
+    // made before the capture, so it is in the snapshot, and every later record goes to the new journal. A change
+    // captured and recorded after the swap is in both, which restoring allows (see the class comment). The
+    // records before the swap still go to the old journal, so a crash before the new snapshot replaces the old
+    // one keeps the old files complete.
+    public void compact() throws IOException {
+        synchronized (fileLock) {
+            ByteArrayOutputStream recordsBefore;
+            synchronized (this) {
+                recordsBefore = pending;
+                pending = new ByteArrayOutputStream();
+            }
+            writeToJournal(recordsBefore);
+            writeSnapshot(captureSnapshot());
+        }
+    }
+
+    // --- Journaling of the engine and timer callbacks ---
+
+    // Interface for writing the data of a journal record
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @Override
+    public void timerAdded(TimerModel timer) {
+        append(RECORD_CREATE, timer, out -> out.writeUTF(timer.getName()));
+        // A timer can be created with an initial state by the one who created it
+        append(RECORD_STATE, timer, out -> writeState(out, timer));
+    }
+
+    @Override
+    public void timerRemoved(TimerModel timer) {
+        append(RECORD_REMOVE, timer, out -> {
+        });
+    }
+
+    @Override
+    public void nameChanged(TimerModel timer, String name) {
+        append(RECORD_NAME, timer, out -> out.writeUTF(name));
+    }
+
+    // Groups are stored with their members, so a group without timers is not restored
+    @Override
+    public void groupChanged(TimerModel timer, TimerGroup group) {
+        append(RECORD_GROUP, timer, out -> writeGroup(out, group));
+    }
+
+    // The value of a running timer is stored together with the wall clock time, so the time that passed
+    // while the app was closed can be added on restore
+    @Override
+    public void timerStarted(TimerModel timer) {
+        append(RECORD_STATE, timer, out -> writeState(out, timer));
+    }
+
+    @Override
+    public void timerPaused(TimerModel timer) {
+        append(RECORD_STATE, timer, out -> writeState(out, timer));
+    }
+
+    @Override
+    public void timerReset(TimerModel timer) {
+        append(RECORD_STATE, timer, out -> writeState(out, timer));
+    }
+
+    @Override
+    public void timerModified(TimerModel timer, long millis) {
+        append(RECORD_STATE, timer, out -> writeState(out, timer));
+    }
+
+    @Override
+    public void reverseChanged(TimerModel timer, boolean reverse) {
+        append(RECORD_STATE, timer, out -> writeState(out, timer));
+    }
+
+    @Override
+    public void splitCreated(TimerModel timer, int index, long millis) {
+        append(RECORD_SPLIT, timer, out -> {
+            out.writeInt(index);
+            out.writeLong(millis);
+        });
+    }
+
+    @Override
+    public void splitsRemoved(TimerModel timer, int[] indices) {
+        append(RECORD_SPLITS_REMOVED, timer, out -> {
+            // Number of splits after the removal
+            out.writeInt(timer.getSplitCount());
+            out.writeInt(indices.length);
+            for (int index : indices) {
+                out.writeInt(index);
+            }
+        });
+    }
+
+    @Override
+    public void splitsCleared(TimerModel timer) {
+        append(RECORD_SPLITS_CLEARED, timer, out -> {
+        });
+    }
+
+    // Alarms are journaled one by one with their id, so editing one alarm of a timer with 10k alarms does not
+    // write all of them. Only the snapshot contains the complete alarm lists.
+    @Override
+    public void alarmAdded(TimerModel timer, Alarm alarm) {
+        append(RECORD_ALARM_ADDED, timer, out -> writeAlarm(out, alarm));
+    }
+
+    @Override
+    public void alarmEdited(TimerModel timer, Alarm alarm) {
+        append(RECORD_ALARM_EDITED, timer, out -> writeAlarm(out, alarm));
+    }
+
+    @Override
+    public void alarmRemoved(TimerModel timer, Alarm alarm) {
+        append(RECORD_ALARM_REMOVED, timer, out -> out.writeLong(alarm.getId()));
+    }
+
+    @Override
+    public void programChanged(TimerModel timer, IntervalProgram program) {
+        append(RECORD_PROGRAM, timer, out -> writeProgram(out, program));
+    }
+
+    // Append a record as [length][crc][type, timer id, data] to the pending records
+    private synchronized void append(byte type, TimerModel timer, RecordWriter recordWriter) {
+        try {
+            recordBytes.reset();
+            record.writeByte(type);
+            record.writeInt(timer.getId());
+            recordWriter.write(record);
+
+            byte[] bytes = recordBytes.toByteArray();
+            crc.reset();
+            crc.update(bytes);
+            DataOutputStream out = new DataOutputStream(pending);
+            out.writeInt(bytes.length);
+            out.writeInt((int) crc.getValue());
+            out.write(bytes);
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // --- Writing the files ---
+
+    private void flushQuietly() {
+        try {
+            boolean compactNow;
+            synchronized (fileLock) {
+                flush();
+                compactNow = journalChannel.size() > MAX_JOURNAL_BYTES;
+            }
+            if (compactNow) {
+                compact();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Write the pending records to the journal and fsync it, must hold the file lock. Appending only waits for
+    // swapping the buffer, not for the write.
+    private void flush() throws IOException {
+        ByteArrayOutputStream records;
+        synchronized (this) {
+            if (pending.size() == 0) {
+                return;
+            }
+            records = pending;
+            pending = new ByteArrayOutputStream();
+        }
+        writeToJournal(records);
+    }
+
+    // Must hold the file lock
+    private void writeToJournal(ByteArrayOutputStream records) throws IOException {
+        if (records.size() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+        while (buffer.hasRemaining()) {
+            journalChannel.write(buffer);
+        }
+        journalChannel.force(false);
+    }
+
+    // The state of all timers in the layout of the snapshot file after its header
+    private byte[] captureSnapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        List<TimerModel> timers = new ArrayList<>(engine.getTimers());
+        out.writeInt(timers.size());
+        for (TimerModel timer : timers) {
+            out.writeInt(timer.getId());
+            out.writeUTF(timer.getName());
+            writeState(out, timer);
+            long[] splits = timer.getSplits();
+            out.writeInt(splits.length);
+            for (long split : splits) {
+                out.writeLong(split);
+            }
+            writeAlarms(out, timer);
+            writeGroup(out, timer.getGroup());
+            writeProgram(out, timer.getProgram());
+        }
+        return bytes.toByteArray();
+    }
+
+    // Write a captured snapshot with the next generation and start a new journal for it, must hold the file lock
+    private void writeSnapshot(byte[] timers) throws IOException {
+        long newGeneration = generation + 1;
+        Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temporaryFile.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(newGeneration);
+            out.write(timers);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        // The snapshot replaces the old one atomically, a crash before this line keeps the old files valid
+        Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = newGeneration;
+
+        // A crash before the new journal is written leaves a journal of the old generation, which is ignored
+        if (journalChannel != null) {
+            journalChannel.close();
+        }
+        journalChannel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(16);
+        header.putInt(JOURNAL_MAGIC).putInt(FORMAT_VERSION).putLong(generation).flip();
+        journalChannel.write(header);
+        journalChannel.force(true);
+    }
+
+    private static void writeState(DataOutputStream out, TimerModel timer) throws IOException {
+        // Read the state once, a concurrent start or reset must not be recorded half applied
+        TimerState.Snapshot snapshot = timer.snapshot();
+        out.writeLong(snapshot.getMillis(System.nanoTime()));
+        out.writeBoolean(snapshot.isRunning());
+        out.writeBoolean(snapshot.isReverse());
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    private static void writeGroup(DataOutputStream out, TimerGroup group) throws IOException {
+        out.writeUTF(group == null ? "" : group.getName());
+    }
+
+    private static void readGroup(DataInputStream in, TimerEngine engine, TimerModel timer) throws IOException {
+        String groupName = in.readUTF();
+        if (groupName.isEmpty()) {
+            TimerGroup group = timer.getGroup();
+            if (group != null) {
+                group.remove(timer);
+            }
+        } else {
+            engine.createGroup(groupName).add(timer);
+        }
+    }
+
+    // The source of the program is stored and compiled again on restore, an empty source means no program
+    private static void writeProgram(DataOutputStream out, IntervalProgram program) throws IOException {
+        byte[] source = program == null ? new byte[0] : program.getSource().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(source.length);
+        out.write(source);
+    }
+
+    private static void readProgram(DataInputStream in, TimerModel timer) throws IOException {
+        byte[] source = new byte[in.readInt()];
+        in.readFully(source);
+        try {
+            timer.setProgram(source.length == 0 ? null : IntervalProgram.compile(new String(source, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring the saved program of " + timer.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isSupportedVersion(int version) {
+        return version >= 1 && version <= FORMAT_VERSION;
+    }
+
+    private static void writeAlarms(DataOutputStream out, TimerModel timer) throws IOException {
+        List<Alarm> alarms = timer.getAlarms();
+        out.writeInt(alarms.size());
+        for (Alarm alarm : alarms) {
+            writeAlarm(out, alarm);
+        }
+    }
+
+    // The id is the one of this run of the app, it only connects the journal records with the alarms of the
+    // snapshot. Restored alarms get new ids, and open writes a snapshot with them.
+    private static void writeAlarm(DataOutputStream out, Alarm alarm) throws IOException {
+        out.writeLong(alarm.getId());
+        out.writeUTF(alarm.getName() == null ? "" : alarm.getName());
+        out.writeLong(alarm.getTotalMilliseconds());
+    }
+
+    // --- Restoring ---
+
+    private void readSnapshot(TimerEngine engine, Map<Integer, TimerModel> restored, Map<Long, Alarm> restoredAlarms)
+            throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != SNAPSHOT_MAGIC || !isSupportedVersion(version)) {
+                System.err.println("Ignoring session snapshot with unknown format: " + snapshotFile);
+                return;
+            }
+            generation = in.readLong();
+            int timerCount = in.readInt();
+            for (int i = 0; i < timerCount; i++) {
+                int id = in.readInt();
+                TimerModel timer = engine.createTimer(in.readUTF());
+                restored.put(id, timer);
+                readState(in, timer);
+                int splitCount = in.readInt();
+                for (int j = 0; j < splitCount; j++) {
+                    timer.addSplit(in.readLong());
+                }
+                timer.addAlarms(readAlarms(in, version >= 4 ? restoredAlarms : null));
+                if (version >= 2) {
+                    readGroup(in, engine, timer);
+                }
+                if (version >= 3) {
+                    readProgram(in, timer);
+                }
+            }
+        }
+    }
+
+    private void readJournal(TimerEngine engine, Map<Integer, TimerModel> restored, Map<Long, Alarm> restoredAlarms)
+            throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile), 1 << 16))) {
+            if (in.readInt() != JOURNAL_MAGIC || !isSupportedVersion(in.readInt()) || in.readLong() != generation) {
+                // Journal of an older snapshot, its changes are already part of the snapshot
+                return;
+            }
+            CRC32 recordCrc = new CRC32();
+            while (true) {
+                byte[] bytes;
+                try {
+                    int length = in.readInt();
+                    int expectedCrc = in.readInt();
+                    if (length < 0 || length > MAX_RECORD_BYTES) {
+                        System.err.println("Session journal is damaged, ignoring the remaining records");
+                        return;
+                    }
+                    bytes = new byte[length];
+                    in.readFully(bytes);
+                    recordCrc.reset();
+                    recordCrc.update(bytes);
+                    if ((int) recordCrc.getValue() != expectedCrc) {
+                        System.err.println("Session journal is damaged, ignoring the remaining records");
+                        return;
+                    }
+                } catch (EOFException e) {
+                    // End of the journal, or a record torn by a crash
+                    return;
+                }
+                applyRecord(new DataInputStream(new ByteArrayInputStream(bytes)), engine, restored, restoredAlarms);
+            }
+        }
+    }
+
+    private void applyRecord(DataInputStream in, TimerEngine engine, Map<Integer, TimerModel> restored,
+                             Map<Long, Alarm> restoredAlarms) throws IOException {
+        byte type = in.readByte();
+        int id = in.readInt();
+        if (type == RECORD_CREATE) {
+            if (!restored.containsKey(id)) {
+                restored.put(id, engine.createTimer(in.readUTF()));
+            }
+            return;
+        }
+        TimerModel timer = restored.get(id);
+        if (timer == null) {
+            return;
+        }
+        switch (type) {
+            case RECORD_REMOVE -> {
+                engine.removeTimer(timer);
+                restored.remove(id);
+            }
+            case RECORD_NAME -> timer.setName(in.readUTF());
+            case RECORD_STATE -> readState(in, timer);
+            case RECORD_SPLIT -> {
+                int index = in.readInt();
+                long millis = in.readLong();
+                if (index == timer.getSplitCount()) {
+                    timer.addSplit(millis);
+                }
+            }
+            case RECORD_SPLITS_REMOVED -> {
+                int countAfterRemoval = in.readInt();
+                int[] indices = new int[in.readInt()];
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = in.readInt();
+                }
+                if (timer.getSplitCount() == countAfterRemoval + indices.length) {
+                    timer.removeSplits(indices);
+                }
+            }
+            case RECORD_SPLITS_CLEARED -> timer.clearSplits();
+            case RECORD_ALARMS -> {
+                timer.removeAlarms(timer.getAlarms());
+                timer.addAlarms(readAlarms(in, null));
+            }
+            case RECORD_ALARM_ADDED -> {
+                long alarmId = in.readLong();
+                String name = in.readUTF();
+                long millis = in.readLong();
+                // The alarm is already in the snapshot if it was added while the snapshot was captured
+                Alarm alarm = restoredAlarms.get(alarmId);
+                if (alarm != null && timer.getAlarm(alarm.getId()) == alarm) {
+                    editAlarm(timer, alarm, name, millis);
+                } else {
+                    alarm = new Alarm();
+                    setAlarm(alarm, name, millis);
+                    restoredAlarms.put(alarmId, alarm);
+                    timer.addAlarm(alarm);
+                }
+            }
+            case RECORD_ALARM_EDITED -> {
+                Alarm alarm = restoredAlarms.get(in.readLong());
+                String name = in.readUTF();
+                long millis = in.readLong();
+                if (alarm != null && timer.getAlarm(alarm.getId()) == alarm) {
+                    editAlarm(timer, alarm, name, millis);
+                }
+            }
+            case RECORD_ALARM_REMOVED -> {
+                Alarm alarm = restoredAlarms.remove(in.readLong());
+                if (alarm != null) {
+                    timer.removeAlarm(alarm.getId());
+                }
+            }
+            case RECORD_GROUP -> readGroup(in, engine, timer);
+            case RECORD_PROGRAM -> readProgram(in, timer);
+            default -> System.err.println("Ignoring unknown session record type " + type);
+        }
+    }
+
+    private static void readState(DataInputStream in, TimerModel timer) throws IOException {
+        long millis = in.readLong();
+        boolean running = in.readBoolean();
+        boolean reverse = in.readBoolean();
+        long wallMillis = in.readLong();
+        if (running) {
+            // Add the time that passed since the state was written, including the time the app was closed
+            long elapsedMillis = Math.max(0, System.currentTimeMillis() - wallMillis);
+            millis = reverse ? millis - elapsedMillis : millis + elapsedMillis;
+        }
+        timer.pause();
+        timer.setReverse(reverse);
+        timer.modify(millis);
+        if (running) {
+            timer.start();
+        }
+    }
+
+    // Alarms of version 4 and newer have an id, they are added to restoredAlarms by it. Older alarms have none,
+    // restoredAlarms is null for them.
+    private static List<Alarm> readAlarms(DataInputStream in, Map<Long, Alarm> restoredAlarms) throws IOException {
+        int alarmCount = in.readInt();
+        List<Alarm> alarms = new ArrayList<>(alarmCount);
+        for (int i = 0; i < alarmCount; i++) {
+            long alarmId = restoredAlarms != null ? in.readLong() : 0;
+            Alarm alarm = new Alarm();
+            setAlarm(alarm, in.readUTF(), in.readLong());
+            if (restoredAlarms != null) {
+                restoredAlarms.put(alarmId, alarm);
+            }
+            alarms.add(alarm);
+        }
+        return alarms;
+    }
+
+    private static void setAlarm(Alarm alarm, String name, long millis) {
+        alarm.setName(name.isEmpty() ? null : name);
+        alarm.setTotalMilliseconds(millis);
+    }
+
+    private static void editAlarm(TimerModel timer, Alarm alarm, String name, long millis) {
+        setAlarm(alarm, name, millis);
+        timer.alarmEdited(alarm);
+    }
+}
@@ -0,0 +1,76 @@
+import javax.swing.*;
+
+// ListModel that displays the splits of a TimerModel without storing any labels.
+// The label of a split is created only when the JList renders it, and the split number is derived from its
+// position, so removing splits does not rewrite the remaining ones.
+// All methods must be called on the EDT.
+public class SplitListModel extends AbstractListModel<String> {
+
+    private final TimerModel timer;
+    // Number of splits the JList was notified about, follows the size of the timer's splits through the events
+    private int size;
+
+    public SplitListModel(TimerModel timer) {
+        this.timer = timer;
+        size = timer.getSplitCount();
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        // The splits of the timer can change on other threads before this model got notified
+        if (index >= timer.getSplitCount()) {
+            return "";
+        }
+        return "Split " + (index + 1) + ": " + TimeFormatter.format(timer.getSplit(index));
+    }
+
+    // Called after the split with the given index was appended to the timer
+    public void splitAdded(int index) {
+        // The split is already known if this model was created after the split was added
+        if (index < size) {
+            return;
+        }
+        int oldSize = size;
+        size = index + 1;
+        fireIntervalAdded(this, oldSize, index);
+    }
+
+    // Called after splits were removed from the timer, the indices are sorted in ascending order
+    public void splitsRemoved(int[] indices) {
+        if (indices.length == 0) {
+            return;
+        }
+        // One event per contiguous run of removed splits, so the selection model and the cached layout of the
+        // JList shift exactly the rows that were removed. A selection scattered over many runs fires many events,
+        // a single event for a range would move the selection to the wrong rows. The runs are removed from the
+        // highest to the lowest, so the indices of the runs not removed yet stay valid.
+        int end = indices.length;
+        while (end > 0) {
+            int start = end - 1;
+            while (start > 0 && indices[start - 1] == indices[start] - 1) {
+                start--;
+            }
+            int first = indices[start];
+            // Splits this model was not notified about yet are not in the JList
+            int last = Math.min(indices[end - 1], size - 1);
+            if (first <= last) {
+                size -= last - first + 1;
+                fireIntervalRemoved(this, first, last);
+            }
+            end = start;
+        }
+    }
+
+    public void splitsCleared() {
+        int oldSize = size;
+        size = 0;
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.Arrays;
+
+// Compact storage of the split values of a timer in a growable primitive array.
+// Appending is O(1) amortized and removing any number of splits is a single pass over the array.
+// Split numbers are not stored, the number of a split is its index + 1.
+// The lap statistics of the splits (see SplitStatistics) are kept up to date with every change.
+public class SplitLog {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int size;
+    private final SplitStatistics statistics = new SplitStatistics();
+
+    // Append a split value in milliseconds and return its index
+    public synchronized int add(long millis) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size] = millis;
+        statistics.addSplit(millis);
+        return size++;
+    }
+
+    // Remove the splits at the given indices, the indices must be sorted in ascending order
+    public synchronized void removeAll(int[] indices) {
+        int target = 0;
+        int next = 0;
+        for (int source = 0; source < size; source++) {
+            if (next < indices.length && indices[next] == source) {
+                next++;
+            } else {
+                values[target++] = values[source];
+            }
+        }
+        size = target;
+        // The laps around the removed splits changed
+        statistics.rebuild(values, size);
+    }
+
+    public synchronized void clear() {
+        size = 0;
+        statistics.clear();
+        // Release the memory of large split lists
+        if (values.length > INITIAL_CAPACITY) {
+            values = new long[INITIAL_CAPACITY];
+        }
+    }
+
+    public synchronized long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + size + " splits");
+        }
+        return values[index];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Changes with every added or removed split
+    public synchronized long getStatisticsVersion() {
+        return statistics.getVersion();
+    }
+
+    public synchronized SplitStatistics.Summary getStatistics() {
+        return statistics.summary();
+    }
+
+    public synchronized long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
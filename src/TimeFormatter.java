@@ -0,0 +1,78 @@
+// Allocation-free formatter for timer values in the HH:MM:SS:SS format.
+// Writes into a caller-provided char buffer using a precomputed two-digit lookup table and produces
+// exactly the same text as DecimalFormat("00"), including the negative values of reverse mode.
+public final class TimeFormatter {
+
+    // Longest possible output: four parts of a minus sign and up to 10 digits, plus three separators
+    public static final int MAX_LENGTH = 4 * 11 + 3;
+
+    private static final char[] TENS = new char[100];
+    private static final char[] ONES = new char[100];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            TENS[i] = (char) ('0' + i / 10);
+            ONES[i] = (char) ('0' + i % 10);
+        }
+    }
+
+    private TimeFormatter() {
+    }
+
+    // Write the formatted time into the buffer starting at index 0 and return the number of chars written.
+    // The buffer must have room for at least MAX_LENGTH chars.
+    public static int format(char[] buffer, int hours, int minutes, int seconds, int milliseconds) {
+        int position = appendPart(buffer, 0, hours);
+        buffer[position++] = ':';
+        position = appendPart(buffer, position, minutes);
+        buffer[position++] = ':';
+        position = appendPart(buffer, position, seconds);
+        buffer[position++] = ':';
+        // Only two digits of the milliseconds are displayed
+        return appendPart(buffer, position, milliseconds / 10);
+    }
+
+    // Write a value given in milliseconds, see TimerState for how the value is split into its parts
+    public static int format(char[] buffer, long totalMillis) {
+        return format(buffer, TimerState.hoursOf(totalMillis), TimerState.minutesOf(totalMillis),
+                TimerState.secondsOf(totalMillis), TimerState.millisecondsOf(totalMillis));
+    }
+
+    // Convenience method for the places that need a String, such as splits and alarms
+    public static String format(int hours, int minutes, int seconds, int milliseconds) {
+        char[] buffer = new char[MAX_LENGTH];
+        int length = format(buffer, hours, minutes, seconds, milliseconds);
+        return new String(buffer, 0, length);
+    }
+
+    public static String format(long totalMillis) {
+        char[] buffer = new char[MAX_LENGTH];
+        int length = format(buffer, totalMillis);
+        return new String(buffer, 0, length);
+    }
+
+    // Append a value with at least two digits, like DecimalFormat("00") does
+    private static int appendPart(char[] buffer, int position, int value) {
+        long absolute = value;
+        if (absolute < 0) {
+            buffer[position++] = '-';
+            absolute = -absolute;
+        }
+        if (absolute < 100) {
+            int index = (int) absolute;
+            buffer[position++] = TENS[index];
+            buffer[position++] = ONES[index];
+            return position;
+        }
+        // Values with more than two digits only occur for very large hour values, write them digit by digit
+        int digits = 0;
+        for (long rest = absolute; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + absolute % 10);
+            absolute /= 10;
+        }
+        return position + digits;
+    }
+}
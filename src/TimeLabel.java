@@ -0,0 +1,59 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Map;
+
+// Label that displays a timer value without creating a String for every frame.
+// The value is formatted into a reused char buffer by TimeFormatter and painted directly from it.
+public class TimeLabel extends JComponent {
+
+    private char[] chars = new char[TimeFormatter.MAX_LENGTH];
+    private int length;
+    // Second buffer for formatting the new value, swapped with chars when the text changed
+    private char[] scratch = new char[TimeFormatter.MAX_LENGTH];
+
+    public TimeLabel(long totalMillis) {
+        length = TimeFormatter.format(chars, totalMillis);
+        setOpaque(false);
+        // Look like a regular JLabel by default
+        setFont(UIManager.getFont("Label.font"));
+        setForeground(UIManager.getColor("Label.foreground"));
+    }
+
+    // Display the given timer value, returns true if the visible text changed
+    public boolean setTime(long totalMillis) {
+        int newLength = TimeFormatter.format(scratch, totalMillis);
+        if (newLength == length && Arrays.equals(chars, 0, length, scratch, 0, newLength)) {
+            return false;
+        }
+        char[] previous = chars;
+        chars = scratch;
+        scratch = previous;
+        length = newLength;
+        repaint();
+        return true;
+    }
+
+    // Current text of the label, only meant for occasional use such as dialogs
+    public String getText() {
+        return new String(chars, 0, length);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        // Use the same text antialiasing as the other Swing components
+        Map<?, ?> desktopHints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        if (desktopHints != null && g instanceof Graphics2D graphics2D) {
+            graphics2D.addRenderingHints(desktopHints);
+        }
+        g.setFont(getFont());
+        g.setColor(getForeground());
+        FontMetrics metrics = g.getFontMetrics();
+        Insets insets = getInsets();
+        // Vertically center the text like a JLabel does
+        int availableHeight = getHeight() - insets.top - insets.bottom;
+        int y = insets.top + (availableHeight - metrics.getHeight()) / 2 + metrics.getAscent();
+        g.drawChars(chars, 0, length, insets.left, y);
+    }
+}
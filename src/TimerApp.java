@@ -1,63 +1,221 @@
 import javax.swing.*;
 import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.awt.event.*;
-import java.text.DecimalFormat;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.lang.management.ManagementFactory;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.awt.Dimension;
 import javax.swing.JScrollPane;
 
 public class TimerApp extends JFrame implements AutoCloseable {
-    private final JPanel mainPanel;
-    private final List<TimerPanel> timerPanels;
+    // UI-independent timers displayed by this window
+    private final TimerEngine engine;
+    // Only the visible timers get a TimerPanel, which is reused for other timers while scrolling
+    private final TimerListView<TimerPanel> mainPanel;
+    // Alarm manager windows of the timers, created when the Set Alarm button of a timer is clicked first
+    private final Map<TimerModel, AlarmManager> openAlarmManagers = new HashMap<>();
+    // Interval program windows of the timers, removed again when they are closed
+    private final Map<TimerModel, IntervalProgramWindow> openProgramWindows = new HashMap<>();
+    // Timers created outside the EDT (e.g. while the session is restored), added to the main panel in batches
+    private final Queue<TimerModel> pendingTimers = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean pendingTimersScheduled = new AtomicBoolean();
     private final JLabel dateTimeLabel;
+    // Created with the first update of the date and time label, loading the locale data takes a while
+    private DateTimeFormatter dateTimeFormatter;
+    // Groups of the engine, the group buttons apply to the selected group
+    private final DefaultComboBoxModel<TimerGroup> groupComboBoxModel = new DefaultComboBoxModel<>();
+    // Window showing the timer metrics, null until it was opened
+    private DiagnosticsWindow diagnosticsWindow;
+    // Window managing the alarms at a date and time, null until it was opened
+    private WallClockAlarmWindow clockAlarmWindow;
     private Timer dateTimeTimer;
 
     // Font size of the timer
     private static final int timerNameFontSize = 16;
+    // Bold variants of the default label font, derived once per size and shared by all panels and alarms
+    private static final Map<Float, Font> boldLabelFonts = new HashMap<>();
+    private static final Font splitListFont = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Font lapStatisticsFont = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    // Height of a timer panel in the main panel
+    private static final int timerPanelHeight = 100;
     // Initial window size of the program
-    private static int initialWidth = 1100;
+    // Wide enough for the controls, the splits, their lap statistics and the program phase of a timer in one row
+    private static int initialWidth = 1750;
     private static int initialHeight = 400;
 
     public TimerApp() {
+        this(new TimerEngine());
+    }
+
+    public TimerApp(TimerEngine engine) {
+        this(engine, true);
+    }
+
+    // Without createFirstTimer the window opens without a timer, e.g. because main still restores the session
+    private TimerApp(TimerEngine engine, boolean createFirstTimer) {
+        this.engine = engine;
         // Set title of window and closing behavior
         setTitle("The Ultimate Timer App");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         setLayout(new BorderLayout());
-        mainPanel = new JPanel();
-        mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
+        mainPanel = new TimerListView<>(timerPanelHeight, TimerPanel::new);
 
         JScrollPane scrollPane = new JScrollPane(mainPanel);
         add(scrollPane, BorderLayout.CENTER);
 
-        // Add the add timer button to the main GUI at the bottom of the screen with full width
+        // Add the add timer button to the main GUI at the bottom of the screen with full width,
+        // next to the controls of the timer groups
+        JPanel bottomPanel = new JPanel(new BorderLayout());
         JButton addTimerButton = new JButton("Add Timer");
         addTimerButton.addActionListener(e -> addTimer());
-        add(addTimerButton, BorderLayout.SOUTH);
+        bottomPanel.add(addTimerButton, BorderLayout.CENTER);
+        bottomPanel.add(createGroupPanel(), BorderLayout.EAST);
+        JPanel toolsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        JButton diagnosticsButton = new JButton("Diagnostics");
+        diagnosticsButton.addActionListener(e -> openDiagnostics());
+        toolsPanel.add(diagnosticsButton);
+        JButton clockAlarmsButton = new JButton("Clock Alarms");
+        clockAlarmsButton.addActionListener(e -> openClockAlarms());
+        toolsPanel.add(clockAlarmsButton);
+        bottomPanel.add(toolsPanel, BorderLayout.WEST);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        // Show timers created by the engine, including those not created with the add timer button
+        engine.addListener(new TimerEngine.Listener() {
+            @Override
+            public void timerAdded(TimerModel timer) {
+                if (SwingUtilities.isEventDispatchThread()) {
+                    addPendingTimers();
+                    mainPanel.addTimer(timer);
+                } else {
+                    pendingTimers.add(timer);
+                    if (pendingTimersScheduled.compareAndSet(false, true)) {
+                        RenderPipeline.getInstance().invokeLater(TimerApp.this::addPendingTimers);
+                    }
+                }
+            }
+
+            @Override
+            public void timerRemoved(TimerModel timer) {
+                runOnEdt(() -> mainPanel.removeTimer(timer));
+            }
+
+            @Override
+            public void groupAdded(TimerGroup group) {
+                runOnEdt(() -> addGroupToComboBox(group));
+            }
 
-        timerPanels = new ArrayList<>();
+            @Override
+            public void groupRemoved(TimerGroup group) {
+                runOnEdt(() -> groupComboBoxModel.removeElement(group));
+            }
+        });
+        for (TimerGroup group : engine.getGroups()) {
+            addGroupToComboBox(group);
+        }
+        // Play the notification sound when a timer reaches one of its alarms, an open alarm manager shows it in green
+        engine.addTimerListener(new TimerListener() {
+            @Override
+            public void alarmReached(TimerModel timer, Alarm alarm) {
+                AudioPlayer.getInstance().playNotificationSound(-10.0f);
+            }
+
+            // Every phase change of an interval program is announced like an alarm
+            @Override
+            public void phaseChanged(TimerModel timer, IntervalProgram program, int phase) {
+                AudioPlayer.getInstance().playNotificationSound(-10.0f);
+            }
+        });
+        // Play the notification sound and tell which alarm fired when a clock alarm is due
+        WallClockScheduler.getInstance().addListener((alarm, deadline) -> {
+            AudioPlayer.getInstance().playNotificationSound(-10.0f);
+            RenderPipeline.getInstance().invokeLater(() -> JOptionPane.showMessageDialog(TimerApp.this,
+                    alarm.getName() + " (" + alarm.getTime().toLocalTime() + ")", "Clock Alarm",
+                    JOptionPane.INFORMATION_MESSAGE));
+        });
+        for (TimerModel timer : engine.getTimers()) {
+            mainPanel.addTimer(timer);
+        }
+        // Minimized timers do not need the full tick resolution, see TimerPanel.updateViewing
+        addWindowStateListener(e -> {
+            for (TimerPanel panel : mainPanel.getBoundRows()) {
+                panel.updateViewing();
+            }
+        });
         // Open the window with an already created timer
-        addTimer();
+        if (createFirstTimer && engine.getTimerCount() == 0) {
+            addTimer();
+        }
 
         // Display current date and time on top of GUI
         dateTimeLabel = new JLabel("Current date and time: ");
         dateTimeLabel.setHorizontalAlignment(SwingConstants.CENTER);
         add(dateTimeLabel, BorderLayout.NORTH);
-        startDateTimeTimer();
 
         // Set initial window size of main GUI
         setInitialSize(initialWidth, initialHeight);
 
+        // Measure the startup once the window is shown, see TimerMetrics.getTimeToFirstFrameMillis
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                // Queued behind the paint events of the new window
+                SwingUtilities.invokeLater(TimerApp.this::firstFrameShown);
+            }
+        });
         setLocationRelativeTo(null);
         setVisible(true);
+        // The first update of the date and time is after a second, so the timer starts after the window shows
+        startDateTimeTimer();
+    }
+
+    // Record the time from the JVM start to the first frame, and exit with -Dtimer.exitAfterFirstFrame=true,
+    // e.g. to measure the startup or to create a class data archive (see README)
+    private void firstFrameShown() {
+        long millis = ManagementFactory.getRuntimeMXBean().getUptime();
+        TimerMetrics.getInstance().setTimeToFirstFrameMillis(millis);
+        if (Boolean.getBoolean("timer.exitAfterFirstFrame")) {
+            System.out.println("First frame after " + millis + " ms");
+            System.exit(0);
+        }
+    }
+
+    // Method to add the timers created outside the EDT since the last call to the main panel
+    private void addPendingTimers() {
+        pendingTimersScheduled.set(false);
+        List<TimerModel> timers = new ArrayList<>();
+        TimerModel timer;
+        while ((timer = pendingTimers.poll()) != null) {
+            // Skip timers removed again before they were shown
+            if (engine.getTimer(timer.getId()) == timer) {
+                timers.add(timer);
+            }
+        }
+        if (!timers.isEmpty()) {
+            mainPanel.addTimers(timers);
+        }
+    }
+
+    // The group can already be in the combo box if it was created while the window was being built
+    private void addGroupToComboBox(TimerGroup group) {
+        if (groupComboBoxModel.getIndexOf(group) < 0) {
+            groupComboBoxModel.addElement(group);
+        }
+    }
+
+    private static Font boldLabelFont(float size) {
+        return boldLabelFonts.computeIfAbsent(size, key -> UIManager.getFont("Label.font").deriveFont(Font.BOLD, key));
     }
 
     // Method to set the initial size of the main application window
@@ -67,17 +225,143 @@ public class TimerApp extends JFrame implements AutoCloseable {
         setSize(initialWidth, initialHeight);
     }
 
-    // Method to add a new timer panel to the main panel
+    public TimerEngine getEngine() {
+        return engine;
+    }
+
+    // Method to add a new timer, the engine listener adds its panel to the main panel
     private void addTimer() {
-        String timerName = "Timer " + (timerPanels.size() + 1) + ":";
-        TimerPanel timerPanel = new TimerPanel(timerName);
-        timerPanels.add(timerPanel);
-        mainPanel.add(timerPanel);
-        mainPanel.revalidate();
+        engine.createTimer(nextTimerName(engine));
+    }
+
+    private static String nextTimerName(TimerEngine engine) {
+        return "Timer " + (engine.getTimerCount() + 1) + ":";
+    }
+
+    // Method to create the controls that start, pause and reset all timers of a group together
+    private JPanel createGroupPanel() {
+        JPanel groupPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        JComboBox<TimerGroup> groupComboBox = new JComboBox<>(groupComboBoxModel);
+        groupComboBox.setPrototypeDisplayValue(new TimerGroup("Long group name"));
+        groupComboBox.setToolTipText("Right-click the name of a timer to assign it to a group");
+        groupPanel.add(groupComboBox);
+
+        JButton newGroupButton = new JButton("New Group");
+        newGroupButton.addActionListener(e -> createGroup());
+        groupPanel.add(newGroupButton);
+
+        JButton startGroupButton = new JButton("Start Group");
+        startGroupButton.addActionListener(e -> {
+            TimerGroup group = (TimerGroup) groupComboBoxModel.getSelectedItem();
+            if (group != null) {
+                group.start();
+            }
+        });
+        groupPanel.add(startGroupButton);
+
+        JButton pauseGroupButton = new JButton("Pause Group");
+        pauseGroupButton.addActionListener(e -> {
+            TimerGroup group = (TimerGroup) groupComboBoxModel.getSelectedItem();
+            if (group != null) {
+                group.pause();
+            }
+        });
+        groupPanel.add(pauseGroupButton);
+
+        JButton resetGroupButton = new JButton("Reset Group");
+        resetGroupButton.addActionListener(e -> {
+            TimerGroup group = (TimerGroup) groupComboBoxModel.getSelectedItem();
+            if (group != null) {
+                group.reset();
+            }
+        });
+        groupPanel.add(resetGroupButton);
+
+        JButton removeGroupButton = new JButton("Remove Group");
+        removeGroupButton.addActionListener(e -> {
+            TimerGroup group = (TimerGroup) groupComboBoxModel.getSelectedItem();
+            if (group != null) {
+                // The timers of the group are kept
+                engine.removeGroup(group);
+            }
+        });
+        groupPanel.add(removeGroupButton);
+        return groupPanel;
+    }
+
+    // Method to ask for the name of a new group and create it, returns null if the dialog was cancelled
+    private TimerGroup createGroup() {
+        String groupName = JOptionPane.showInputDialog(TimerApp.this, "Enter a name for the group:");
+        if (groupName == null || groupName.isBlank()) {
+            return null;
+        }
+        TimerGroup group = engine.createGroup(groupName.trim());
+        // The engine listener added the group to the combo box
+        groupComboBoxModel.setSelectedItem(group);
+        return group;
+    }
+
+    private static String groupToolTip(TimerGroup group) {
+        return group == null ? "Right-click to assign the timer to a group" : "Group: " + group.getName();
+    }
+
+    // Run the given task on the EDT, directly if already called from it
+    private static void runOnEdt(Runnable runnable) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            runnable.run();
+        } else {
+            RenderPipeline.getInstance().invokeLater(runnable);
+        }
+    }
+
+    // Method to open the diagnostics window, or bring it to the front if it is already open
+    private void openDiagnostics() {
+        if (diagnosticsWindow == null || !diagnosticsWindow.isDisplayable()) {
+            diagnosticsWindow = new DiagnosticsWindow();
+        } else {
+            diagnosticsWindow.toFront();
+        }
     }
 
-    // Method to remove a timer panel from the main panel
-    private void removeTimer(TimerPanel timerPanel) {
+    // Method to open the clock alarms window, or bring it to the front if it is already open
+    private void openClockAlarms() {
+        if (clockAlarmWindow == null || !clockAlarmWindow.isDisplayable()) {
+            clockAlarmWindow = new WallClockAlarmWindow();
+        } else {
+            clockAlarmWindow.toFront();
+        }
+    }
+
+    // Method to open the alarm manager window of a timer
+    private void openAlarmManager(TimerModel timer) {
+        // Avoid opening multiple alarm windows by clicking the Set Alarm button multiple times
+        AlarmManager alarmManager = openAlarmManagers.get(timer);
+        if (alarmManager == null) {
+            openAlarmManagers.put(timer, new AlarmManager(timer));
+        } else {
+            alarmManager.toFront();
+        }
+    }
+
+    // Method to open the interval program window of a timer, or bring it to the front if it is already open
+    private void openProgramWindow(TimerModel timer) {
+        IntervalProgramWindow programWindow = openProgramWindows.get(timer);
+        if (programWindow != null) {
+            programWindow.toFront();
+            return;
+        }
+        programWindow = new IntervalProgramWindow(timer);
+        programWindow.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                openProgramWindows.remove(timer);
+            }
+        });
+        openProgramWindows.put(timer, programWindow);
+    }
+
+    // Method to remove a timer, the engine listener removes it from the main panel
+    private void removeTimer(TimerModel timer) {
         int choice = JOptionPane.showConfirmDialog(
                 TimerApp.this,
                 "Are you sure you want to remove this timer?",
@@ -86,49 +370,52 @@ public class TimerApp extends JFrame implements AutoCloseable {
         );
 
         if (choice == JOptionPane.YES_OPTION) {
-            timerPanel.stopTimer();
-            timerPanels.remove(timerPanel);
-            mainPanel.remove(timerPanel);
-            mainPanel.revalidate();
-            mainPanel.repaint();
+            // The engine stops the timer and the engine listener removes the panel
+            engine.removeTimer(timer);
             // Adjust the frame size to fit the updated content
             // pack();
         }
     }
 
-    // Class representing an individual timer panel
-    private class TimerPanel extends JPanel {
+    // Class representing an individual timer panel, a view of a TimerModel of the engine
+    private class TimerPanel extends JPanel implements TimerListener, RenderPipeline.Renderable, TimerListView.RowView {
 
-        private int hours;
-        private int minutes;
-        private int seconds;
-        private int milliseconds;
-        private final JLabel timeLabel;
+        // Timer displayed by this panel, null while the panel is not used by the main panel
+        private TimerModel timer;
+        private final TimeLabel timeLabel;
         private final JLabel nameLabel;
         private final JButton startPauseButton;
         private final JCheckBox reverseCheckbox;
-        private final DefaultListModel<String> splitListModel;
+        private SplitListModel splitListModel;
+        // Whether this panel is counted as a viewer of its timer
+        private boolean viewing;
+        // Lap statistics next to the splits, see SplitStatistics
+        private final JLabel lapStatisticsLabel;
+        // Running phase of the interval program and the time left in it, hidden without a program
+        private final JLabel phaseLabel;
+        // Version of the split statistics shown by the label, -1 to show them with the next render
+        private long renderedStatisticsVersion = -1;
         private final JList<String> splitList;
         private static final Dimension LIST_AREA_SIZE = new Dimension(190, 90);
-        private int splitCounter;
-        private boolean alarmPanelIsOpen;
-        private final ArrayList<Alarm> alarms;
-
-
-        private ScheduledExecutorService scheduledExecutor;
+        private static final Dimension LAP_STATISTICS_SIZE = new Dimension(170, 90);
+        private static final Dimension PHASE_SIZE = new Dimension(130, 50);
 
-        public TimerPanel(String name) {
+        public TimerPanel() {
             setLayout(new FlowLayout(FlowLayout.CENTER, 10, 10));
             setBorder(BorderFactory.createLineBorder(Color.BLACK));
             setPreferredSize(new Dimension(400, 100));
 
-            nameLabel = new JLabel(name);
+            nameLabel = new JLabel();
             nameLabel.setForeground(Color.BLUE);
-            nameLabel.setFont(nameLabel.getFont().deriveFont(Font.BOLD, timerNameFontSize));
-            // Make the name of the timer clickable and editable
+            nameLabel.setFont(boldLabelFont(timerNameFontSize));
+            // Make the name of the timer clickable and editable, right-clicking it assigns the timer to a group
             nameLabel.addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseClicked(MouseEvent e) {
+                    if (SwingUtilities.isRightMouseButton(e)) {
+                        createGroupMenu().show(nameLabel, e.getX(), e.getY());
+                        return;
+                    }
                     String currentTimerName = nameLabel.getText();
                     String currentNameWithoutColon = currentTimerName.endsWith(":")
                             ? currentTimerName.substring(0, currentTimerName.length() - 1)
@@ -144,17 +431,15 @@ public class TimerApp extends JFrame implements AutoCloseable {
                         String updatedTimerName = newTimerName.endsWith(":")
                                 ? newTimerName
                                 : newTimerName + ":";
-                        nameLabel.setText(updatedTimerName);
+                        timer.setName(updatedTimerName);
                     }
                 }
             });
             add(nameLabel);
 
-            alarms = new ArrayList<>();
-
             // Display the value of timer and assign a fixed size to the timer to prevent it from pushing other GUI elements
-            timeLabel = new JLabel(formatTime(0, 0, 0, 0));
-            timeLabel.setFont(timeLabel.getFont().deriveFont(Font.BOLD, 24));
+            timeLabel = new TimeLabel(0);
+            timeLabel.setFont(boldLabelFont(24));
             // Use a fixed-size JLabel for the timer area
             timeLabel.setPreferredSize(new Dimension(160, 50));
             add(timeLabel);
@@ -164,16 +449,16 @@ public class TimerApp extends JFrame implements AutoCloseable {
             // set the size of the button to a fixed value to prevent the button to grow when the text changes
             startPauseButton.setPreferredSize(new Dimension(110, 26));
             startPauseButton.addActionListener(e -> {
-                if (scheduledExecutor == null || scheduledExecutor.isShutdown()) {
-                    startTimer();
+                if (!timer.isRunning()) {
+                    timer.start();
                 } else {
-                    pauseTimer();
+                    timer.pause();
                 }
             });
             add(startPauseButton);
 
             JButton resetButton = new JButton("Reset Timer");
-            resetButton.addActionListener(e -> resetTimer());
+            resetButton.addActionListener(e -> timer.reset());
             add(resetButton);
 
             JButton modifyButton = new JButton("Modify");
@@ -181,29 +466,39 @@ public class TimerApp extends JFrame implements AutoCloseable {
             add(modifyButton);
 
             JButton splitButton = new JButton("Split");
-            splitButton.addActionListener(e -> createSplit());
+            splitButton.addActionListener(e -> timer.split());
             add(splitButton);
 
             JButton resetSplitsButton = new JButton("Reset Splits");
-            resetSplitsButton.addActionListener(e -> resetSplits());
+            resetSplitsButton.addActionListener(e -> timer.clearSplits());
             add(resetSplitsButton);
 
             JButton setAlarmButton = new JButton("Set Alarm");
-            setAlarmButton.addActionListener(e -> openAlarmManager(this));
+            setAlarmButton.addActionListener(e -> openAlarmManager(timer));
             add(setAlarmButton);
 
+            JButton programButton = new JButton("Program");
+            programButton.addActionListener(e -> openProgramWindow(timer));
+            add(programButton);
+
             JButton removeButton = new JButton("Remove");
-            removeButton.addActionListener(e -> removeTimer(this));
+            removeButton.addActionListener(e -> removeTimer(timer));
             add(removeButton);
 
             reverseCheckbox = new JCheckBox("Reverse", false);
+            reverseCheckbox.addItemListener(e -> {
+                if (timer != null) {
+                    timer.setReverse(reverseCheckbox.isSelected());
+                }
+            });
             add(reverseCheckbox);
 
-            splitListModel = new DefaultListModel<>();
-            splitList = new JList<>(splitListModel);
+            splitList = new JList<>();
+            // All split labels have the same height, so the list does not need to measure every label
+            splitList.setPrototypeCellValue("Split 00000: 00:00:00:00");
 
             // splitList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-            splitList.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            splitList.setFont(splitListFont);
 
             // Set the preferred size for the JList area
             JScrollPane scrollPane = new JScrollPane(splitList);
@@ -211,184 +506,248 @@ public class TimerApp extends JFrame implements AutoCloseable {
             add(scrollPane);
             splitList.setComponentPopupMenu(createPopupMenu());
 
+            lapStatisticsLabel = new JLabel();
+            lapStatisticsLabel.setFont(lapStatisticsFont);
+            lapStatisticsLabel.setVerticalAlignment(SwingConstants.TOP);
+            lapStatisticsLabel.setPreferredSize(LAP_STATISTICS_SIZE);
+            add(lapStatisticsLabel);
+
+            phaseLabel = new JLabel();
+            phaseLabel.setFont(boldLabelFont(14));
+            phaseLabel.setPreferredSize(PHASE_SIZE);
+            phaseLabel.setVisible(false);
+            add(phaseLabel);
+        }
+
+        // Display the given timer, the main panel reuses the panel for other timers while scrolling
+        @Override
+        public void bind(TimerModel newTimer) {
+            if (timer != null) {
+                timer.removeListener(this);
+                if (viewing) {
+                    timer.removeViewer();
+                    viewing = false;
+                }
+            }
+            timer = newTimer;
+            if (timer == null) {
+                return;
+            }
+            timer.addListener(this);
+            updateViewing();
+            nameLabel.setText(timer.getName());
+            nameLabel.setToolTipText(groupToolTip(timer.getGroup()));
+            TimerState.Snapshot snapshot = timer.snapshot();
+            timeLabel.setTime(snapshot.getMillis(System.nanoTime()));
+            startPauseButton.setText(snapshot.isRunning() ? "Pause Timer" : "Start Timer");
+            reverseCheckbox.setSelected(snapshot.isReverse());
+            // The labels of the splits are created lazily when the list renders them
+            splitListModel = new SplitListModel(timer);
+            splitList.setModel(splitListModel);
+            renderedStatisticsVersion = -1;
+            updateLapStatistics();
+            phaseLabel.setVisible(timer.getProgram() != null);
+            updatePhase(snapshot.getMillis(System.nanoTime()));
+        }
+
+        // Show the running phase of the program, its number and the time left in it
+        private void updatePhase(long millis) {
+            IntervalProgram program = timer.getProgram();
+            if (program == null) {
+                return;
+            }
+            int phase = timer.getProgramPhase();
+            if (phase >= program.getPhaseCount()) {
+                phaseLabel.setText("Done");
+                return;
+            }
+            long leftMillis = timer.isReverse()
+                    ? millis - program.getPhaseStart(phase)
+                    : program.getPhaseEnd(phase) - millis;
+            phaseLabel.setText("<html>" + program.getPhaseName(phase) + " " + (phase + 1) + "/" + program.getPhaseCount()
+                    + "<br>" + formatTime(Math.max(0, leftMillis)) + "</html>");
+        }
+
+        // Show the lap statistics of the timer, only computed again after the splits changed
+        private void updateLapStatistics() {
+            long version = timer.getSplitStatisticsVersion();
+            if (version == renderedStatisticsVersion) {
+                return;
+            }
+            renderedStatisticsVersion = version;
+            SplitStatistics.Summary statistics = timer.getSplitStatistics();
+            if (statistics.getLapCount() == 0) {
+                lapStatisticsLabel.setText("");
+                lapStatisticsLabel.setToolTipText(null);
+                return;
+            }
+            lapStatisticsLabel.setText("<html>Laps " + statistics.getLapCount()
+                    + "<br>Last&nbsp;&nbsp;" + formatTime(statistics.getLastLap())
+                    + "<br>Best&nbsp;&nbsp;" + formatTime(statistics.getBestLap()) + " #" + statistics.getBestLapNumber()
+                    + "<br>Worst " + formatTime(statistics.getWorstLap()) + " #" + statistics.getWorstLapNumber()
+                    + "<br>Mean&nbsp;&nbsp;" + formatTime(Math.round(statistics.getMean()))
+                    + "<br>Med.&nbsp;&nbsp;" + formatTime(statistics.getMedian()) + "</html>");
+            lapStatisticsLabel.setToolTipText(String.format("Standard deviation %.2f s, p90 %s, p99 %s",
+                    statistics.getStandardDeviation() / 1000, formatTime(statistics.getP90()), formatTime(statistics.getP99())));
         }
 
-        // Method to open the alarm manager window
-        private void openAlarmManager(TimerPanel timerPanel) {
-            if(!alarmPanelIsOpen){
-                new AlarmManager(timerPanel);
-                //alarmManager.setVisible(true);
+        // The timer of the panel needs the full tick resolution only while the window is not minimized.
+        // Panels scrolled out of view are unbound, so their timers have no viewer either.
+        private void updateViewing() {
+            boolean shouldView = timer != null && (getExtendedState() & Frame.ICONIFIED) == 0;
+            if (shouldView == viewing) {
+                return;
+            }
+            viewing = shouldView;
+            if (viewing) {
+                timer.addViewer();
+            } else {
+                timer.removeViewer();
             }
         }
 
-        // Helper method to update the split counter labels
-        private void updateSplitCounters() {
-            int splitCount = splitListModel.size();
-            for (int i = 0; i < splitCount; i++) {
-                String splitLabel = splitListModel.getElementAt(i);
-                String[] splitLabelParts = splitLabel.split(":");
-                int counter = i + 1; // Adjusted split counter value
-                splitLabelParts[0] = "Split " + counter;
-                splitListModel.set(i, String.join(":", splitLabelParts));
+        // Popup of the name label listing the groups the timer can be assigned to
+        private JPopupMenu createGroupMenu() {
+            JPopupMenu popupMenu = new JPopupMenu();
+            TimerGroup currentGroup = timer.getGroup();
+            JRadioButtonMenuItem noGroupItem = new JRadioButtonMenuItem("No Group", currentGroup == null);
+            noGroupItem.addActionListener(e -> {
+                if (timer.getGroup() != null) {
+                    timer.getGroup().remove(timer);
+                }
+            });
+            popupMenu.add(noGroupItem);
+            for (TimerGroup group : engine.getGroups()) {
+                JRadioButtonMenuItem groupItem = new JRadioButtonMenuItem(group.getName(), group == currentGroup);
+                groupItem.addActionListener(e -> group.add(timer));
+                popupMenu.add(groupItem);
             }
+            popupMenu.addSeparator();
+            JMenuItem newGroupItem = new JMenuItem("New Group...");
+            newGroupItem.addActionListener(e -> {
+                TimerGroup group = createGroup();
+                if (group != null) {
+                    group.add(timer);
+                }
+            });
+            popupMenu.add(newGroupItem);
+            return popupMenu;
         }
 
         // Right-clicking a split will open a remove popup
         private JPopupMenu createPopupMenu() {
             JPopupMenu popupMenu = new JPopupMenu();
             JMenuItem removeItem = new JMenuItem("Remove Splits");
-            removeItem.addActionListener(e -> removeSelectedSplits());
+            removeItem.addActionListener(e -> timer.removeSplits(splitList.getSelectedIndices()));
             popupMenu.add(removeItem);
             return popupMenu;
         }
 
-        // Remove the selected splits and adjust the counter value of remaining splits
-        private void removeSelectedSplits() {
-            int[] selectedIndices = splitList.getSelectedIndices();
-            for (int i = selectedIndices.length - 1; i >= 0; i--) {
-                splitListModel.remove(selectedIndices[i]);
+        // Called by the render pipeline on the EDT once per frame after the timer changed
+        @Override
+        public boolean render() {
+            if (timer == null) {
+                return true;
             }
-            // After removing a split, update the counter values to display them sequentially
-            updateSplitCounters();
-        }
-
-        // Snapshot the current timer value, assign a counter value to it and display it on the JList
-        private void createSplit() {
-            // Get the timer values
-            int splitHours = hours;
-            int splitMinutes = minutes;
-            int splitSeconds = seconds;
-            int splitMilliseconds = milliseconds;
-
-            // Increment the split counter
-            splitCounter++;
-
-            // Create the split label
-            String splitLabel = "Split " + splitCounter + ": " + formatTime(splitHours, splitMinutes, splitSeconds, splitMilliseconds);
-            splitListModel.addElement(splitLabel);
-
-            // Sort the splits by their counter values
-            List<String> sortedSplits = new ArrayList<>();
-            for (int i = 0; i < splitListModel.size(); i++) {
-                sortedSplits.add(splitListModel.getElementAt(i));
-            }
-            sortedSplits.sort(Comparator.comparingInt(this::getSplitCounterFromLabel));
-
-            // Update the split list with the sorted splits
-            splitListModel.clear();
-            for (String split : sortedSplits) {
-                splitListModel.addElement(split);
+            // Timers scrolled out of the main scroll pane are rendered once they become visible again
+            if (!isShowing() || getVisibleRect().isEmpty()) {
+                return false;
             }
+            // The label only repaints when the visible text changed
+            TimerState.Snapshot snapshot = timer.snapshot();
+            long millis = snapshot.getMillis(System.nanoTime());
+            timeLabel.setTime(millis);
+            startPauseButton.setText(snapshot.isRunning() ? "Pause Timer" : "Start Timer");
+            updateLapStatistics();
+            updatePhase(millis);
+            return true;
         }
 
-
-        // Helper method to extract the split counter value from the split label
-        private int getSplitCounterFromLabel(String splitLabel) {
-            String[] parts = splitLabel.split(":");
-            if (parts.length > 0) {
-                String counter = parts[0].trim();
-                try {
-                    return Integer.parseInt(counter);
-                } catch (NumberFormatException e) {
-                    // Handle invalid split labels if necessary
+        // Run an update of the panel on the EDT, unless the panel was bound to another timer in the meantime
+        private void updateIfBound(TimerModel source, Runnable update) {
+            runOnEdt(() -> {
+                if (source == timer) {
+                    update.run();
                 }
-            }
-            return 0; // Default value if split counter cannot be extracted
+            });
         }
 
-
-        private void resetSplits() {
-            splitListModel.clear();
-            splitCounter = 0;
+        // The label is updated with the next frame of the render pipeline instead of one EDT event per tick
+        @Override
+        public void timerTicked(TimerModel source, long millis) {
+            RenderPipeline.getInstance().markDirty(this);
         }
 
+        // The start timer button becomes pause timer after clicking the start button. The button is updated
+        // by render, so starting a whole group refreshes the UI once with the next frame.
+        @Override
+        public void timerStarted(TimerModel source) {
+            RenderPipeline.getInstance().markDirty(this);
+        }
 
+        @Override
+        public void timerPaused(TimerModel source) {
+            // Show the exact value the timer was paused at
+            RenderPipeline.getInstance().markDirty(this);
+        }
 
-        // Method to start or resume the timer
-        private void startTimer() {
-            scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
-            scheduledExecutor.scheduleAtFixedRate(() -> {
-                if (reverseCheckbox.isSelected()){
-                    milliseconds += -10;
-                    if (milliseconds <= -1000) {
-                        seconds -= -(milliseconds / 1000);
-                        milliseconds %= 1000;
-                    }
-
-                    if (seconds <= -60) {
-                        minutes -= -(seconds / 60);
-                        seconds %= 60;
-                    }
-
-                    if (minutes <= -60) {
-                        hours -= -(minutes / 60);
-                        minutes %= 60;
-                    }
-
-                }
-                else
-                {
-                    milliseconds += 10;
-
-                    if (milliseconds >= 1000 || milliseconds <= -1000) {
-                        seconds += milliseconds / 1000;
-                        milliseconds %= 1000;
-                    }
-
-                    if (seconds >= 60 || seconds <= -60) {
-                        minutes += seconds / 60;
-                        seconds %= 60;
-                    }
+        @Override
+        public void timerReset(TimerModel source) {
+            RenderPipeline.getInstance().markDirty(this);
+        }
 
-                    if (minutes >= 60 || minutes <= -60) {
-                        hours += minutes / 60;
-                        minutes %= 60;
-                    }
-                }
+        @Override
+        public void timerModified(TimerModel source, long millis) {
+            RenderPipeline.getInstance().markDirty(this);
+        }
 
-                // Check if an alarm timer is reached
-                checkAlarmNotification();
+        @Override
+        public void reverseChanged(TimerModel source, boolean reverse) {
+            updateIfBound(source, () -> reverseCheckbox.setSelected(reverse));
+        }
 
-                SwingUtilities.invokeLater(() -> timeLabel.setText(formatTime(hours, minutes, seconds, milliseconds)));
-            }, 0, 10, TimeUnit.MILLISECONDS);
+        @Override
+        public void nameChanged(TimerModel source, String name) {
+            updateIfBound(source, () -> nameLabel.setText(name));
+        }
 
-            // The start timer button becomes pause timer after clicking the start button
-            startPauseButton.setText("Pause Timer");
+        @Override
+        public void groupChanged(TimerModel source, TimerGroup group) {
+            updateIfBound(source, () -> nameLabel.setToolTipText(groupToolTip(group)));
         }
 
-        // If the timer value reaches one of the alarm values, play notification sound and color the timer value to green
-        public void checkAlarmNotification(){
-            for (Alarm alarm : this.alarms) {
-                if (alarm.getHours() == hours && alarm.getMinutes() == minutes && alarm.getSeconds() == seconds && alarm.getMilliseconds() == milliseconds) {
-                    AudioPlayer audioPlayer = new AudioPlayer();
-                    audioPlayer.playNotificationSound(-10.0f);
-                    alarm.getAlarmTimeLabel().setForeground(Color.GREEN);
-                }
-            }
+        @Override
+        public void programChanged(TimerModel source, IntervalProgram program) {
+            updateIfBound(source, () -> {
+                phaseLabel.setVisible(program != null);
+                RenderPipeline.getInstance().markDirty(this);
+            });
         }
 
-        // Method to stop the timer if it is running
-        public void stopTimer() {
-            if (scheduledExecutor != null) {
-                scheduledExecutor.shutdown();
-            }
+        @Override
+        public void phaseChanged(TimerModel source, IntervalProgram program, int phase) {
+            RenderPipeline.getInstance().markDirty(this);
         }
 
-        // Method to pause the timer
-        private void pauseTimer() {
-            if (scheduledExecutor != null && !scheduledExecutor.isShutdown()) {
-                scheduledExecutor.shutdown();
-                scheduledExecutor = null;
-                startPauseButton.setText("Start Timer");
-            }
+        // Snapshot of the timer value, display it with its counter value on the JList
+        @Override
+        public void splitCreated(TimerModel source, int index, long millis) {
+            updateIfBound(source, () -> splitListModel.splitAdded(index));
+            // Many splits in a row update the statistics once per frame
+            RenderPipeline.getInstance().markDirty(this);
         }
 
+        // The counter values of the remaining splits are derived from their position, so they stay sequential
+        @Override
+        public void splitsRemoved(TimerModel source, int[] indices) {
+            updateIfBound(source, () -> splitListModel.splitsRemoved(indices));
+            RenderPipeline.getInstance().markDirty(this);
+        }
 
-        // Method to reset the timer
-        private void resetTimer() {
-            // pauseTimer();
-            hours = minutes = seconds = milliseconds = 0;
-            timeLabel.setText(formatTime(0, 0, 0, 0));
+        @Override
+        public void splitsCleared(TimerModel source) {
+            updateIfBound(source, () -> splitListModel.splitsCleared());
+            RenderPipeline.getInstance().markDirty(this);
         }
 
         // Method to modify the timer values
@@ -396,7 +755,7 @@ public class TimerApp extends JFrame implements AutoCloseable {
             String input = JOptionPane.showInputDialog(
                     TimerApp.this,
                     "Enter the new timer values (HH:MM:SS:SS):",
-                    formatTime(hours, minutes, seconds, milliseconds)
+                    formatTime(timer.getMillis())
             );
 
             if (input != null) {
@@ -409,14 +768,9 @@ public class TimerApp extends JFrame implements AutoCloseable {
                         int newSeconds = Integer.parseInt(parts[2]);
                         int newMilliseconds = Integer.parseInt(parts[3]);
 
-                        hours = newHours;
-                        minutes = newMinutes;
-                        seconds = newSeconds;
                         // Milliseconds must be multiplied with 10 because the actual milliseconds value
                         // is displayed with 2 digits, but we display 2 digits and ask the user for 2 digits
-                        milliseconds = newMilliseconds * 10;
-
-                        timeLabel.setText(formatTime(hours, minutes, seconds, milliseconds));
+                        timer.modify(TimerState.toMillis(newHours, newMinutes, newSeconds, newMilliseconds * 10));
                     } catch (NumberFormatException e) {
                         JOptionPane.showMessageDialog(TimerApp.this,
                                 "Invalid input format. Please use HH:MM:SS:SS format.",
@@ -433,222 +787,276 @@ public class TimerApp extends JFrame implements AutoCloseable {
         }
     }
 
-    // Window that manages the alarms
-    class AlarmManager extends JFrame {
+    // Window that manages the alarms of a timer in one table. The alarms are plain data, the table only creates
+    // renderers for the visible rows, so the window opens quickly also for timers with many alarms.
+    // Names and values are edited in place, the selected alarms are removed by their id.
+    class AlarmManager extends JFrame implements TimerListener {
 
-        JPanel alarmsPanel;
-        JButton addAlarmButton;
-        TimerPanel timerPanel;
+        private static final String[] COLUMN_NAMES = {"Name", "Alarm (HH:MM:SS:SS)"};
+        private static final int NAME_COLUMN = 0;
+        private static final int VALUE_COLUMN = 1;
 
-        public AlarmManager(TimerPanel timerPanel) {
-            // The alarm belongs to the selected timer panel object
-            this.timerPanel = timerPanel;
-            // Avoid opening multiple alarm windows by clicking the Set Alarm button multiple times
-            timerPanel.alarmPanelIsOpen = true;
+        private final TimerModel timer;
+        private final AlarmTableModel tableModel = new AlarmTableModel();
+        private final JTable alarmTable = new JTable(tableModel);
+        // Set while this window changes the alarms itself, so its own alarmsChanged callback is ignored
+        private boolean updating;
 
-            // Implement the alarm manager UI and functionality here
-            JFrame manageAlarmsFrame = new JFrame("Manage Alarms");
-            manageAlarmsFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-            manageAlarmsFrame.setLayout(new BorderLayout());
+        public AlarmManager(TimerModel timer) {
+            super("Manage Alarms");
+            // The alarm belongs to the selected timer
+            this.timer = timer;
 
-            // Window listener to set the alarmPanelIsOpen flag when the window is closed
+            setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            setLayout(new BorderLayout());
+
+            // Window listener to allow opening the window again after it was closed
             WindowListener windowListener = new WindowAdapter() {
                 public void windowClosed(WindowEvent e) {
-                    timerPanel.alarmPanelIsOpen = false;
+                    timer.removeListener(AlarmManager.this);
+                    openAlarmManagers.remove(timer);
                 }
             };
-            manageAlarmsFrame.addWindowListener(windowListener);
+            addWindowListener(windowListener);
 
-            alarmsPanel = new JPanel();
-            alarmsPanel.setLayout(new BoxLayout(alarmsPanel, BoxLayout.Y_AXIS));
+            alarmTable.setRowHeight(24);
+            alarmTable.setFillsViewportHeight(true);
+            alarmTable.getColumnModel().getColumn(NAME_COLUMN).setCellRenderer(new DefaultTableCellRenderer() {
+                @Override
+                public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                               boolean hasFocus, int row, int column) {
+                    super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                    setFont(boldLabelFont(timerNameFontSize));
+                    if (!isSelected) {
+                        setForeground(Color.BLUE);
+                    }
+                    return this;
+                }
+            });
+            // The value of an alarm the timer reached is shown in green
+            alarmTable.getColumnModel().getColumn(VALUE_COLUMN).setCellRenderer(new DefaultTableCellRenderer() {
+                @Override
+                public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                               boolean hasFocus, int row, int column) {
+                    super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                    if (!isSelected) {
+                        setForeground(tableModel.getAlarm(row).isReached() ? Color.GREEN : table.getForeground());
+                    }
+                    return this;
+                }
+            });
+            // The delete key removes the selected alarms like the delete button
+            alarmTable.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0), "deleteAlarms");
+            alarmTable.getActionMap().put("deleteAlarms", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    removeSelectedAlarms();
+                }
+            });
+            JScrollPane scrollPane = new JScrollPane(alarmTable);
+            scrollPane.setPreferredSize(new Dimension(380, 240));
+            add(scrollPane, BorderLayout.CENTER);
 
             // Retrieve the stored alarms for the selected timer
-            ArrayList<Alarm> alarms = timerPanel.alarms;
+            tableModel.setAlarms(timer.getAlarms());
+            timer.addListener(this);
             // Add one alarm by default when the window opens for the first time or when no alarm exists
-            if (alarms.size() == 0){
-                addNewAlarm(timerPanel);
-            } else {
-                // Iterate over the alarms and display them in the UI
-                for (Alarm alarm : alarms) {
-                    // Display the alarm information in the UI
-                    addExistingAlarmToPanel(alarm, timerPanel);
-                }
+            if (tableModel.getRowCount() == 0) {
+                addNewAlarm();
             }
 
-            addAlarmButton = new JButton("Add Alarm");
-            addAlarmButton.addActionListener(e -> addNewAlarm(timerPanel));
-
-            // Set the add alarm button to cover the entire width
-            addAlarmButton.setAlignmentX(Component.CENTER_ALIGNMENT);
-            addAlarmButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, addAlarmButton.getPreferredSize().height));
-            // Create the vertical box
-            Box box = Box.createVerticalBox();
-            // Create rigid area for vertical spacing
-            Component rigidArea = Box.createVerticalStrut(10);
-            // Add rigid area and button to the box
-            box.add(rigidArea);
-            // Add glue to the box to make the button appear at the bottom
-            box.add(Box.createVerticalGlue());
-            // Add the button to the box
-            box.add(addAlarmButton);
-            // Add the button to the alarm manager window
-            alarmsPanel.add(addAlarmButton, BorderLayout.SOUTH);
-
-            manageAlarmsFrame.add(alarmsPanel, BorderLayout.NORTH);
-            manageAlarmsFrame.add(box, BorderLayout.SOUTH);
-            manageAlarmsFrame.pack();
-            manageAlarmsFrame.setVisible(true);
-
-            setLocationRelativeTo(TimerApp.this);
-        }
-
-        private void addExistingAlarmToPanel(Alarm alarm, TimerPanel timerPanel){
-            JButton editButton = new JButton("Edit");
-            editButton.addActionListener(e -> editAlarmTimerValue(alarm));
-
+            JButton addAlarmButton = new JButton("Add Alarm");
+            addAlarmButton.addActionListener(e -> addNewAlarm());
             JButton deleteButton = new JButton("Delete");
-            deleteButton.addActionListener(e -> removeAlarm(alarm.getNameLabelOfAlarm(), timerPanel));
-            JPanel alarmPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-            // Order of the Alarm buttons
-            alarmPanel.add(alarm.getNameLabelOfAlarm());
-            alarmPanel.add(alarm.getAlarmTimeLabel());
-            alarmPanel.add(editButton);
-            alarmPanel.add(deleteButton);
-            alarmsPanel.add(alarmPanel);
-            alarmsPanel.revalidate();
+            deleteButton.addActionListener(e -> removeSelectedAlarms());
+            JPanel buttonPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+            buttonPanel.add(addAlarmButton);
+            buttonPanel.add(deleteButton);
+            add(buttonPanel, BorderLayout.SOUTH);
+            pack();
+            setLocationRelativeTo(TimerApp.this);
+            setVisible(true);
         }
 
-        private void addNewAlarm(TimerPanel timerPanel) {
-            int alarmCount = alarmsPanel.getComponentCount() -1; // Subtract 1 for the "Add Alarm" button
-            // First init of alarmCount is -1, which is wrong
-            if ((alarmCount + 1) == 0){
-                alarmCount = 0;
-            }
-
+        private void addNewAlarm() {
             Alarm alarm = new Alarm();
             // Set name of the alarm
-            String nameOfAlarm = "Alarm " + (alarmCount + 1);
-            alarm.setNameLabelOfAlarm(new JLabel(nameOfAlarm + ":"));
-            alarm.getNameLabelOfAlarm().setForeground(Color.BLUE);
-            alarm.getNameLabelOfAlarm().setFont(alarm.getNameLabelOfAlarm().getFont().deriveFont(Font.BOLD, timerNameFontSize));
-            // When user clicks on alarm name, edit window opens
-            alarm.getNameLabelOfAlarm().addMouseListener(new MouseAdapter() {
-                @Override
-                public void mouseClicked(MouseEvent e) {
-                    String currentTimerName = alarm.getNameLabelOfAlarm().getText();
-                    String currentNameWithoutColon = currentTimerName.endsWith(":")
-                            ? currentTimerName.substring(0, currentTimerName.length() - 1)
-                            : currentTimerName;
-
-                    String newTimerName = JOptionPane.showInputDialog(
-                            TimerApp.this,
-                            "Enter a new name for the alarm:",
-                            currentNameWithoutColon
-                    );
-
-                    if (newTimerName != null && !newTimerName.isEmpty()) {
-                        String updatedName = newTimerName.endsWith(":")
-                                ? newTimerName
-                                : newTimerName + ":";
-                        alarm.getNameLabelOfAlarm().setText(updatedName);
-                    }
-                }
-            });
-
-            alarm.setAlarmTimeLabel(new JLabel(formatTime(0, 0, 0, 0)));
-            // alarm.alarmTimeLabel.setFont(timeLabel.getFont().deriveFont(Font.BOLD, 24));
-            // Use a fixed-size JLabel for the timer area
-            alarm.getAlarmTimeLabel().setPreferredSize(new Dimension(80, 50));
-
-            JButton editButton = new JButton("Edit");
-            editButton.addActionListener(e -> editAlarmTimerValue(alarm));
-
-            JButton deleteButton = new JButton("Delete");
-            deleteButton.addActionListener(e -> removeAlarm(alarm.getNameLabelOfAlarm(), timerPanel));
-            JPanel alarmPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-
-            // Store the created alarm in the timer panel so that if the user closes the "Set Alarm" window,
+            alarm.setName("Alarm " + (tableModel.getRowCount() + 1) + ":");
+            // Store the created alarm in the timer so that if the user closes the "Set Alarm" window,
             // the alarms won't be deleted
-            timerPanel.alarms.add(alarm);
-
-            // Order of the Alarm buttons
-            alarmPanel.add(alarm.getNameLabelOfAlarm());
-            alarmPanel.add(alarm.getAlarmTimeLabel());
-            alarmPanel.add(editButton);
-            alarmPanel.add(deleteButton);
-            alarmsPanel.add(alarmPanel, alarmCount);
-            alarmsPanel.revalidate();
-            alarmsPanel.repaint();
+            updateTimer(() -> timer.addAlarm(alarm));
+            tableModel.addAlarm(alarm);
+            int row = tableModel.getRowCount() - 1;
+            alarmTable.getSelectionModel().setSelectionInterval(row, row);
+            alarmTable.scrollRectToVisible(alarmTable.getCellRect(row, 0, true));
         }
 
-        private void editAlarmTimerValue(Alarm alarm){
-            String input = JOptionPane.showInputDialog(
-                    TimerApp.this,
-                    "Enter the new timer values (HH:MM:SS:SS):",
-                    formatTime(alarm.getHours(), alarm.getMinutes(), alarm.getSeconds(), alarm.getMilliseconds())
-            );
+        // Remove the selected alarms from the selected timer, the timer finds them by their id
+        private void removeSelectedAlarms() {
+            if (alarmTable.isEditing()) {
+                alarmTable.getCellEditor().cancelCellEditing();
+            }
+            int[] rows = alarmTable.getSelectedRows();
+            if (rows.length == 0) {
+                return;
+            }
+            List<Alarm> removed = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                removed.add(tableModel.getAlarm(row));
+            }
+            updateTimer(() -> timer.removeAlarms(removed));
+            tableModel.removeRows(rows);
+        }
 
-            if (input != null) {
-                String[] parts = input.split(":");
+        // Rename the alarm, the name always ends with a colon like the names of the timers
+        private void renameAlarm(Alarm alarm, String newName) {
+            if (newName.isEmpty()) {
+                return;
+            }
+            alarm.setName(newName.endsWith(":") ? newName : newName + ":");
+            updateTimer(() -> timer.alarmEdited(alarm));
+        }
 
-                if (parts.length == 4) {
-                    try {
-                        int newHours = Integer.parseInt(parts[0]);
-                        int newMinutes = Integer.parseInt(parts[1]);
-                        int newSeconds = Integer.parseInt(parts[2]);
-                        int newMilliseconds = Integer.parseInt(parts[3]);
+        private void editAlarmTimerValue(Alarm alarm, String input) {
+            String[] parts = input.trim().split(":");
 
-                        // Range validation for editing alarm timer
-                        if ((newMilliseconds > 1000) || (newSeconds > 60) || (newMinutes > 60) || (newHours > 23) ){
-                            JOptionPane.showMessageDialog(TimerApp.this,
-                                    "Invalid range for timer (Allowed range is 0-23:0-59:0-59:0-99). Please use HH:MM:SS:SS format.",
-                                    "Invalid Input",
-                                    JOptionPane.ERROR_MESSAGE);
-                        } else {
-                            alarm.setHours(newHours);
-                            alarm.setMinutes(newMinutes);
-                            alarm.setSeconds(newSeconds);
-                            // Milliseconds must be multiplied with 10 because the actual milliseconds value
-                            // is displayed with 2 digits, but we display 2 digits and ask the user for 2 digits
-                            alarm.setMilliseconds(newMilliseconds * 10);
-                            alarm.getAlarmTimeLabel().setText(formatTime(alarm.getHours(), alarm.getMinutes(), alarm.getSeconds(), alarm.getMilliseconds()));
-                        }
-                    } catch (NumberFormatException e) {
-                        JOptionPane.showMessageDialog(TimerApp.this,
-                                "Invalid input format. Please use HH:MM:SS:SS format.",
+            if (parts.length == 4) {
+                try {
+                    int newHours = Integer.parseInt(parts[0]);
+                    int newMinutes = Integer.parseInt(parts[1]);
+                    int newSeconds = Integer.parseInt(parts[2]);
+                    int newMilliseconds = Integer.parseInt(parts[3]);
+
+                    // Range validation for editing alarm timer
+                    if ((newMilliseconds > 1000) || (newSeconds > 60) || (newMinutes > 60) || (newHours > 23) ){
+                        JOptionPane.showMessageDialog(this,
+                                "Invalid range for timer (Allowed range is 0-23:0-59:0-59:0-99). Please use HH:MM:SS:SS format.",
                                 "Invalid Input",
                                 JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        alarm.setHours(newHours);
+                        alarm.setMinutes(newMinutes);
+                        alarm.setSeconds(newSeconds);
+                        // Milliseconds must be multiplied with 10 because the actual milliseconds value
+                        // is displayed with 2 digits, but we display 2 digits and ask the user for 2 digits
+                        alarm.setMilliseconds(newMilliseconds * 10);
+                        // The timer has to reach the new value first
+                        alarm.setReached(false);
+                        updateTimer(() -> timer.alarmEdited(alarm));
                     }
-                } else {
-                    JOptionPane.showMessageDialog(TimerApp.this,
+                } catch (NumberFormatException e) {
+                    JOptionPane.showMessageDialog(this,
                             "Invalid input format. Please use HH:MM:SS:SS format.",
                             "Invalid Input",
                             JOptionPane.ERROR_MESSAGE);
                 }
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "Invalid input format. Please use HH:MM:SS:SS format.",
+                        "Invalid Input",
+                        JOptionPane.ERROR_MESSAGE);
             }
         }
 
-        // Remove alarm from the selected timer
-        // Todo: need to ensure each alarm has unique name?
-        private void removeAlarm(JLabel alarmLabel, TimerPanel timerPanel) {
-            Component[] components = alarmsPanel.getComponents();
-            for (Component component : components) {
-                if (component instanceof JPanel alarmPanel) {
-                    if (alarmPanel.getComponent(0) == alarmLabel) {
-                        alarmsPanel.remove(alarmPanel);
-                        alarmsPanel.revalidate();
-                        alarmsPanel.repaint();
-                        break;
-                    }
+        // Change the alarms of the timer, the table is updated by the caller
+        private void updateTimer(Runnable change) {
+            updating = true;
+            try {
+                change.run();
+            } finally {
+                updating = false;
+            }
+        }
+
+        // Alarms changed by others, e.g. through the control server, are shown by reloading the table
+        @Override
+        public void alarmsChanged(TimerModel source) {
+            if (SwingUtilities.isEventDispatchThread() && updating) {
+                return;
+            }
+            runOnEdt(() -> {
+                if (isDisplayable()) {
+                    tableModel.setAlarms(timer.getAlarms());
                 }
+            });
+        }
+
+        @Override
+        public void alarmReached(TimerModel source, Alarm alarm) {
+            RenderPipeline.getInstance().invokeLater(alarmTable::repaint);
+        }
+
+        // The alarms of the timer as rows of the table, only used on the EDT
+        private class AlarmTableModel extends AbstractTableModel {
+            private List<Alarm> alarms = new ArrayList<>();
+
+            void setAlarms(List<Alarm> newAlarms) {
+                alarms = new ArrayList<>(newAlarms);
+                fireTableDataChanged();
+            }
+
+            Alarm getAlarm(int row) {
+                return alarms.get(row);
             }
-            for (Alarm alarm : timerPanel.alarms) {
-                if (alarm.getNameLabelOfAlarm() == alarmLabel) {
-                    timerPanel.alarms.remove(alarm);
-                    break;
+
+            void addAlarm(Alarm alarm) {
+                alarms.add(alarm);
+                fireTableRowsInserted(alarms.size() - 1, alarms.size() - 1);
+            }
+
+            // Remove the given rows, sorted in ascending order like JTable.getSelectedRows, in one pass
+            void removeRows(int[] rows) {
+                List<Alarm> remaining = new ArrayList<>(alarms.size() - rows.length);
+                int next = 0;
+                for (int row = 0; row < alarms.size(); row++) {
+                    if (next < rows.length && rows[next] == row) {
+                        next++;
+                    } else {
+                        remaining.add(alarms.get(row));
+                    }
                 }
+                alarms = remaining;
+                fireTableDataChanged();
+            }
+
+            @Override
+            public int getRowCount() {
+                return alarms.size();
+            }
+
+            @Override
+            public int getColumnCount() {
+                return COLUMN_NAMES.length;
+            }
+
+            @Override
+            public String getColumnName(int column) {
+                return COLUMN_NAMES[column];
+            }
+
+            @Override
+            public Object getValueAt(int row, int column) {
+                Alarm alarm = alarms.get(row);
+                return column == NAME_COLUMN
+                        ? alarm.getName()
+                        : formatTime(alarm.getHours(), alarm.getMinutes(), alarm.getSeconds(), alarm.getMilliseconds());
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return true;
             }
 
+            @Override
+            public void setValueAt(Object value, int row, int column) {
+                Alarm alarm = alarms.get(row);
+                if (column == NAME_COLUMN) {
+                    renameAlarm(alarm, value.toString().trim());
+                } else {
+                    editAlarmTimerValue(alarm, value.toString());
+                }
+                fireTableRowsUpdated(row, row);
+            }
         }
     }
 
@@ -656,19 +1064,26 @@ public class TimerApp extends JFrame implements AutoCloseable {
     private void startDateTimeTimer() {
         dateTimeTimer = new Timer(1000, e -> {
             LocalDateTime currentDateTime = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
-            String formattedDateTime = currentDateTime.format(formatter);
+            if (dateTimeFormatter == null) {
+                dateTimeFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+            }
+            String formattedDateTime = currentDateTime.format(dateTimeFormatter);
             dateTimeLabel.setText("Current date and time: " + formattedDateTime);
+            // Show the UI load caused by the timers when hovering over the date and time
+            dateTimeLabel.setToolTipText("EDT events per second: " + RenderPipeline.getInstance().getEdtEventsPerSecond());
         });
 
         dateTimeTimer.start();
     }
 
+    // Helper method to format a timer value given in milliseconds
+    private String formatTime(long totalMillis) {
+        return TimeFormatter.format(totalMillis);
+    }
+
     // Helper method to format the time values
     private String formatTime(int hours, int minutes, int seconds, int milliseconds) {
-        DecimalFormat format = new DecimalFormat("00");
-        return format.format(hours) + ":" + format.format(minutes) + ":" +
-                format.format(seconds) + ":" + format.format(milliseconds / 10);
+        return TimeFormatter.format(hours, minutes, seconds, milliseconds);
     }
 
     // Closeable implementation to stop the date and time timer when closing the application
@@ -680,7 +1095,127 @@ public class TimerApp extends JFrame implements AutoCloseable {
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(TimerApp::new);
+        TimerEngine engine = new TimerEngine();
+        // Show the window first, the session is restored while Swing starts up and its timers are added to
+        // the window as they are restored
+        SwingUtilities.invokeLater(() -> new TimerApp(engine, false));
+        // Keep the timers in sync with other instances, e.g. -Dtimer.cluster=leader:7071 on one workstation and
+        // -Dtimer.cluster=follower:host:7071 on the others. A follower only shows the timers of the leader.
+        String cluster = System.getProperty("timer.cluster");
+        boolean follower = cluster != null && cluster.toLowerCase().startsWith("follower");
+        // Restore the timers of the last session, can be disabled with -Dtimer.session=false
+        if (!follower && Boolean.parseBoolean(System.getProperty("timer.session", "true"))) {
+            openSession(engine);
+        }
+        // Open the window with an already created timer
+        if (!follower && engine.getTimerCount() == 0) {
+            engine.createTimer(nextTimerName(engine));
+        }
+        if (cluster != null) {
+            openCluster(engine, cluster);
+        }
+        // Export the splits and reached alarms to files, enabled with e.g. -Dtimer.export=csv,binary
+        String exportFormats = System.getProperty("timer.export");
+        if (exportFormats != null) {
+            openExport(engine, exportFormats);
+        }
+        // Keep a crash-safe history of the timer events, enabled with -Dtimer.history=true (or =ticks to include
+        // every tick)
+        String history = System.getProperty("timer.history");
+        if (history != null && !history.equals("false")) {
+            openHistory(engine, history.equals("ticks"));
+        }
+        // Let other programs drive the timers, enabled with e.g. -Dtimer.control=7070 or -Dtimer.control=unix:/tmp/timer.sock
+        String controlAddress = System.getProperty("timer.control");
+        if (controlAddress != null) {
+            openControlServer(engine, controlAddress);
+        }
+        // Make the scheduler and UI latencies visible in JConsole and VisualVM, not needed for the first frame
+        TimerMetrics.getInstance().registerMBean();
     }
-}
 
+    // Restore the last session into the engine and keep saving its changes until the app exits
+    private static void openSession(TimerEngine engine) {
+        try {
+            SessionStore sessionStore = new SessionStore(SessionStore.defaultDirectory());
+            sessionStore.open(engine);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    sessionStore.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        } catch (IOException e) {
+            System.err.println("Could not open the session, timers will not be saved: " + e.getMessage());
+        }
+    }
+
+    // Join the cluster with the given setting until the app exits
+    private static void openCluster(TimerEngine engine, String setting) {
+        try {
+            ClusterNode clusterNode = ClusterNode.open(engine, setting);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    clusterNode.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not join the cluster: " + e.getMessage());
+        }
+    }
+
+    // Record the events of the engine in the history file until the app exits
+    private static void openHistory(TimerEngine engine, boolean ticks) {
+        try {
+            Path file = Path.of(System.getProperty("timer.history.file", EventHistory.defaultFile().toString()));
+            EventHistory eventHistory = new EventHistory(file, ticks);
+            eventHistory.attach(engine);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    eventHistory.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        } catch (IOException e) {
+            System.err.println("Could not open the event history: " + e.getMessage());
+        }
+    }
+
+    // Serve the control API on the given local address until the app exits
+    private static void openControlServer(TimerEngine engine, String address) {
+        try {
+            ControlServer controlServer = new ControlServer(engine, ControlServer.parseAddress(address));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    controlServer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not start the control server: " + e.getMessage());
+        }
+    }
+
+    // Stream the events of the engine into files in the export directory until the app exits
+    private static void openExport(TimerEngine engine, String formats) {
+        try {
+            Path directory = Path.of(System.getProperty("timer.export.dir", EventExporter.defaultDirectory().toString()));
+            EventExporter exporter = new EventExporter(directory, EventExporter.parseFormats(formats));
+            exporter.attach(engine);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    exporter.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not start the event export: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Entry point of the UI-independent timer core. Creates, looks up and removes timers, and does not depend
+// on Swing, so it can drive timers programmatically or run on a headless machine (java.awt.headless=true).
+public class TimerEngine {
+
+    // Interface for being notified when timers are added to or removed from the engine
+    public interface Listener {
+        default void timerAdded(TimerModel timer) {
+        }
+
+        default void timerRemoved(TimerModel timer) {
+        }
+
+        default void groupAdded(TimerGroup group) {
+        }
+
+        default void groupRemoved(TimerGroup group) {
+        }
+    }
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    // Ordered by id, so timers are listed in the order they were created
+    private final Map<Integer, TimerModel> timers = new ConcurrentSkipListMap<>();
+    // Ordered by name
+    private final Map<String, TimerGroup> groups = new ConcurrentSkipListMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Listeners that are attached to every timer of the engine
+    private final List<TimerListener> timerListeners = new CopyOnWriteArrayList<>();
+    // Makes adding a timer and attaching a timer listener to all timers atomic with each other, so a timer
+    // created while a listener is added (e.g. restored while the window is built) gets the listener exactly once
+    private final Object timerListenerLock = new Object();
+
+    public TimerModel createTimer(String name) {
+        TimerModel timer = new TimerModel(nextId.getAndIncrement(), name);
+        synchronized (timerListenerLock) {
+            for (TimerListener timerListener : timerListeners) {
+                timer.addListener(timerListener);
+            }
+            timers.put(timer.getId(), timer);
+        }
+        for (Listener listener : listeners) {
+            listener.timerAdded(timer);
+        }
+        return timer;
+    }
+
+    // Stop the timer and remove it from the engine
+    public void removeTimer(TimerModel timer) {
+        synchronized (timerListenerLock) {
+            if (timers.remove(timer.getId()) == null) {
+                return;
+            }
+        }
+        timer.pause();
+        TimerGroup group = timer.getGroup();
+        if (group != null) {
+            group.remove(timer);
+        }
+        for (Listener listener : listeners) {
+            listener.timerRemoved(timer);
+        }
+        synchronized (timerListenerLock) {
+            for (TimerListener timerListener : timerListeners) {
+                timer.removeListener(timerListener);
+            }
+        }
+    }
+
+    // Returns null if no timer with the given id exists
+    public TimerModel getTimer(int id) {
+        return timers.get(id);
+    }
+
+    public Collection<TimerModel> getTimers() {
+        return Collections.unmodifiableCollection(timers.values());
+    }
+
+    public int getTimerCount() {
+        return timers.size();
+    }
+
+    // Create a group with the given name, or return the existing group with that name
+    public TimerGroup createGroup(String name) {
+        TimerGroup created = new TimerGroup(name);
+        TimerGroup existing = groups.putIfAbsent(name, created);
+        if (existing != null) {
+            return existing;
+        }
+        for (Listener listener : listeners) {
+            listener.groupAdded(created);
+        }
+        return created;
+    }
+
+    // Remove the group, its members stay in the engine without a group
+    public void removeGroup(TimerGroup group) {
+        if (!groups.remove(group.getName(), group)) {
+            return;
+        }
+        for (TimerModel timer : new ArrayList<>(group.getMembers())) {
+            group.remove(timer);
+        }
+        for (Listener listener : listeners) {
+            listener.groupRemoved(group);
+        }
+    }
+
+    // Returns null if no group with the given name exists
+    public TimerGroup getGroup(String name) {
+        return groups.get(name);
+    }
+
+    public Collection<TimerGroup> getGroups() {
+        return Collections.unmodifiableCollection(groups.values());
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Attach a listener to all current and future timers of the engine
+    public void addTimerListener(TimerListener timerListener) {
+        synchronized (timerListenerLock) {
+            timerListeners.add(timerListener);
+            for (TimerModel timer : timers.values()) {
+                timer.addListener(timerListener);
+            }
+        }
+    }
+
+    public void removeTimerListener(TimerListener timerListener) {
+        synchronized (timerListenerLock) {
+            timerListeners.remove(timerListener);
+            for (TimerModel timer : timers.values()) {
+                timer.removeListener(timerListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Named group of timers that are started, paused and reset together.
+// A bulk operation changes the state of every member in one pass while the scheduler is between two ticks,
+// so a tick never sees a half-applied operation, and all members that are started together get the same
+// start instant. The listeners are notified after all members were changed.
+// A timer belongs to at most one group. Groups are created and removed through the TimerEngine.
+public class TimerGroup {
+
+    private final String name;
+    // Ordered by id like the timers of the engine
+    private final Map<Integer, TimerModel> members = new ConcurrentSkipListMap<>();
+
+    TimerGroup(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Add the timer to this group, it leaves the group it belonged to before
+    public void add(TimerModel timer) {
+        synchronized (timer) {
+            TimerGroup previous = timer.getGroup();
+            if (previous == this) {
+                return;
+            }
+            if (previous != null) {
+                previous.members.remove(timer.getId());
+            }
+            members.put(timer.getId(), timer);
+            timer.setGroup(this);
+        }
+    }
+
+    // Remove the timer from this group, does nothing if it is not a member
+    public void remove(TimerModel timer) {
+        synchronized (timer) {
+            if (members.remove(timer.getId()) != null) {
+                timer.setGroup(null);
+            }
+        }
+    }
+
+    public boolean contains(TimerModel timer) {
+        return members.containsKey(timer.getId());
+    }
+
+    public Collection<TimerModel> getMembers() {
+        return Collections.unmodifiableCollection(members.values());
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    // Start all paused members with the same start instant, returns the number of started timers
+    public int start() {
+        List<TimerModel> started = new ArrayList<>();
+        TimerScheduler.getInstance().runBetweenTicks(() -> {
+            long nowNanos = System.nanoTime();
+            for (TimerModel timer : members.values()) {
+                if (timer.startAt(nowNanos)) {
+                    started.add(timer);
+                }
+            }
+        });
+        for (TimerModel timer : started) {
+            timer.fireStarted();
+        }
+        return started.size();
+    }
+
+    // Pause all running members, returns the number of paused timers
+    public int pause() {
+        List<TimerModel> paused = new ArrayList<>();
+        TimerScheduler.getInstance().runBetweenTicks(() -> {
+            for (TimerModel timer : members.values()) {
+                if (timer.pauseWithoutNotification()) {
+                    paused.add(timer);
+                }
+            }
+        });
+        for (TimerModel timer : paused) {
+            timer.firePaused();
+        }
+        return paused.size();
+    }
+
+    // Reset all members to 0 at the same instant, running members keep running
+    public void reset() {
+        List<TimerModel> reset = new ArrayList<>(members.values());
+        TimerScheduler.getInstance().runBetweenTicks(() -> {
+            long nowNanos = System.nanoTime();
+            for (TimerModel timer : reset) {
+                timer.resetAt(nowNanos);
+            }
+        });
+        for (TimerModel timer : reset) {
+            timer.fireReset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,208 @@
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Virtualized list of timers for a JScrollPane.
+// Only the timers in the visible part of the scroll pane get a row component. Row components are kept in
+// a pool and bound to other timers while scrolling, so thousands of timers only cost their lightweight
+// TimerModel plus a few rows, and adding or removing a timer does not lay out all the other rows.
+// All methods must be called on the EDT.
+public class TimerListView<V extends JComponent & TimerListView.RowView> extends JPanel implements Scrollable {
+
+    // Interface of the row components, which display one timer at a time
+    public interface RowView {
+        // Display the given timer, null unbinds the row from its timer
+        void bind(TimerModel timer);
+    }
+
+    private final int rowHeight;
+    private final Supplier<V> rowFactory;
+    private final List<TimerModel> timers = new ArrayList<>();
+    // The same timers as a set, so adding a timer twice is ignored
+    private final Set<TimerModel> timerSet = new HashSet<>();
+    private final List<V> unusedRows = new ArrayList<>();
+    private final Map<TimerModel, V> boundRows = new HashMap<>();
+    // Binds the rows to the newly visible timers when the scroll pane is scrolled
+    private final ChangeListener viewportListener = e -> layoutRows();
+    // Viewport the listener is registered with, null while the view is not displayed in a scroll pane
+    private JViewport viewport;
+
+    public TimerListView(int rowHeight, Supplier<V> rowFactory) {
+        // The rows are positioned by layoutRows
+        super(null);
+        this.rowHeight = rowHeight;
+        this.rowFactory = rowFactory;
+    }
+
+    public void addTimer(TimerModel timer) {
+        if (!timerSet.add(timer)) {
+            return;
+        }
+        timers.add(timer);
+        revalidate();
+        layoutRows();
+    }
+
+    // Add many timers with a single layout, e.g. while a session is restored
+    public void addTimers(Collection<TimerModel> newTimers) {
+        for (TimerModel timer : newTimers) {
+            if (timerSet.add(timer)) {
+                timers.add(timer);
+            }
+        }
+        revalidate();
+        layoutRows();
+    }
+
+    public void removeTimer(TimerModel timer) {
+        if (!timerSet.remove(timer)) {
+            return;
+        }
+        timers.remove(timer);
+        V row = boundRows.remove(timer);
+        if (row != null) {
+            releaseRow(row);
+        }
+        revalidate();
+        layoutRows();
+        repaint();
+    }
+
+    public int getTimerCount() {
+        return timers.size();
+    }
+
+    // Number of row components that were created so far
+    public int getRowComponentCount() {
+        return getComponentCount();
+    }
+
+    // Rows currently bound to a visible timer
+    public Collection<V> getBoundRows() {
+        return Collections.unmodifiableCollection(boundRows.values());
+    }
+
+    // addNotify and removeNotify are called again when the view is moved to another parent, so the listener is
+    // removed from the old viewport and registered only once
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (getParent() instanceof JViewport parent && parent != viewport) {
+            removeViewportListener();
+            viewport = parent;
+            viewport.addChangeListener(viewportListener);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        removeViewportListener();
+        super.removeNotify();
+    }
+
+    private void removeViewportListener() {
+        if (viewport != null) {
+            viewport.removeChangeListener(viewportListener);
+            viewport = null;
+        }
+    }
+
+    // The width follows the scroll pane, see getScrollableTracksViewportWidth
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(0, timers.size() * rowHeight);
+    }
+
+    @Override
+    public void doLayout() {
+        layoutRows();
+    }
+
+    // Bind row components to the visible timers and release the rows of timers that are no longer visible
+    public void layoutRows() {
+        Rectangle visible = getVisibleRect();
+        int first = Math.max(0, visible.y / rowHeight);
+        int last = Math.min(timers.size() - 1, (visible.y + visible.height - 1) / rowHeight);
+
+        // Release the rows of the timers that were scrolled out of view
+        Map<TimerModel, V> stillVisible = new HashMap<>();
+        for (int index = first; index <= last; index++) {
+            TimerModel timer = timers.get(index);
+            V row = boundRows.remove(timer);
+            if (row != null) {
+                stillVisible.put(timer, row);
+            }
+        }
+        for (V row : boundRows.values()) {
+            releaseRow(row);
+        }
+        boundRows.clear();
+        boundRows.putAll(stillVisible);
+
+        for (int index = first; index <= last; index++) {
+            TimerModel timer = timers.get(index);
+            V row = boundRows.get(timer);
+            if (row == null) {
+                row = acquireRow();
+                row.bind(timer);
+                boundRows.put(timer, row);
+            }
+            row.setBounds(0, index * rowHeight, getWidth(), rowHeight);
+            // Lay out the content of rows that were moved or resized
+            row.validate();
+        }
+    }
+
+    private V acquireRow() {
+        V row;
+        if (unusedRows.isEmpty()) {
+            row = rowFactory.get();
+            add(row);
+        } else {
+            row = unusedRows.remove(unusedRows.size() - 1);
+            row.setVisible(true);
+        }
+        return row;
+    }
+
+    private void releaseRow(V row) {
+        row.bind(null);
+        row.setVisible(false);
+        unusedRows.add(row);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? rowHeight / 4 : 10;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    // The rows always use the full width of the scroll pane
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
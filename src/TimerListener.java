@@ -0,0 +1,69 @@
+// Callbacks of a TimerModel. All methods have empty default implementations so that listeners only
+// override what they need. Callbacks run on the thread that caused the change: ticks and alarms on the
+// scheduler thread (or a thread of the ExecutionBackend, in order per timer), everything else on the thread
+// that called the TimerModel method.
+public interface TimerListener {
+
+    default void timerStarted(TimerModel timer) {
+    }
+
+    default void timerPaused(TimerModel timer) {
+    }
+
+    default void timerReset(TimerModel timer) {
+    }
+
+    // The timer value was set to a new value
+    default void timerModified(TimerModel timer, long millis) {
+    }
+
+    default void reverseChanged(TimerModel timer, boolean reverse) {
+    }
+
+    default void nameChanged(TimerModel timer, String name) {
+    }
+
+    // The timer was added to a group or removed from its group (group is null)
+    default void groupChanged(TimerModel timer, TimerGroup group) {
+    }
+
+    // Called on every scheduler tick while the timer is running
+    default void timerTicked(TimerModel timer, long millis) {
+    }
+
+    default void splitCreated(TimerModel timer, int index, long millis) {
+    }
+
+    // The indices are sorted in ascending order
+    default void splitsRemoved(TimerModel timer, int[] indices) {
+    }
+
+    default void splitsCleared(TimerModel timer) {
+    }
+
+    // Alarms were added, removed or edited, called once after the callbacks of the single alarms below
+    default void alarmsChanged(TimerModel timer) {
+    }
+
+    default void alarmAdded(TimerModel timer, Alarm alarm) {
+    }
+
+    // The name or the value of the alarm changed
+    default void alarmEdited(TimerModel timer, Alarm alarm) {
+    }
+
+    default void alarmRemoved(TimerModel timer, Alarm alarm) {
+    }
+
+    default void alarmReached(TimerModel timer, Alarm alarm) {
+    }
+
+    // An interval program was set or removed (program is null)
+    default void programChanged(TimerModel timer, IntervalProgram program) {
+    }
+
+    // The timer counted into the given phase of its program, program.getPhaseCount() when the program ended.
+    // Called like alarmReached.
+    default void phaseChanged(TimerModel timer, IntervalProgram program, int phase) {
+    }
+}
@@ -0,0 +1,218 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Metrics of the timer core and the UI, used to tell when a workstation is overloaded.
+// The scheduler records how late every tick starts (jitter) and how long it takes, timers record the time
+// from start to their first tick and how late alarms are noticed, and the render pipeline records how long
+// UI updates wait for the EDT. The values are shown by the DiagnosticsWindow and exposed through JMX.
+public class TimerMetrics implements TimerMetricsMBean {
+
+    public static final String OBJECT_NAME = "UltimateTimer:type=TimerMetrics";
+
+    // Ticks or EDT updates later than this at the 99th percentile mean the machine cannot keep up
+    private static final long OVERLOAD_TICK_JITTER_NANOS = TimeUnit.MILLISECONDS.toNanos(5 * TimerScheduler.TICK_INTERVAL_MS);
+    private static final long OVERLOAD_EDT_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // The overload check looks at the values of the last 10 seconds, dropped second by second
+    private static final long OVERLOAD_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int OVERLOAD_WINDOW_SLOTS = 10;
+
+    private static final TimerMetrics INSTANCE = new TimerMetrics();
+
+    private final LatencyHistogram tickJitter = new LatencyHistogram();
+    private final LatencyHistogram tickDuration = new LatencyHistogram();
+    private final LatencyHistogram startToFirstTick = new LatencyHistogram();
+    private final LatencyHistogram edtQueueLatency = new LatencyHistogram();
+    private final LatencyHistogram renderLatency = new LatencyHistogram();
+    private final LatencyHistogram alarmLateness = new LatencyHistogram();
+    // The same values as the histograms above, but only of the last seconds
+    private final LatencyWindow recentTickJitter = new LatencyWindow(OVERLOAD_WINDOW_NANOS, OVERLOAD_WINDOW_SLOTS);
+    private final LatencyWindow recentEdtQueueLatency = new LatencyWindow(OVERLOAD_WINDOW_NANOS, OVERLOAD_WINDOW_SLOTS);
+    private final LatencyWindow recentRenderLatency = new LatencyWindow(OVERLOAD_WINDOW_NANOS, OVERLOAD_WINDOW_SLOTS);
+    // Milliseconds from the JVM start until the main window was shown, 0 until then
+    private volatile long timeToFirstFrameMillis;
+
+    private TimerMetrics() {
+    }
+
+    public static TimerMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    // Register the metrics with the platform MBean server, does nothing if they are already registered
+    public synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register the timer metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    // Time between the planned and the actual start of a scheduler tick or of a later tick requested by a
+    // timer, in nanoseconds
+    public LatencyHistogram getTickJitter() {
+        return tickJitter;
+    }
+
+    // Time a scheduler tick needs for all running timers, in nanoseconds
+    public LatencyHistogram getTickDuration() {
+        return tickDuration;
+    }
+
+    // Time between starting a timer and its first tick, in nanoseconds
+    public LatencyHistogram getStartToFirstTick() {
+        return startToFirstTick;
+    }
+
+    // Time tasks posted with RenderPipeline.invokeLater wait until the EDT runs them, in nanoseconds
+    public LatencyHistogram getEdtQueueLatency() {
+        return edtQueueLatency;
+    }
+
+    public void recordTickJitter(long nanos) {
+        tickJitter.record(nanos);
+        recentTickJitter.record(nanos);
+    }
+
+    public void recordEdtQueueLatency(long nanos) {
+        edtQueueLatency.record(nanos);
+        recentEdtQueueLatency.record(nanos);
+    }
+
+    public void recordRenderLatency(long nanos) {
+        renderLatency.record(nanos);
+        recentRenderLatency.record(nanos);
+    }
+
+    // Time between a timer label becoming outdated and the frame that updates it, in nanoseconds
+    public LatencyHistogram getRenderLatency() {
+        return renderLatency;
+    }
+
+    // Difference between the timer value when an alarm was noticed and the alarm value, in nanoseconds
+    public LatencyHistogram getAlarmLateness() {
+        return alarmLateness;
+    }
+
+    // Called once by the TimerApp when its window was shown
+    public void setTimeToFirstFrameMillis(long millis) {
+        timeToFirstFrameMillis = millis;
+    }
+
+    @Override
+    public long getTimeToFirstFrameMillis() {
+        return timeToFirstFrameMillis;
+    }
+
+    @Override
+    public int getActiveTimers() {
+        return TimerScheduler.getInstance().getRegisteredCount();
+    }
+
+    @Override
+    public int getThreadCount() {
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    @Override
+    public int getFullResolutionTimers() {
+        return TimerScheduler.getInstance().getFullResolutionCount();
+    }
+
+    @Override
+    public int getSchedulerWakeUpsPerSecond() {
+        return TimerScheduler.getInstance().getWakeUpsPerSecond();
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickJitter.getCount();
+    }
+
+    @Override
+    public long getTickJitterP50Micros() {
+        return micros(tickJitter.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getTickJitterP99Micros() {
+        return micros(tickJitter.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getTickJitterMaxMicros() {
+        return micros(tickJitter.getMax());
+    }
+
+    @Override
+    public long getTickDurationP99Micros() {
+        return micros(tickDuration.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getStartToFirstTickP99Micros() {
+        return micros(startToFirstTick.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getEdtQueueLatencyP99Micros() {
+        return micros(edtQueueLatency.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getEdtQueueLatencyMaxMicros() {
+        return micros(edtQueueLatency.getMax());
+    }
+
+    @Override
+    public long getRenderLatencyP99Micros() {
+        return micros(renderLatency.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getAlarmCount() {
+        return alarmLateness.getCount();
+    }
+
+    @Override
+    public long getAlarmLatenessP99Millis() {
+        return TimeUnit.NANOSECONDS.toMillis(alarmLateness.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getAlarmLatenessMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(alarmLateness.getMax());
+    }
+
+    // The 99th percentile of the tick jitter of the last 10 seconds is several tick intervals, or UI updates
+    // waited too long for the EDT in that time. A long healthy run before does not hide a current overload.
+    @Override
+    public boolean isOverloaded() {
+        return recentTickJitter.getValueAtPercentile(99) > OVERLOAD_TICK_JITTER_NANOS
+                || recentEdtQueueLatency.getValueAtPercentile(99) > OVERLOAD_EDT_LATENCY_NANOS
+                || recentRenderLatency.getValueAtPercentile(99) > OVERLOAD_EDT_LATENCY_NANOS;
+    }
+
+    @Override
+    public void reset() {
+        tickJitter.reset();
+        tickDuration.reset();
+        startToFirstTick.reset();
+        edtQueueLatency.reset();
+        renderLatency.reset();
+        alarmLateness.reset();
+        recentTickJitter.reset();
+        recentEdtQueueLatency.reset();
+        recentRenderLatency.reset();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,46 @@
+// JMX interface of the TimerMetrics, visible in JConsole or VisualVM under "UltimateTimer:type=TimerMetrics".
+// Latencies are in microseconds, the alarm lateness in milliseconds.
+public interface TimerMetricsMBean {
+
+    // Startup time of the app until its window was shown, 0 without a window
+    long getTimeToFirstFrameMillis();
+
+    int getActiveTimers();
+
+    int getThreadCount();
+
+    // Running timers ticked every 10 ms, the others sleep until their next alarm (adaptive scheduling)
+    int getFullResolutionTimers();
+
+    int getSchedulerWakeUpsPerSecond();
+
+    long getTickCount();
+
+    long getTickJitterP50Micros();
+
+    long getTickJitterP99Micros();
+
+    long getTickJitterMaxMicros();
+
+    long getTickDurationP99Micros();
+
+    long getStartToFirstTickP99Micros();
+
+    long getEdtQueueLatencyP99Micros();
+
+    long getEdtQueueLatencyMaxMicros();
+
+    long getRenderLatencyP99Micros();
+
+    long getAlarmCount();
+
+    long getAlarmLatenessP99Millis();
+
+    long getAlarmLatenessMaxMillis();
+
+    // True when the ticks or the EDT were regularly late in the last 10 seconds, see TimerMetrics.isOverloaded
+    boolean isOverloaded();
+
+    // Remove all recorded values
+    void reset();
+}
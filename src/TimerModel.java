@@ -0,0 +1,548 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// UI-independent state and logic of a single timer: its value, splits and alarms.
+// Views such as the TimerPanel of the TimerApp observe the timer through TimerListener callbacks.
+// Timers are created and removed through the TimerEngine.
+public class TimerModel implements TimerScheduler.Tickable {
+
+    // While nobody displays the timer, it is ticked at its next alarm but at least this often
+    private static final long HIDDEN_TICK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int id;
+    private volatile String name;
+    // Group the timer belongs to, null if it is in no group
+    private volatile TimerGroup group;
+    private final TimerState state = new TimerState();
+    // Alarms ordered by their value, remembers the timer value of the last alarm check
+    private final AlarmIndex alarmIndex = new AlarmIndex();
+    // Alarms by their id in the order they were added, guarded by their own lock
+    private final Map<Long, Alarm> alarms = new LinkedHashMap<>();
+    // Running interval program, null without a program so ticks of other timers only check the field
+    private volatile ProgramCursor program;
+    private final SplitLog splits = new SplitLog();
+    private final List<TimerListener> listeners = new CopyOnWriteArrayList<>();
+    // nanoTime of the last start until the first tick after it, 0 otherwise (see TimerMetrics)
+    private volatile long startedNanos;
+    // Number of views currently displaying the value, see addViewer
+    private final AtomicInteger viewers = new AtomicInteger();
+    // Runs the tick and alarm callbacks in order, on the scheduler thread or the ExecutionBackend
+    private final Executor callbacks = ExecutionBackend.getInstance().newSerialExecutor();
+    // Value of the last tick, a tick callback still waiting for the executor reports the newest value instead
+    private volatile long lastTickMillis;
+    private final AtomicBoolean tickCallbackPending = new AtomicBoolean();
+
+    TimerModel(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        for (TimerListener listener : listeners) {
+            listener.nameChanged(this, name);
+        }
+    }
+
+    public TimerGroup getGroup() {
+        return group;
+    }
+
+    // Only called by TimerGroup, which keeps its members and this field in sync
+    void setGroup(TimerGroup group) {
+        this.group = group;
+        for (TimerListener listener : listeners) {
+            listener.groupChanged(this, group);
+        }
+    }
+
+    // Called by a view while it displays the value of the timer, which then ticks with the full resolution.
+    // Every call must be followed by a call of removeViewer when the value is no longer displayed.
+    public void addViewer() {
+        if (viewers.incrementAndGet() == 1) {
+            TimerScheduler.getInstance().reschedule(this);
+        }
+    }
+
+    // The next tick decides how long the timer can sleep without viewers
+    public void removeViewer() {
+        viewers.decrementAndGet();
+    }
+
+    public boolean isDisplayed() {
+        return viewers.get() > 0;
+    }
+
+    public void addListener(TimerListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TimerListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Method to start or resume the timer
+    public void start() {
+        if (startAt(System.nanoTime())) {
+            fireStarted();
+        }
+    }
+
+    // Method to pause the timer
+    public void pause() {
+        if (pauseWithoutNotification()) {
+            firePaused();
+        }
+    }
+
+    // The methods below change the state without notifying the listeners, so a TimerGroup can apply a
+    // change to all its members first and notify afterwards
+
+    // Start counting at the given nanoTime, returns false if the timer was already running
+    boolean startAt(long nowNanos) {
+        if (!state.start(nowNanos)) {
+            return false;
+        }
+        startedNanos = nowNanos;
+        updateRegistration();
+        return true;
+    }
+
+    boolean pauseWithoutNotification() {
+        if (!state.pause()) {
+            return false;
+        }
+        updateRegistration();
+        return true;
+    }
+
+    void resetAt(long nowNanos) {
+        TimerState.Snapshot snapshot = state.setMillis(0, nowNanos);
+        // Jumping to a new value must not trigger the alarms in between
+        alarmIndex.seek(0, snapshot.getVersion());
+        seekProgram(0, snapshot.getVersion());
+        TimerScheduler.getInstance().reschedule(this);
+    }
+
+    // Take over the state of the same timer on another instance, see ClusterNode. The anchor is a nanoTime of this
+    // JVM. Notifies the listeners of what changed, returns false if the timer already had this state.
+    boolean replicateState(long baseMillis, long anchorNanos, boolean running, boolean reverse) {
+        TimerState.Snapshot before = state.snapshot();
+        long nowNanos = System.nanoTime();
+        long elapsedMillis = running ? Math.max(0, nowNanos - anchorNanos) / 1_000_000L : 0;
+        long expectedMillis = reverse ? baseMillis - elapsedMillis : baseMillis + elapsedMillis;
+        // Equal up to the truncation to whole milliseconds, so a repeated state does not cause a jump
+        if (before.isRunning() == running && before.isReverse() == reverse
+                && Math.abs(before.getMillis(nowNanos) - expectedMillis) <= 1) {
+            return false;
+        }
+        TimerState.Snapshot snapshot = state.set(baseMillis, anchorNanos, running, reverse);
+        // Jumping to a new value must not trigger the alarms in between
+        alarmIndex.seek(snapshot.getMillis(nowNanos), snapshot.getVersion());
+        seekProgram(snapshot.getMillis(nowNanos), snapshot.getVersion());
+        if (running && !before.isRunning()) {
+            startedNanos = nowNanos;
+        }
+        updateRegistration();
+        TimerScheduler.getInstance().reschedule(this);
+        if (running != before.isRunning()) {
+            if (running) {
+                fireStarted();
+            } else {
+                firePaused();
+            }
+        }
+        if (reverse != before.isReverse()) {
+            for (TimerListener listener : listeners) {
+                listener.reverseChanged(this, reverse);
+            }
+        }
+        long millis = snapshot.getMillis(nowNanos);
+        for (TimerListener listener : listeners) {
+            listener.timerModified(this, millis);
+        }
+        return true;
+    }
+
+    void fireStarted() {
+        for (TimerListener listener : listeners) {
+            listener.timerStarted(this);
+        }
+    }
+
+    void firePaused() {
+        for (TimerListener listener : listeners) {
+            listener.timerPaused(this);
+        }
+    }
+
+    void fireReset() {
+        for (TimerListener listener : listeners) {
+            listener.timerReset(this);
+        }
+    }
+
+    // All running timers share the ticks of the central scheduler instead of owning a thread.
+    // The state decides, so a start and a pause racing each other cannot leave a paused timer registered
+    // or a running timer without ticks.
+    private void updateRegistration() {
+        TimerScheduler scheduler = TimerScheduler.getInstance();
+        boolean running;
+        while ((running = state.isRunning()) != scheduler.isRegistered(this)) {
+            if (running) {
+                scheduler.register(this);
+            } else {
+                scheduler.unregister(this);
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return state.isRunning();
+    }
+
+    // Method to reset the timer value to 0, a running timer keeps running
+    public void reset() {
+        resetAt(System.nanoTime());
+        fireReset();
+    }
+
+    // Method to set the timer to a new value in milliseconds, a running timer keeps running
+    public void modify(long millis) {
+        TimerState.Snapshot snapshot = state.setMillis(millis);
+        // Jumping to a new value must not trigger the alarms in between
+        alarmIndex.seek(millis, snapshot.getVersion());
+        seekProgram(millis, snapshot.getVersion());
+        TimerScheduler.getInstance().reschedule(this);
+        for (TimerListener listener : listeners) {
+            listener.timerModified(this, millis);
+        }
+    }
+
+    // Count backwards (reverse) or forward, the value reached so far is kept
+    public void setReverse(boolean reverse) {
+        if (!state.setReverse(reverse)) {
+            return;
+        }
+        // The next alarm is in the other direction now
+        TimerScheduler.getInstance().reschedule(this);
+        for (TimerListener listener : listeners) {
+            listener.reverseChanged(this, reverse);
+        }
+    }
+
+    public boolean isReverse() {
+        return state.isReverse();
+    }
+
+    // Current timer value in milliseconds
+    public long getMillis() {
+        return state.getMillis();
+    }
+
+    // Value, running and direction read together, for callers that need a consistent view of all three
+    public TimerState.Snapshot snapshot() {
+        return state.snapshot();
+    }
+
+    // Called by the central scheduler while the timer is running, every 10 milliseconds while it is displayed
+    @Override
+    public void tick() {
+        // The value is derived from the monotonic clock, so a late tick only delays the callbacks
+        TimerState.Snapshot snapshot = state.snapshot();
+        long nowNanos = System.nanoTime();
+        long started = startedNanos;
+        if (started != 0) {
+            startedNanos = 0;
+            TimerMetrics.getInstance().getStartToFirstTick().record(nowNanos - started);
+        }
+        long currentMillis = snapshot.getMillis(nowNanos);
+        checkAlarmNotification(currentMillis, snapshot.getVersion());
+        ProgramCursor cursor = program;
+        if (cursor != null) {
+            checkPhaseChange(cursor, currentMillis, snapshot.getVersion());
+        }
+        lastTickMillis = currentMillis;
+        if (tickCallbackPending.compareAndSet(false, true)) {
+            callbacks.execute(this::fireTicked);
+        }
+    }
+
+    private void fireTicked() {
+        tickCallbackPending.set(false);
+        long millis = lastTickMillis;
+        for (TimerListener listener : listeners) {
+            listener.timerTicked(this, millis);
+        }
+    }
+
+    // A displayed timer needs every tick. Otherwise only its alarms need ticks, so it sleeps until the timer
+    // reaches the next alarm, at most HIDDEN_TICK_INTERVAL_NANOS so tick listeners still see the value move.
+    // Splits read the clock, so they are exact either way.
+    @Override
+    public long nextTickDelayNanos(long nowNanos) {
+        if (viewers.get() > 0) {
+            return 0;
+        }
+        TimerState.Snapshot snapshot = state.snapshot();
+        long millis = snapshot.getMillis(nowNanos);
+        long untilAlarmMillis = alarmIndex.millisUntilNextAlarm(millis, snapshot.isReverse());
+        ProgramCursor cursor = program;
+        if (cursor != null) {
+            untilAlarmMillis = Math.min(untilAlarmMillis, cursor.millisUntilPhaseChange(millis, snapshot.isReverse()));
+        }
+        return Math.min(HIDDEN_TICK_INTERVAL_NANOS, TimeUnit.MILLISECONDS.toNanos(untilAlarmMillis));
+    }
+
+    // Notify the listeners about every alarm value passed since the last check
+    private void checkAlarmNotification(long currentMillis, long stateVersion) {
+        alarmIndex.advance(currentMillis, stateVersion, alarm -> {
+            // How far the timer already passed the alarm value when it was noticed
+            long latenessMillis = Math.abs(currentMillis - alarm.getTotalMilliseconds());
+            TimerMetrics.getInstance().getAlarmLateness().record(TimeUnit.MILLISECONDS.toNanos(latenessMillis));
+            alarm.setReached(true);
+            callbacks.execute(() -> {
+                for (TimerListener listener : listeners) {
+                    listener.alarmReached(this, alarm);
+                }
+            });
+        });
+    }
+
+    // Notify the listeners when the timer counted into another phase of its program
+    private void checkPhaseChange(ProgramCursor cursor, long currentMillis, long stateVersion) {
+        cursor.advance(currentMillis, stateVersion, phase -> callbacks.execute(() -> {
+            for (TimerListener listener : listeners) {
+                listener.phaseChanged(this, cursor.getProgram(), phase);
+            }
+        }));
+    }
+
+    private void seekProgram(long millis, long stateVersion) {
+        ProgramCursor cursor = program;
+        if (cursor != null) {
+            cursor.seek(millis, stateVersion);
+        }
+    }
+
+    // Run the interval program on this timer, its phases start at the timer value 0. Null removes the program.
+    public void setProgram(IntervalProgram newProgram) {
+        if (newProgram == null) {
+            program = null;
+        } else {
+            TimerState.Snapshot snapshot = state.snapshot();
+            program = new ProgramCursor(newProgram, snapshot.getMillis(System.nanoTime()), snapshot.getVersion());
+        }
+        TimerScheduler.getInstance().reschedule(this);
+        for (TimerListener listener : listeners) {
+            listener.programChanged(this, newProgram);
+        }
+    }
+
+    // Interval program of the timer, null if it has none
+    public IntervalProgram getProgram() {
+        ProgramCursor cursor = program;
+        return cursor == null ? null : cursor.getProgram();
+    }
+
+    // Running phase of the program as of the last tick, getPhaseCount() after its end, -1 without a program
+    public int getProgramPhase() {
+        ProgramCursor cursor = program;
+        return cursor == null ? -1 : cursor.getPhase();
+    }
+
+    // Snapshot the current timer value as a new split and return it
+    public long split() {
+        long millis = state.getMillis();
+        int index = splits.add(millis);
+        for (TimerListener listener : listeners) {
+            listener.splitCreated(this, index, millis);
+        }
+        return millis;
+    }
+
+    // Append a split with the given value, e.g. when restoring a timer
+    public void addSplit(long millis) {
+        int index = splits.add(millis);
+        for (TimerListener listener : listeners) {
+            listener.splitCreated(this, index, millis);
+        }
+    }
+
+    // Remove the splits at the given indices, the indices must be sorted in ascending order
+    public void removeSplits(int[] indices) {
+        splits.removeAll(indices);
+        for (TimerListener listener : listeners) {
+            listener.splitsRemoved(this, indices);
+        }
+    }
+
+    public void clearSplits() {
+        splits.clear();
+        for (TimerListener listener : listeners) {
+            listener.splitsCleared(this);
+        }
+    }
+
+    public int getSplitCount() {
+        return splits.size();
+    }
+
+    // Split value in milliseconds, the split number is the index + 1
+    public long getSplit(int index) {
+        return splits.get(index);
+    }
+
+    // Copy of the split values in milliseconds, in the order they were created
+    public long[] getSplits() {
+        return splits.toArray();
+    }
+
+    // Lap statistics of the splits: last, best, worst, mean, standard deviation and percentiles
+    public SplitStatistics.Summary getSplitStatistics() {
+        return splits.getStatistics();
+    }
+
+    // Changes whenever the splits change, so a view only has to get the statistics again after a change
+    public long getSplitStatisticsVersion() {
+        return splits.getStatisticsVersion();
+    }
+
+    public void addAlarm(Alarm alarm) {
+        addAlarms(List.of(alarm));
+    }
+
+    // Add many alarms at once, the alarm index is rebuilt only once
+    public void addAlarms(Collection<Alarm> newAlarms) {
+        synchronized (alarms) {
+            for (Alarm alarm : newAlarms) {
+                alarms.put(alarm.getId(), alarm);
+            }
+        }
+        alarmIndex.rebuild(getAlarms());
+        for (Alarm alarm : newAlarms) {
+            for (TimerListener listener : listeners) {
+                listener.alarmAdded(this, alarm);
+            }
+        }
+        notifyAlarmsChanged();
+    }
+
+    public void removeAlarm(Alarm alarm) {
+        removeAlarm(alarm.getId());
+    }
+
+    // Remove the alarm with the given id, without searching the alarms
+    public boolean removeAlarm(long id) {
+        Alarm removed;
+        synchronized (alarms) {
+            removed = alarms.remove(id);
+        }
+        if (removed == null) {
+            return false;
+        }
+        // The value of the alarm is unchanged since it was indexed, so it is found without a rebuild
+        if (!alarmIndex.remove(removed)) {
+            alarmIndex.rebuild(getAlarms());
+        }
+        for (TimerListener listener : listeners) {
+            listener.alarmRemoved(this, removed);
+        }
+        notifyAlarmsChanged();
+        return true;
+    }
+
+    // Remove many alarms at once, e.g. the selected rows of the alarm table. The alarms are removed from the index
+    // one by one like in removeAlarm(long), the index is only rebuilt once if an alarm is not found in it or more
+    // than half of the alarms are removed, when sorting the rest is cheaper than leaving tombstones.
+    public void removeAlarms(Collection<Alarm> removedAlarms) {
+        List<Alarm> removed = new ArrayList<>(removedAlarms.size());
+        synchronized (alarms) {
+            for (Alarm alarm : removedAlarms) {
+                Alarm previous = alarms.remove(alarm.getId());
+                if (previous != null) {
+                    removed.add(previous);
+                }
+            }
+        }
+        if (removed.isEmpty()) {
+            return;
+        }
+        boolean indexed = removed.size() * 2 <= alarmIndex.size();
+        for (int i = 0; indexed && i < removed.size(); i++) {
+            indexed = alarmIndex.remove(removed.get(i));
+        }
+        if (!indexed) {
+            alarmIndex.rebuild(getAlarms());
+        }
+        for (Alarm alarm : removed) {
+            for (TimerListener listener : listeners) {
+                listener.alarmRemoved(this, alarm);
+            }
+        }
+        notifyAlarmsChanged();
+    }
+
+    // Must be called after the name or the value of the given alarm of this timer was edited
+    public void alarmEdited(Alarm alarm) {
+        alarmIndex.rebuild(getAlarms());
+        for (TimerListener listener : listeners) {
+            listener.alarmEdited(this, alarm);
+        }
+        notifyAlarmsChanged();
+    }
+
+    // Must be called after alarms of this timer were edited when it is not known which ones, prefer alarmEdited
+    public void alarmsChanged() {
+        alarmIndex.rebuild(getAlarms());
+        for (Alarm alarm : getAlarms()) {
+            for (TimerListener listener : listeners) {
+                listener.alarmEdited(this, alarm);
+            }
+        }
+        notifyAlarmsChanged();
+    }
+
+    private void notifyAlarmsChanged() {
+        TimerScheduler.getInstance().reschedule(this);
+        for (TimerListener listener : listeners) {
+            listener.alarmsChanged(this);
+        }
+    }
+
+    // Alarm with the given id, null if the timer has no such alarm
+    public Alarm getAlarm(long id) {
+        synchronized (alarms) {
+            return alarms.get(id);
+        }
+    }
+
+    public int getAlarmCount() {
+        synchronized (alarms) {
+            return alarms.size();
+        }
+    }
+
+    // Copy of the alarms of this timer in the order they were added
+    public List<Alarm> getAlarms() {
+        synchronized (alarms) {
+            return List.copyOf(alarms.values());
+        }
+    }
+}
@@ -0,0 +1,255 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Central tick engine shared by every running timer.
+// Instead of one executor (and one thread) per timer, all running timers register here and a single daemon
+// thread calls them. Tickables that need the full resolution are called every TICK_INTERVAL_MS milliseconds.
+// With adaptive scheduling (the default, disabled with -Dtimer.adaptive=false) a tickable can ask for a later
+// wake-up after each tick, e.g. a timer nobody looks at only until its next alarm. The thread sleeps until the
+// earliest wake-up, so hidden timers cost no wake-ups at all in between and an idle app does not wake up.
+public class TimerScheduler {
+
+    // Interface implemented by everything that wants to be called on each tick
+    public interface Tickable {
+        void tick();
+
+        // Called after each tick, returns the nanoseconds until the next tick is needed, or 0 (the default) to
+        // be called on every tick of the full resolution. Only used with adaptive scheduling.
+        default long nextTickDelayNanos(long nowNanos) {
+            return 0;
+        }
+    }
+
+    public static final long TICK_INTERVAL_MS = 10;
+    public static final long TICK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_INTERVAL_MS);
+    public static final boolean ADAPTIVE = Boolean.parseBoolean(System.getProperty("timer.adaptive", "true"));
+
+    private static final TimerScheduler INSTANCE = new TimerScheduler();
+
+    // A later tick requested by a tickable, cancelled instead of removed from the queue
+    private static final class WakeUp {
+        private final Tickable tickable;
+        private final long deadlineNanos;
+        private boolean cancelled;
+
+        private WakeUp(Tickable tickable, long deadlineNanos) {
+            this.tickable = tickable;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    private final Set<Tickable> tickables = ConcurrentHashMap.newKeySet();
+    // Tickables called on every tick of the full resolution
+    private final Set<Tickable> fullResolution = ConcurrentHashMap.newKeySet();
+    // Held while ticking, so tasks run with runBetweenTicks never overlap a tick. Also guards the fields below.
+    private final Object tickLock = new Object();
+    // Tickables waiting for a later tick, ordered by their deadline
+    private final PriorityQueue<WakeUp> wakeUps = new PriorityQueue<>((a, b) -> Long.compare(a.deadlineNanos, b.deadlineNanos));
+    private final Map<Tickable, WakeUp> pendingWakeUps = new HashMap<>();
+    // Planned start of the next full resolution tick, ticks are planned at a fixed rate while there are
+    // full resolution tickables
+    private long plannedTickNanos;
+    // Number of times the scheduler thread woke up, used to compute the wake-ups per second
+    private final AtomicLong wakeUpCount = new AtomicLong();
+    private long lastRateWakeUps;
+    private long lastRateNanos = System.nanoTime();
+    private int wakeUpsPerSecond;
+    private final Thread thread;
+
+    private TimerScheduler() {
+        thread = new Thread(this::run, "timer-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static TimerScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    // Start calling the given tickable, the first tick is at the next tick of the full resolution
+    public void register(Tickable tickable) {
+        synchronized (tickLock) {
+            if (tickables.add(tickable)) {
+                addFullResolution(tickable);
+            }
+        }
+    }
+
+    // Stop calling the given tickable, does nothing if it was not registered
+    public void unregister(Tickable tickable) {
+        synchronized (tickLock) {
+            if (tickables.remove(tickable)) {
+                fullResolution.remove(tickable);
+                cancelWakeUp(tickable);
+            }
+        }
+    }
+
+    // Tick the given tickable at the next tick of the full resolution, so it can ask for a new delay.
+    // Must be called when something the delay depends on changes, e.g. an alarm was added or the timer
+    // became visible. Does nothing if the tickable is not registered.
+    public void reschedule(Tickable tickable) {
+        synchronized (tickLock) {
+            if (tickables.contains(tickable) && !fullResolution.contains(tickable)) {
+                cancelWakeUp(tickable);
+                addFullResolution(tickable);
+            }
+        }
+    }
+
+    public boolean isRegistered(Tickable tickable) {
+        return tickables.contains(tickable);
+    }
+
+    public int getRegisteredCount() {
+        return tickables.size();
+    }
+
+    // Number of registered tickables that are currently called on every tick of the full resolution
+    public int getFullResolutionCount() {
+        return fullResolution.size();
+    }
+
+    // Total number of times the scheduler thread woke up
+    public long getWakeUpCount() {
+        return wakeUpCount.get();
+    }
+
+    // Wake-ups of the scheduler thread during the last full second
+    public synchronized int getWakeUpsPerSecond() {
+        long now = System.nanoTime();
+        long elapsedNanos = now - lastRateNanos;
+        if (elapsedNanos >= 1_000_000_000L) {
+            long count = wakeUpCount.get();
+            wakeUpsPerSecond = (int) ((count - lastRateWakeUps) * 1_000_000_000L / elapsedNanos);
+            lastRateWakeUps = count;
+            lastRateNanos = now;
+        }
+        return wakeUpsPerSecond;
+    }
+
+    // Run the given task while no tick is in progress, so a tick sees either none or all of its changes
+    public void runBetweenTicks(Runnable task) {
+        synchronized (tickLock) {
+            task.run();
+        }
+    }
+
+    // Must be called while holding the tick lock
+    private void addFullResolution(Tickable tickable) {
+        if (fullResolution.isEmpty()) {
+            // Start a new series of fixed rate ticks, the thread may sleep until a later wake-up
+            plannedTickNanos = System.nanoTime();
+            fullResolution.add(tickable);
+            LockSupport.unpark(thread);
+        } else {
+            fullResolution.add(tickable);
+        }
+    }
+
+    // Must be called while holding the tick lock
+    private void cancelWakeUp(Tickable tickable) {
+        WakeUp wakeUp = pendingWakeUps.remove(tickable);
+        if (wakeUp != null) {
+            wakeUp.cancelled = true;
+        }
+    }
+
+    private void run() {
+        while (true) {
+            long wakeUpNanos;
+            synchronized (tickLock) {
+                wakeUpNanos = tickDue();
+            }
+            if (wakeUpNanos == Long.MAX_VALUE) {
+                // Registering a tickable unparks the thread, so sleeping without a planned tick is fine
+                LockSupport.park(this);
+                wakeUpCount.incrementAndGet();
+            } else {
+                long sleepNanos = wakeUpNanos - System.nanoTime();
+                if (sleepNanos > 0) {
+                    LockSupport.parkNanos(this, sleepNanos);
+                    wakeUpCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // Tick everything that is due, returns the nanoTime of the next tick or Long.MAX_VALUE if none is planned
+    private long tickDue() {
+        long startNanos = System.nanoTime();
+        TimerMetrics metrics = TimerMetrics.getInstance();
+        boolean ticked = false;
+        if (!fullResolution.isEmpty() && startNanos - plannedTickNanos >= 0) {
+            metrics.recordTickJitter(startNanos - plannedTickNanos);
+            plannedTickNanos += TICK_INTERVAL_NANOS;
+            ticked = true;
+            for (Tickable tickable : fullResolution) {
+                if (tickOne(tickable, startNanos)) {
+                    // The tickable asked for a later tick
+                    fullResolution.remove(tickable);
+                }
+            }
+        }
+        WakeUp wakeUp;
+        while ((wakeUp = wakeUps.peek()) != null && (wakeUp.cancelled || startNanos - wakeUp.deadlineNanos >= 0)) {
+            wakeUps.poll();
+            if (wakeUp.cancelled) {
+                continue;
+            }
+            pendingWakeUps.remove(wakeUp.tickable);
+            metrics.recordTickJitter(startNanos - wakeUp.deadlineNanos);
+            ticked = true;
+            if (!tickOne(wakeUp.tickable, startNanos) && tickables.contains(wakeUp.tickable)) {
+                addFullResolution(wakeUp.tickable);
+            }
+        }
+        if (ticked) {
+            metrics.getTickDuration().record(System.nanoTime() - startNanos);
+        }
+
+        long next = fullResolution.isEmpty() ? Long.MAX_VALUE : plannedTickNanos;
+        while ((wakeUp = wakeUps.peek()) != null && wakeUp.cancelled) {
+            wakeUps.poll();
+        }
+        if (wakeUp != null && (next == Long.MAX_VALUE || wakeUp.deadlineNanos - next < 0)) {
+            next = wakeUp.deadlineNanos;
+        }
+        return next;
+    }
+
+    // Tick the given tickable, returns true if it was queued for a later tick instead of the next one
+    private boolean tickOne(Tickable tickable, long nowNanos) {
+        try {
+            tickable.tick();
+        } catch (RuntimeException e) {
+            // A failing timer must not stop the shared thread for all the other timers
+            e.printStackTrace();
+        }
+        // The tick may have unregistered the tickable, e.g. a listener pausing the timer
+        if (!ADAPTIVE || !tickables.contains(tickable)) {
+            return false;
+        }
+        long delayNanos;
+        try {
+            delayNanos = tickable.nextTickDelayNanos(nowNanos);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (delayNanos <= 0) {
+            return false;
+        }
+        WakeUp wakeUp = new WakeUp(tickable, nowNanos + delayNanos);
+        cancelWakeUp(tickable);
+        pendingWakeUps.put(tickable, wakeUp);
+        wakeUps.add(wakeUp);
+        return true;
+    }
+}
@@ -0,0 +1,238 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Time model of a single timer based on the monotonic System.nanoTime() clock.
+// The timer value is not accumulated tick by tick. Instead, the value at the last anchor point and the
+// nanoTime of that anchor are stored, and the current value is derived from the elapsed time when it is read.
+// Late or skipped ticks therefore never cause drift.
+// The state is an immutable Snapshot that is replaced with a compare-and-set, so the scheduler thread, the EDT
+// and other threads can read and change the timer without locks and never observe a half-updated state.
+// Every change takes effect at its successful compare-and-set, which makes the operations linearizable.
+public class TimerState {
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final VarHandle SNAPSHOT;
+
+    static {
+        try {
+            SNAPSHOT = MethodHandles.lookup().findVarHandle(TimerState.class, "snapshot", Snapshot.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Immutable state of a timer at one point in time
+    public static final class Snapshot {
+        // Timer value in milliseconds at the anchor point
+        private final long baseMillis;
+        // System.nanoTime() of the anchor point, only meaningful while running
+        private final long anchorNanos;
+        private final boolean running;
+        private final boolean reverse;
+        // Incremented whenever the value jumps (reset, modify), so continuous counting can be told apart from jumps
+        private final long version;
+        // Set while a pause or direction change waits to be settled, see TimerState.settle
+        private final boolean settling;
+        private final boolean nextRunning;
+        private final boolean nextReverse;
+
+        private Snapshot(long baseMillis, long anchorNanos, boolean running, boolean reverse, long version) {
+            this.baseMillis = baseMillis;
+            this.anchorNanos = anchorNanos;
+            this.running = running;
+            this.reverse = reverse;
+            this.version = version;
+            this.settling = false;
+            this.nextRunning = running;
+            this.nextReverse = reverse;
+        }
+
+        // Counts like the given state until it is settled with the new running and direction
+        private Snapshot(Snapshot current, boolean nextRunning, boolean nextReverse) {
+            this.baseMillis = current.baseMillis;
+            this.anchorNanos = current.anchorNanos;
+            this.running = current.running;
+            this.reverse = current.reverse;
+            this.version = current.version;
+            this.settling = true;
+            this.nextRunning = nextRunning;
+            this.nextReverse = nextReverse;
+        }
+
+        // Timer value in milliseconds at the given nanoTime, negative values are possible when counting backwards
+        public long getMillis(long nowNanos) {
+            if (!running) {
+                return baseMillis;
+            }
+            // A nanoTime taken before the timer was started counts as no time
+            long elapsedMillis = Math.max(0, nowNanos - anchorNanos) / NANOS_PER_MILLI;
+            return reverse ? baseMillis - elapsedMillis : baseMillis + elapsedMillis;
+        }
+
+        // Value at the anchor point, together with getAnchorNanos it describes the state without reading the clock
+        public long getBaseMillis() {
+            return baseMillis;
+        }
+
+        public long getAnchorNanos() {
+            return anchorNanos;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        public boolean isReverse() {
+            return reverse;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(0, 0, false, false, 0);
+
+    // Start counting from the current value at the given nanoTime, returns false if the timer was already running
+    public boolean start(long nowNanos) {
+        while (true) {
+            Snapshot current = settle(snapshot);
+            if (current.running) {
+                return false;
+            }
+            Snapshot next = new Snapshot(current.baseMillis, nowNanos, true, current.reverse, current.version);
+            if (SNAPSHOT.compareAndSet(this, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean start() {
+        return start(System.nanoTime());
+    }
+
+    // Stop counting and keep the value reached, returns false if the timer was not running
+    public boolean pause() {
+        while (true) {
+            Snapshot current = settle(snapshot);
+            if (!current.running) {
+                return false;
+            }
+            Snapshot pending = new Snapshot(current, false, current.reverse);
+            if (SNAPSHOT.compareAndSet(this, current, pending)) {
+                settle(pending);
+                return true;
+            }
+        }
+    }
+
+    // Change the counting direction, the value reached so far is kept. Returns false if the direction did not change.
+    public boolean setReverse(boolean reverse) {
+        while (true) {
+            Snapshot current = settle(snapshot);
+            if (current.reverse == reverse) {
+                return false;
+            }
+            Snapshot pending = new Snapshot(current, current.running, reverse);
+            if (SNAPSHOT.compareAndSet(this, current, pending)) {
+                settle(pending);
+                return true;
+            }
+        }
+    }
+
+    // Set the timer value without changing whether the timer is running, returns the new state
+    public Snapshot setMillis(long millis, long nowNanos) {
+        while (true) {
+            Snapshot current = settle(snapshot);
+            Snapshot next = new Snapshot(millis, nowNanos, current.running, current.reverse, current.version + 1);
+            if (SNAPSHOT.compareAndSet(this, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    // Replace the whole state, e.g. with the state of another instance (see ClusterNode). The value jumps, so the
+    // version is incremented like by setMillis. Returns the new state.
+    public Snapshot set(long baseMillis, long anchorNanos, boolean running, boolean reverse) {
+        while (true) {
+            Snapshot current = settle(snapshot);
+            Snapshot next = new Snapshot(baseMillis, anchorNanos, running, reverse, current.version + 1);
+            if (SNAPSHOT.compareAndSet(this, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    public Snapshot setMillis(long millis) {
+        return setMillis(millis, System.nanoTime());
+    }
+
+    public Snapshot reset() {
+        return setMillis(0);
+    }
+
+    // Current timer value in milliseconds, negative values are possible when counting backwards.
+    // The clock is read while the state is still current, so the value never goes back behind a concurrent pause.
+    public long getMillis() {
+        while (true) {
+            Snapshot current = settle(snapshot);
+            long nowNanos = System.nanoTime();
+            if (snapshot == current) {
+                return current.getMillis(nowNanos);
+            }
+        }
+    }
+
+    // Consistent view of value, running and direction at one point in time
+    public Snapshot snapshot() {
+        return settle(snapshot);
+    }
+
+    public boolean isRunning() {
+        return settle(snapshot).running;
+    }
+
+    public boolean isReverse() {
+        return settle(snapshot).reverse;
+    }
+
+    // Finish a pending pause or direction change. Freezing the value needs the time, and a time read before
+    // the change was published could be older than the time a concurrent reader already used. So the change is
+    // published first and then settled with the clock read afterwards, by the thread that published it or by
+    // any other thread that finds it first.
+    private Snapshot settle(Snapshot current) {
+        while (current.settling) {
+            long nowNanos = System.nanoTime();
+            Snapshot next = new Snapshot(current.getMillis(nowNanos), nowNanos, current.nextRunning, current.nextReverse,
+                    current.version);
+            if (SNAPSHOT.compareAndSet(this, current, next)) {
+                return next;
+            }
+            current = snapshot;
+        }
+        return current;
+    }
+
+    // Helper methods to split a millisecond value into its display parts.
+    // All parts carry the sign of the total value, like the counters of the timer always did.
+    public static int hoursOf(long totalMillis) {
+        return (int) (totalMillis / 3_600_000L);
+    }
+
+    public static int minutesOf(long totalMillis) {
+        return (int) (totalMillis / 60_000L % 60);
+    }
+
+    public static int secondsOf(long totalMillis) {
+        return (int) (totalMillis / 1000L % 60);
+    }
+
+    public static int millisecondsOf(long totalMillis) {
+        return (int) (totalMillis % 1000L);
+    }
+
+    public static long toMillis(int hours, int minutes, int seconds, int milliseconds) {
+        return hours * 3_600_000L + minutes * 60_000L + seconds * 1000L + milliseconds;
+    }
+}
@@ -0,0 +1,98 @@
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+// Alarm at an absolute date and time, independent of any timer, optionally repeated every day or week.
+// The time is kept as a local date and time of a time zone, so a daily alarm at 07:00 stays at 07:00 when
+// daylight saving time starts or ends. A local time that does not exist on a day (skipped by the clock change)
+// is moved later by the length of the gap, e.g. 02:30 becomes 03:30. A local time that exists twice (the clock
+// is set back) fires at its first occurrence only. The alarms are scheduled by the WallClockScheduler.
+public class WallClockAlarm {
+
+    public enum Recurrence {
+        ONCE(0),
+        DAILY(1),
+        WEEKLY(7);
+
+        private final int days;
+
+        Recurrence(int days) {
+            this.days = days;
+        }
+    }
+
+    private final String name;
+    private final LocalDateTime time;
+    private final ZoneId zone;
+    private final Recurrence recurrence;
+
+    public WallClockAlarm(String name, LocalDateTime time, Recurrence recurrence) {
+        this(name, time, ZoneId.systemDefault(), recurrence);
+    }
+
+    public WallClockAlarm(String name, LocalDateTime time, ZoneId zone, Recurrence recurrence) {
+        this.name = name;
+        // The scheduler keeps the deadlines in milliseconds
+        this.time = time.truncatedTo(ChronoUnit.MILLIS);
+        this.zone = zone;
+        this.recurrence = recurrence;
+    }
+
+    // Alarm firing once at the given instant
+    public static WallClockAlarm at(String name, Instant instant) {
+        ZoneId zone = ZoneId.systemDefault();
+        return new WallClockAlarm(name, LocalDateTime.ofInstant(instant, zone), zone, Recurrence.ONCE);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Local date and time of the first occurrence
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    // First occurrence strictly after the given instant, null if the alarm does not fire after it
+    public Instant nextOccurrenceAfter(Instant after) {
+        Instant first = resolve(time);
+        if (first.isAfter(after)) {
+            return first;
+        }
+        if (recurrence == Recurrence.ONCE) {
+            return null;
+        }
+        // Jump close to the given instant instead of stepping through every day since the first occurrence,
+        // one period early because the resolved times can be shifted by a clock change
+        LocalDateTime afterLocal = LocalDateTime.ofInstant(after, zone);
+        long periods = ChronoUnit.DAYS.between(time.toLocalDate(), afterLocal.toLocalDate()) / recurrence.days - 1;
+        LocalDateTime candidate = periods > 0 ? time.plusDays(periods * recurrence.days) : time;
+        Instant occurrence;
+        while (!(occurrence = resolve(candidate)).isAfter(after)) {
+            candidate = candidate.plusDays(recurrence.days);
+        }
+        return occurrence;
+    }
+
+    // Instant of a local date and time in the zone of the alarm, times in a gap are moved later by its length
+    // and times in an overlap use the earlier offset
+    private Instant resolve(LocalDateTime localDateTime) {
+        return ZonedDateTime.of(localDateTime, zone).toInstant();
+    }
+
+    @Override
+    public String toString() {
+        String description = name + " at " + time;
+        return recurrence == Recurrence.ONCE ? description : description + " (" + recurrence.name().toLowerCase() + ")";
+    }
+}
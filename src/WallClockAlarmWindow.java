@@ -0,0 +1,106 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.temporal.ChronoUnit;
+import java.util.Calendar;
+import java.util.Date;
+
+// Window listing the scheduled WallClockAlarms with their next deadline, with controls to add an alarm at a
+// date and time, optionally repeated every day or week, and to remove the selected alarm.
+public class WallClockAlarmWindow extends JFrame {
+
+    private final WallClockScheduler scheduler = WallClockScheduler.getInstance();
+    private final DefaultListModel<WallClockAlarm> alarmListModel = new DefaultListModel<>();
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+    // Refreshes the list when an alarm fired, so fired alarms disappear and recurring ones move
+    private final WallClockScheduler.Listener refreshListener = (alarm, deadline) -> SwingUtilities.invokeLater(this::refresh);
+
+    public WallClockAlarmWindow() {
+        super("Clock Alarms");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout());
+
+        JList<WallClockAlarm> alarmList = new JList<>(alarmListModel);
+        alarmList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                WallClockAlarm alarm = (WallClockAlarm) value;
+                return super.getListCellRendererComponent(list, describe(alarm), index, isSelected, cellHasFocus);
+            }
+        });
+        add(new JScrollPane(alarmList), BorderLayout.CENTER);
+
+        // Controls for a new alarm, one minute from now by default
+        JPanel addPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        JTextField nameField = new JTextField("Alarm", 10);
+        addPanel.add(nameField);
+        Calendar inOneMinute = Calendar.getInstance();
+        inOneMinute.add(Calendar.MINUTE, 1);
+        inOneMinute.set(Calendar.SECOND, 0);
+        inOneMinute.set(Calendar.MILLISECOND, 0);
+        JSpinner timeSpinner = new JSpinner(new SpinnerDateModel(inOneMinute.getTime(), null, null, Calendar.MINUTE));
+        timeSpinner.setEditor(new JSpinner.DateEditor(timeSpinner, "yyyy-MM-dd HH:mm:ss"));
+        addPanel.add(timeSpinner);
+        JComboBox<WallClockAlarm.Recurrence> recurrenceComboBox = new JComboBox<>(WallClockAlarm.Recurrence.values());
+        addPanel.add(recurrenceComboBox);
+        JButton addButton = new JButton("Add");
+        addButton.addActionListener(e -> {
+            Date date = (Date) timeSpinner.getValue();
+            LocalDateTime time = LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+            WallClockAlarm alarm = new WallClockAlarm(nameField.getText().trim(), time,
+                    (WallClockAlarm.Recurrence) recurrenceComboBox.getSelectedItem());
+            if (!scheduler.schedule(alarm)) {
+                JOptionPane.showMessageDialog(this, "The alarm time has already passed.", "Clock Alarms",
+                        JOptionPane.WARNING_MESSAGE);
+            }
+            refresh();
+        });
+        addPanel.add(addButton);
+        JButton removeButton = new JButton("Remove");
+        removeButton.addActionListener(e -> {
+            WallClockAlarm alarm = alarmList.getSelectedValue();
+            if (alarm != null) {
+                scheduler.unschedule(alarm);
+                refresh();
+            }
+        });
+        addPanel.add(removeButton);
+        add(addPanel, BorderLayout.SOUTH);
+
+        scheduler.addListener(refreshListener);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                scheduler.removeListener(refreshListener);
+            }
+        });
+        refresh();
+
+        setSize(600, 300);
+        setLocationByPlatform(true);
+        setVisible(true);
+    }
+
+    private void refresh() {
+        alarmListModel.clear();
+        alarmListModel.addAll(scheduler.getAlarms());
+    }
+
+    private String describe(WallClockAlarm alarm) {
+        Instant deadline = scheduler.getNextDeadline(alarm);
+        if (deadline == null) {
+            return alarm.getName() + ": fired";
+        }
+        LocalDateTime next = LocalDateTime.ofInstant(deadline.truncatedTo(ChronoUnit.SECONDS), ZoneId.systemDefault());
+        String description = alarm.getName() + ": " + next.format(formatter);
+        return alarm.getRecurrence() == WallClockAlarm.Recurrence.ONCE
+                ? description
+                : description + ", " + alarm.getRecurrence().name().toLowerCase();
+    }
+}
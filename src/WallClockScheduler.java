@@ -0,0 +1,249 @@
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Global deadline queue of all WallClockAlarms. A single daemon thread sleeps until the earliest deadline,
+// adding or removing an alarm costs O(log n) and the thread does not wake up for alarms that are not due.
+// The deadlines are instants of the wall clock, which can be set while the thread sleeps. Java is not told
+// about that, so the thread sleeps at most MAX_SLEEP_MILLIS at once and then reads the clock again: a clock set
+// back only makes it sleep longer, a clock set forward is noticed within MAX_SLEEP_MILLIS. clockChanged()
+// wakes it up right away. Alarms passed by a clock set forward fire once, a recurring alarm then continues
+// with its next occurrence after the current time, and an occurrence that already fired does not fire again
+// when the clock is set back.
+public class WallClockScheduler {
+
+    // Called on a thread of the ExecutionBackend (the scheduler thread in the inline mode) when an alarm fires
+    public interface Listener {
+        void alarmFired(WallClockAlarm alarm, Instant deadline);
+    }
+
+    // Longest time the thread sleeps without reading the wall clock, see the class comment
+    public static final long MAX_SLEEP_MILLIS = 10_000;
+    // Difference between the wall clock and the monotonic clock after a sleep counted as a clock change
+    private static final long CLOCK_CHANGE_THRESHOLD_MILLIS = 1_000;
+
+    private static final WallClockScheduler INSTANCE = new WallClockScheduler(Clock.systemUTC());
+
+    // Next occurrence of an alarm, cancelled instead of removed from the queue
+    private static final class Deadline {
+        private final WallClockAlarm alarm;
+        private final long epochMillis;
+        private boolean cancelled;
+
+        private Deadline(WallClockAlarm alarm, long epochMillis) {
+            this.alarm = alarm;
+            this.epochMillis = epochMillis;
+        }
+    }
+
+    private final Clock clock;
+    // Guards the queue and the map
+    private final Object lock = new Object();
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>((a, b) -> Long.compare(a.epochMillis, b.epochMillis));
+    private final Map<WallClockAlarm, Deadline> scheduled = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Keeps the order of the fired alarms when the listeners do not run on the scheduler thread
+    private final Executor callbacks = ExecutionBackend.getInstance().newSerialExecutor();
+    private final AtomicLong wakeUpCount = new AtomicLong();
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong clockChangeCount = new AtomicLong();
+    // Created with the first scheduled alarm, an app without wall-clock alarms has no thread for them
+    private Thread thread;
+
+    // Package-private, so tests can use a clock they can set
+    WallClockScheduler(Clock clock) {
+        this.clock = clock;
+    }
+
+    public static WallClockScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Schedule the next occurrence of the given alarm, returns false if it does not occur after the current time.
+    // Scheduling an alarm again replaces its deadline.
+    public boolean schedule(WallClockAlarm alarm) {
+        Instant next = alarm.nextOccurrenceAfter(clock.instant());
+        synchronized (lock) {
+            cancel(alarm);
+            if (next == null) {
+                return false;
+            }
+            add(alarm, next.toEpochMilli());
+        }
+        return true;
+    }
+
+    // Stop the given alarm, returns false if it was not scheduled
+    public boolean unschedule(WallClockAlarm alarm) {
+        synchronized (lock) {
+            return cancel(alarm);
+        }
+    }
+
+    public boolean isScheduled(WallClockAlarm alarm) {
+        synchronized (lock) {
+            return scheduled.containsKey(alarm);
+        }
+    }
+
+    // Scheduled alarms ordered by their next deadline
+    public List<WallClockAlarm> getAlarms() {
+        List<Deadline> pending;
+        synchronized (lock) {
+            pending = new ArrayList<>(scheduled.values());
+        }
+        pending.sort((a, b) -> Long.compare(a.epochMillis, b.epochMillis));
+        List<WallClockAlarm> alarms = new ArrayList<>(pending.size());
+        for (Deadline deadline : pending) {
+            alarms.add(deadline.alarm);
+        }
+        return alarms;
+    }
+
+    // Next deadline of the given alarm, null if it is not scheduled
+    public Instant getNextDeadline(WallClockAlarm alarm) {
+        synchronized (lock) {
+            Deadline deadline = scheduled.get(alarm);
+            return deadline == null ? null : Instant.ofEpochMilli(deadline.epochMillis);
+        }
+    }
+
+    public int getScheduledCount() {
+        synchronized (lock) {
+            return scheduled.size();
+        }
+    }
+
+    // Total number of times the thread woke up
+    public long getWakeUpCount() {
+        return wakeUpCount.get();
+    }
+
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    // Number of times the thread noticed that the wall clock was set
+    public long getClockChangeCount() {
+        return clockChangeCount.get();
+    }
+
+    // Read the wall clock again right away, e.g. after the system clock or the time zone was changed
+    public void clockChanged() {
+        synchronized (lock) {
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    // Must be called while holding the lock
+    private void add(WallClockAlarm alarm, long epochMillis) {
+        Deadline deadline = new Deadline(alarm, epochMillis);
+        scheduled.put(alarm, deadline);
+        deadlines.add(deadline);
+        if (thread == null) {
+            thread = new Thread(this::run, "wall-clock-alarms");
+            thread.setDaemon(true);
+            thread.start();
+        } else if (deadlines.peek() == deadline && Thread.currentThread() != thread) {
+            // Earlier than the deadline the thread sleeps until
+            LockSupport.unpark(thread);
+        }
+    }
+
+    // Must be called while holding the lock
+    private boolean cancel(WallClockAlarm alarm) {
+        Deadline deadline = scheduled.remove(alarm);
+        if (deadline == null) {
+            return false;
+        }
+        deadline.cancelled = true;
+        return true;
+    }
+
+    private void run() {
+        while (true) {
+            long sleepMillis = fireDue();
+            long beforeMillis = clock.millis();
+            long beforeNanos = System.nanoTime();
+            if (sleepMillis == Long.MAX_VALUE) {
+                // Scheduling an alarm unparks the thread, so sleeping without a deadline is fine
+                LockSupport.park(this);
+            } else if (sleepMillis > 0) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(sleepMillis));
+            }
+            wakeUpCount.incrementAndGet();
+            long wallElapsedMillis = clock.millis() - beforeMillis;
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - beforeNanos);
+            if (Math.abs(wallElapsedMillis - elapsedMillis) > CLOCK_CHANGE_THRESHOLD_MILLIS) {
+                clockChangeCount.incrementAndGet();
+            }
+        }
+    }
+
+    // Fire every alarm that is due and schedule the next occurrences, returns the milliseconds to sleep or
+    // Long.MAX_VALUE if no alarm is scheduled
+    private long fireDue() {
+        List<Deadline> due = new ArrayList<>();
+        long nowMillis = clock.millis();
+        synchronized (lock) {
+            Deadline deadline;
+            while ((deadline = deadlines.peek()) != null && (deadline.cancelled || deadline.epochMillis <= nowMillis)) {
+                deadlines.poll();
+                if (deadline.cancelled) {
+                    continue;
+                }
+                scheduled.remove(deadline.alarm);
+                due.add(deadline);
+                // After the current time, so occurrences passed by a clock set forward fire only once, and
+                // after the deadline, so an occurrence does not fire again when the clock was set back
+                Instant next = deadline.alarm.nextOccurrenceAfter(Instant.ofEpochMilli(Math.max(nowMillis, deadline.epochMillis)));
+                if (next != null) {
+                    add(deadline.alarm, next.toEpochMilli());
+                }
+            }
+        }
+        for (Deadline deadline : due) {
+            firedCount.incrementAndGet();
+            Instant instant = Instant.ofEpochMilli(deadline.epochMillis);
+            callbacks.execute(() -> {
+                for (Listener listener : listeners) {
+                    try {
+                        listener.alarmFired(deadline.alarm, instant);
+                    } catch (RuntimeException e) {
+                        // A failing listener must not stop the thread of all the other alarms
+                        e.printStackTrace();
+                    }
+                }
+            });
+        }
+        synchronized (lock) {
+            Deadline next;
+            while ((next = deadlines.peek()) != null && next.cancelled) {
+                deadlines.poll();
+            }
+            if (next == null) {
+                return Long.MAX_VALUE;
+            }
+            return Math.min(next.epochMillis - clock.millis(), MAX_SLEEP_MILLIS);
+        }
+    }
+}